@@ -0,0 +1,303 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusConstants;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.core.io.transport.modbus.PollTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Coalesces the regular polls of several pollers into fewer reads.
+ *
+ * Polls with the same unit id, function code, maximum tries and poll period are merged into one read if their ranges
+ * overlap or are at most maxGap registers (or bits) apart, and the merged read stays within the protocol limits. The
+ * result of the merged read is sliced back to the callbacks of the individual polls.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollCoalescer {
+
+    /**
+     * Regular poll registered with the coalescer
+     */
+    public class CoalescedPoll {
+        private final ModbusReadRequestBlueprint request;
+        private final GroupKey key;
+        private final ModbusReadCallback resultCallback;
+        private final ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback;
+
+        private CoalescedPoll(ModbusReadRequestBlueprint request, long pollPeriodMillis,
+                ModbusReadCallback resultCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+            this.request = request;
+            this.key = new GroupKey(request.getUnitID(), request.getFunctionCode(), request.getMaxTries(),
+                    pollPeriodMillis);
+            this.resultCallback = resultCallback;
+            this.failureCallback = failureCallback;
+        }
+
+        private int getStart() {
+            return request.getReference();
+        }
+
+        private int getEnd() {
+            return request.getReference() + request.getDataLength();
+        }
+
+        /**
+         * Unregister the poll
+         */
+        public void unregister() {
+            unregisterRegularPoll(this);
+        }
+    }
+
+    /**
+     * Polls can only be merged if their keys are equal
+     */
+    private record GroupKey(int unitId, ModbusReadFunctionCode functionCode, int maxTries, long pollPeriodMillis) {
+    }
+
+    /**
+     * Read covering the ranges of one or more polls
+     */
+    private class PollGroup implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
+        private final ModbusReadRequestBlueprint request;
+        private final List<CoalescedPoll> polls;
+        private @Nullable PollTask pollTask;
+
+        private PollGroup(ModbusReadRequestBlueprint request, List<CoalescedPoll> polls) {
+            this.request = request;
+            this.polls = polls;
+        }
+
+        @Override
+        public void handle(AsyncModbusReadResult result) {
+            for (CoalescedPoll poll : polls) {
+                try {
+                    if (polls.size() == 1) {
+                        poll.resultCallback.handle(result);
+                        continue;
+                    }
+                    AsyncModbusReadResult slicedResult = slice(poll, result);
+                    if (slicedResult != null) {
+                        poll.resultCallback.handle(slicedResult);
+                    } else {
+                        poll.failureCallback.handle(new AsyncModbusFailure<>(poll.request, new IllegalStateException(
+                                String.format("Response to coalesced request %s does not contain data of %s",
+                                        request, poll.request))));
+                    }
+                } catch (RuntimeException e) {
+                    logger.warn("Error handling result of coalesced request {} for {}", request, poll.request, e);
+                }
+            }
+        }
+
+        @Override
+        public void handle(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+            for (CoalescedPoll poll : polls) {
+                try {
+                    poll.failureCallback.handle(polls.size() == 1 ? failure
+                            : new AsyncModbusFailure<>(poll.request, failure.getCause()));
+                } catch (RuntimeException e) {
+                    logger.warn("Error handling failure of coalesced request {} for {}", request, poll.request, e);
+                }
+            }
+        }
+
+        private @Nullable AsyncModbusReadResult slice(CoalescedPoll poll, AsyncModbusReadResult result) {
+            int offset = poll.getStart() - request.getReference();
+            int length = poll.request.getDataLength();
+            Optional<ModbusRegisterArray> registers = result.getRegisters();
+            if (registers.isPresent()) {
+                byte[] bytes = registers.get().getBytes();
+                if ((offset + length) * 2 > bytes.length) {
+                    return null;
+                }
+                return new AsyncModbusReadResult(poll.request,
+                        new ModbusRegisterArray(Arrays.copyOfRange(bytes, offset * 2, (offset + length) * 2)));
+            }
+            Optional<BitArray> bits = result.getBits();
+            if (bits.isPresent()) {
+                BitArray allBits = bits.get();
+                if (offset + length > allBits.size()) {
+                    return null;
+                }
+                BitArray slicedBits = new BitArray(length);
+                for (int i = 0; i < length; i++) {
+                    slicedBits.setBit(i, allBits.getBit(offset + i));
+                }
+                return new AsyncModbusReadResult(poll.request, slicedBits);
+            }
+            return null;
+        }
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(ModbusPollCoalescer.class);
+
+    private final ModbusCommunicationInterface comms;
+    private final int maxGap;
+    private final Map<GroupKey, List<CoalescedPoll>> polls = new HashMap<>();
+    private final Map<GroupKey, List<PollGroup>> groups = new HashMap<>();
+    private boolean closed;
+
+    /**
+     *
+     * @param comms communication interface the merged polls are registered with
+     * @param maxGap maximum number of registers (or bits) between two polls that are still merged
+     */
+    public ModbusPollCoalescer(ModbusCommunicationInterface comms, int maxGap) {
+        this.comms = comms;
+        this.maxGap = Math.max(0, maxGap);
+    }
+
+    /**
+     * Register regular polling of the request, possibly merged with requests of other polls
+     *
+     * @param request request to poll
+     * @param pollPeriodMillis poll interval, in milliseconds
+     * @param resultCallback callback for the data of the request
+     * @param failureCallback callback for failures
+     * @return poll which can be used to unregister the polling
+     */
+    public synchronized CoalescedPoll registerRegularPoll(ModbusReadRequestBlueprint request, long pollPeriodMillis,
+            ModbusReadCallback resultCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> failureCallback) {
+        CoalescedPoll poll = new CoalescedPoll(request, pollPeriodMillis, resultCallback, failureCallback);
+        if (!closed) {
+            polls.computeIfAbsent(poll.key, key -> new ArrayList<>()).add(poll);
+            regroup(poll.key);
+        }
+        return poll;
+    }
+
+    /**
+     * Unregister regular polling. No-op in case the poll is not registered.
+     *
+     * @param poll poll to unregister
+     */
+    public synchronized void unregisterRegularPoll(CoalescedPoll poll) {
+        List<CoalescedPoll> keyPolls = polls.get(poll.key);
+        if (keyPolls != null && keyPolls.remove(poll)) {
+            if (keyPolls.isEmpty()) {
+                polls.remove(poll.key);
+            }
+            regroup(poll.key);
+        }
+    }
+
+    /**
+     * Unregister all polls
+     */
+    public synchronized void close() {
+        closed = true;
+        groups.values().forEach(keyGroups -> keyGroups.forEach(this::unregisterGroup));
+        groups.clear();
+        polls.clear();
+    }
+
+    /**
+     * Register the reads of polls with the given key again. Reads that stay the same are not touched.
+     */
+    private void regroup(GroupKey key) {
+        List<PollGroup> oldGroups = groups.getOrDefault(key, List.of());
+        List<List<CoalescedPoll>> plan = plan(key, polls.getOrDefault(key, List.of()));
+
+        List<PollGroup> newGroups = new ArrayList<>();
+        List<List<CoalescedPoll>> added = new ArrayList<>();
+        for (List<CoalescedPoll> members : plan) {
+            oldGroups.stream().filter(group -> group.polls.equals(members)).findAny()
+                    .ifPresentOrElse(newGroups::add, () -> added.add(members));
+        }
+        oldGroups.stream().filter(group -> !newGroups.contains(group)).forEach(this::unregisterGroup);
+        for (List<CoalescedPoll> members : added) {
+            PollGroup group = new PollGroup(createRequest(key, members), members);
+            logger.debug("Registering coalesced request {} for {} poll(s)", group.request, members.size());
+            group.pollTask = comms.registerRegularPoll(group.request, key.pollPeriodMillis(), 0, group, group);
+            newGroups.add(group);
+        }
+
+        if (newGroups.isEmpty()) {
+            groups.remove(key);
+        } else {
+            groups.put(key, newGroups);
+        }
+    }
+
+    private void unregisterGroup(PollGroup group) {
+        PollTask pollTask = group.pollTask;
+        if (pollTask != null) {
+            comms.unregisterRegularPoll(pollTask);
+            group.pollTask = null;
+        }
+    }
+
+    /**
+     * Split the polls into groups of polls read together
+     */
+    private List<List<CoalescedPoll>> plan(GroupKey key, List<CoalescedPoll> keyPolls) {
+        int maxLength = switch (key.functionCode()) {
+            case READ_COILS, READ_INPUT_DISCRETES -> ModbusConstants.MAX_BITS_READ_COUNT;
+            default -> ModbusConstants.MAX_REGISTERS_READ_COUNT;
+        };
+        List<CoalescedPoll> sortedPolls = new ArrayList<>(keyPolls);
+        sortedPolls.sort(Comparator.comparingInt(CoalescedPoll::getStart).thenComparingInt(CoalescedPoll::getEnd));
+
+        List<List<CoalescedPoll>> plan = new ArrayList<>();
+        List<CoalescedPoll> members = new ArrayList<>();
+        int start = 0;
+        int end = 0;
+        for (CoalescedPoll poll : sortedPolls) {
+            if (!members.isEmpty() && poll.getStart() <= end + maxGap
+                    && Math.max(end, poll.getEnd()) - start <= maxLength) {
+                members.add(poll);
+                end = Math.max(end, poll.getEnd());
+            } else {
+                members = new ArrayList<>();
+                members.add(poll);
+                plan.add(members);
+                start = poll.getStart();
+                end = poll.getEnd();
+            }
+        }
+        return plan;
+    }
+
+    private ModbusReadRequestBlueprint createRequest(GroupKey key, List<CoalescedPoll> members) {
+        if (members.size() == 1) {
+            return members.get(0).request;
+        }
+        int start = members.stream().mapToInt(CoalescedPoll::getStart).min().orElse(0);
+        int end = members.stream().mapToInt(CoalescedPoll::getEnd).max().orElse(0);
+        return new ModbusReadRequestBlueprint(key.unitId(), key.functionCode(), start, end - start, key.maxTries());
+    }
+}
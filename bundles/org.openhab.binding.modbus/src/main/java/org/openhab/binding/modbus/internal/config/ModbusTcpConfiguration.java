@@ -33,6 +33,7 @@ public class ModbusTcpConfiguration {
     private int afterConnectionDelayMillis;
     private int connectTimeoutMillis = 10_000;
     private boolean enableDiscovery;
+    private int coalescePollsMaxGap = -1;
     private boolean rtuEncoded;
 
     public boolean getRtuEncoded() {
@@ -118,4 +119,12 @@ public class ModbusTcpConfiguration {
     public void setDiscoveryEnabled(boolean enableDiscovery) {
         this.enableDiscovery = enableDiscovery;
     }
+
+    public int getCoalescePollsMaxGap() {
+        return coalescePollsMaxGap;
+    }
+
+    public void setCoalescePollsMaxGap(int coalescePollsMaxGap) {
+        this.coalescePollsMaxGap = coalescePollsMaxGap;
+    }
 }
@@ -17,6 +17,7 @@ import org.eclipse.jdt.annotation.Nullable;
 import org.openhab.binding.modbus.handler.EndpointNotInitializedException;
 import org.openhab.binding.modbus.handler.ModbusEndpointThingHandler;
 import org.openhab.binding.modbus.internal.ModbusConfigurationException;
+import org.openhab.binding.modbus.internal.ModbusPollCoalescer;
 import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
 import org.openhab.core.io.transport.modbus.ModbusManager;
 import org.openhab.core.io.transport.modbus.endpoint.EndpointPoolConfiguration;
@@ -46,8 +47,10 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
     protected volatile @Nullable E endpoint;
     protected ModbusManager modbusManager;
     protected volatile @NonNullByDefault({}) EndpointPoolConfiguration poolConfiguration;
+    protected volatile int coalescePollsMaxGap = -1;
     private final Logger logger = LoggerFactory.getLogger(AbstractModbusEndpointThingHandler.class);
     private @NonNullByDefault({}) ModbusCommunicationInterface comms;
+    private volatile @Nullable ModbusPollCoalescer pollCoalescer;
 
     public AbstractModbusEndpointThingHandler(Bridge bridge, ModbusManager modbusManager) {
         super(bridge);
@@ -76,6 +79,8 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
                 }
                 try {
                     comms = modbusManager.newModbusCommunicationInterface(endpoint, poolConfiguration);
+                    pollCoalescer = coalescePollsMaxGap >= 0 ? new ModbusPollCoalescer(comms, coalescePollsMaxGap)
+                            : null;
                     updateStatus(ThingStatus.ONLINE);
                 } catch (IllegalArgumentException e) {
                     updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.CONFIGURATION_ERROR,
@@ -94,6 +99,10 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
     @Override
     public void dispose() {
         try {
+            ModbusPollCoalescer localPollCoalescer = pollCoalescer;
+            if (localPollCoalescer != null) {
+                localPollCoalescer.close();
+            }
             ModbusCommunicationInterface localComms = comms;
             if (localComms != null) {
                 localComms.close();
@@ -101,6 +110,7 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
         } catch (Exception e) {
             logger.warn("Error closing modbus communication interface", e);
         } finally {
+            pollCoalescer = null;
             comms = null;
         }
     }
@@ -110,6 +120,17 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
         return comms;
     }
 
+    /**
+     * Gets the {@link ModbusPollCoalescer} merging regular polls of pollers
+     *
+     * Note that this is <code>null</code> in case coalescing is disabled or the initialization is incomplete
+     *
+     * @return poll coalescer of this endpoint
+     */
+    public @Nullable ModbusPollCoalescer getPollCoalescer() {
+        return pollCoalescer;
+    }
+
     @Nullable
     public E getEndpoint() {
         return endpoint;
@@ -119,7 +140,7 @@ public abstract class AbstractModbusEndpointThingHandler<E extends ModbusSlaveEn
     public abstract int getSlaveId() throws EndpointNotInitializedException;
 
     /**
-     * Must be overriden by subclasses to initialize config, endpoint, and poolConfiguration
+     * Must be overriden by subclasses to initialize config, endpoint, poolConfiguration, and coalescePollsMaxGap
      */
     protected abstract void configure() throws ModbusConfigurationException;
 
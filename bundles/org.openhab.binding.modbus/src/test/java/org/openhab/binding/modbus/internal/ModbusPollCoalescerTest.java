@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.modbus.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.openhab.binding.modbus.internal.ModbusPollCoalescer.CoalescedPoll;
+import org.openhab.core.io.transport.modbus.AsyncModbusFailure;
+import org.openhab.core.io.transport.modbus.AsyncModbusReadResult;
+import org.openhab.core.io.transport.modbus.BitArray;
+import org.openhab.core.io.transport.modbus.ModbusCommunicationInterface;
+import org.openhab.core.io.transport.modbus.ModbusFailureCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadCallback;
+import org.openhab.core.io.transport.modbus.ModbusReadFunctionCode;
+import org.openhab.core.io.transport.modbus.ModbusReadRequestBlueprint;
+import org.openhab.core.io.transport.modbus.ModbusRegisterArray;
+import org.openhab.core.io.transport.modbus.PollTask;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class ModbusPollCoalescerTest {
+
+    private static class Callback implements ModbusReadCallback, ModbusFailureCallback<ModbusReadRequestBlueprint> {
+        private final List<AsyncModbusReadResult> results = new ArrayList<>();
+        private final List<AsyncModbusFailure<ModbusReadRequestBlueprint>> failures = new ArrayList<>();
+
+        @Override
+        public void handle(AsyncModbusReadResult result) {
+            results.add(result);
+        }
+
+        @Override
+        public void handle(AsyncModbusFailure<ModbusReadRequestBlueprint> failure) {
+            failures.add(failure);
+        }
+    }
+
+    private @NonNullByDefault({}) ModbusCommunicationInterface comms;
+    private final ArgumentCaptor<ModbusReadRequestBlueprint> requestCaptor = ArgumentCaptor
+            .forClass(ModbusReadRequestBlueprint.class);
+    @SuppressWarnings("unchecked")
+    private final ArgumentCaptor<ModbusFailureCallback<ModbusReadRequestBlueprint>> callbackCaptor = ArgumentCaptor
+            .forClass(ModbusFailureCallback.class);
+
+    @BeforeEach
+    public void setUp() {
+        comms = mock(ModbusCommunicationInterface.class);
+        when(comms.registerRegularPoll(any(), anyLong(), anyLong(), any(), any()))
+                .thenAnswer(invocation -> mock(PollTask.class));
+    }
+
+    private static ModbusReadRequestBlueprint request(ModbusReadFunctionCode functionCode, int start, int length) {
+        return new ModbusReadRequestBlueprint(1, functionCode, start, length, 3);
+    }
+
+    @Test
+    public void testAdjacentRegistersAreMerged() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        Callback first = new Callback();
+        Callback second = new Callback();
+        ModbusReadRequestBlueprint firstRequest = request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2);
+        ModbusReadRequestBlueprint secondRequest = request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 1);
+        coalescer.registerRegularPoll(firstRequest, 1000, first, first);
+        coalescer.registerRegularPoll(secondRequest, 1000, second, second);
+
+        // the poll of the first request is replaced by a poll of both requests
+        verify(comms, times(2)).registerRegularPoll(requestCaptor.capture(), eq(1000L), eq(0L), any(),
+                callbackCaptor.capture());
+        verify(comms, times(1)).unregisterRegularPoll(any());
+        ModbusReadRequestBlueprint merged = requestCaptor.getAllValues().get(1);
+        assertEquals(0, merged.getReference());
+        assertEquals(3, merged.getDataLength());
+
+        ModbusReadCallback mergedCallback = (ModbusReadCallback) callbackCaptor.getAllValues().get(1);
+        mergedCallback.handle(new AsyncModbusReadResult(merged, new ModbusRegisterArray(1, 2, 3)));
+
+        assertEquals(1, first.results.size());
+        assertSame(firstRequest, first.results.get(0).getRequest());
+        assertEquals(new ModbusRegisterArray(1, 2), first.results.get(0).getRegisters().get());
+        assertEquals(1, second.results.size());
+        assertSame(secondRequest, second.results.get(0).getRequest());
+        assertEquals(new ModbusRegisterArray(3), second.results.get(0).getRegisters().get());
+    }
+
+    @Test
+    public void testBitsWithinGapAreMerged() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 2);
+        Callback first = new Callback();
+        Callback second = new Callback();
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_COILS, 0, 2), 1000, first, first);
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_COILS, 4, 2), 1000, second, second);
+
+        verify(comms, times(2)).registerRegularPoll(requestCaptor.capture(), anyLong(), anyLong(), any(),
+                callbackCaptor.capture());
+        ModbusReadRequestBlueprint merged = requestCaptor.getAllValues().get(1);
+        assertEquals(0, merged.getReference());
+        assertEquals(6, merged.getDataLength());
+
+        ModbusReadCallback mergedCallback = (ModbusReadCallback) callbackCaptor.getAllValues().get(1);
+        mergedCallback.handle(new AsyncModbusReadResult(merged, new BitArray(true, false, false, false, false, true)));
+
+        BitArray firstBits = first.results.get(0).getBits().get();
+        assertEquals(2, firstBits.size());
+        assertTrue(firstBits.getBit(0));
+        assertFalse(firstBits.getBit(1));
+        BitArray secondBits = second.results.get(0).getBits().get();
+        assertEquals(2, secondBits.size());
+        assertFalse(secondBits.getBit(0));
+        assertTrue(secondBits.getBit(1));
+    }
+
+    @Test
+    public void testDistantOrDifferentPollsAreNotMerged() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 2);
+        Callback callback = new Callback();
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2), 1000, callback,
+                callback);
+        // gap too large
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 5, 2), 1000, callback,
+                callback);
+        // other function code
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_INPUT_REGISTERS, 2, 2), 1000, callback,
+                callback);
+        // other poll period
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2), 500, callback,
+                callback);
+        // merged read would exceed the protocol limit
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 9, 124), 1000, callback,
+                callback);
+
+        verify(comms, times(5)).registerRegularPoll(requestCaptor.capture(), anyLong(), anyLong(), any(), any());
+        verify(comms, never()).unregisterRegularPoll(any());
+    }
+
+    @Test
+    public void testFailureIsPassedToAllPolls() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        Callback first = new Callback();
+        Callback second = new Callback();
+        ModbusReadRequestBlueprint firstRequest = request(ModbusReadFunctionCode.READ_INPUT_REGISTERS, 0, 2);
+        ModbusReadRequestBlueprint secondRequest = request(ModbusReadFunctionCode.READ_INPUT_REGISTERS, 1, 2);
+        coalescer.registerRegularPoll(firstRequest, 1000, first, first);
+        coalescer.registerRegularPoll(secondRequest, 1000, second, second);
+
+        verify(comms, times(2)).registerRegularPoll(requestCaptor.capture(), anyLong(), anyLong(), any(),
+                callbackCaptor.capture());
+        Exception cause = new Exception("Something failed!");
+        ModbusFailureCallback<ModbusReadRequestBlueprint> mergedCallback = callbackCaptor.getAllValues().get(1);
+        mergedCallback.handle(new AsyncModbusFailure<>(requestCaptor.getAllValues().get(1), cause));
+
+        assertSame(firstRequest, first.failures.get(0).getRequest());
+        assertSame(cause, first.failures.get(0).getCause());
+        assertSame(secondRequest, second.failures.get(0).getRequest());
+        assertSame(cause, second.failures.get(0).getCause());
+    }
+
+    @Test
+    public void testUnregisterSplitsMergedPoll() {
+        ModbusPollCoalescer coalescer = new ModbusPollCoalescer(comms, 0);
+        Callback callback = new Callback();
+        CoalescedPoll first = coalescer.registerRegularPoll(
+                request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 0, 2), 1000, callback, callback);
+        coalescer.registerRegularPoll(request(ModbusReadFunctionCode.READ_MULTIPLE_REGISTERS, 2, 2), 1000, callback,
+                callback);
+        first.unregister();
+
+        verify(comms, times(3)).registerRegularPoll(requestCaptor.capture(), anyLong(), anyLong(), any(), any());
+        verify(comms, times(2)).unregisterRegularPoll(any());
+        ModbusReadRequestBlueprint remaining = requestCaptor.getAllValues().get(2);
+        assertEquals(2, remaining.getReference());
+        assertEquals(2, remaining.getDataLength());
+
+        coalescer.close();
+        verify(comms, times(3)).unregisterRegularPoll(any());
+    }
+}
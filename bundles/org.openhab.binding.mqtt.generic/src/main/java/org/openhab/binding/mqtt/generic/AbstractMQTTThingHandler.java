@@ -12,6 +12,7 @@
  */
 package org.openhab.binding.mqtt.generic;
 
+import java.math.BigDecimal;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
@@ -25,6 +26,7 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.binding.mqtt.generic.tools.PublishCoalescer;
 import org.openhab.binding.mqtt.generic.utils.FutureCollector;
 import org.openhab.binding.mqtt.generic.values.OnOffValue;
 import org.openhab.binding.mqtt.generic.values.Value;
@@ -70,11 +72,18 @@ import org.slf4j.LoggerFactory;
  * While setting up your {@link ChannelState} you would set the callback to your thing handler,
  * because this base class implements {@link ChannelStateUpdateListener}.
  *
+ * <p>
+ * Commands are published immediately, unless the thing configuration sets a publish window or a maximum publish
+ * rate. Then the commands of each channel are coalesced by a {@link PublishCoalescer}.
+ *
  * @author David Graeff - Initial contribution
  */
 @NonNullByDefault
 public abstract class AbstractMQTTThingHandler extends BaseThingHandler
         implements ChannelStateUpdateListener, AvailabilityTracker {
+    public static final String CONFIG_PUBLISH_WINDOW = "publishWindow";
+    public static final String CONFIG_MAX_PUBLISH_RATE = "maxPublishRate";
+
     private final Logger logger = LoggerFactory.getLogger(AbstractMQTTThingHandler.class);
     // Timeout for the entire tree parsing and subscription
     private final int subscribeTimeout;
@@ -84,6 +93,7 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler
     private AtomicBoolean messageReceived = new AtomicBoolean(false);
     private Map<String, @Nullable ChannelState> availabilityStates = new ConcurrentHashMap<>();
     private AvailabilityMode availabilityMode = AvailabilityMode.ALL;
+    private @Nullable PublishCoalescer publishCoalescer;
 
     public AbstractMQTTThingHandler(Thing thing, int subscribeTimeout) {
         super(thing);
@@ -150,14 +160,19 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler
             return;
         }
 
-        final CompletableFuture<Boolean> future = data.publishValue(command);
+        final PublishCoalescer publishCoalescer = this.publishCoalescer;
+        final CompletableFuture<Boolean> future = publishCoalescer == null ? data.publishValue(command)
+                : publishCoalescer.publish(channelUID.getId(), () -> data.publishValue(command));
         future.handle((v, ex) -> {
             if (ex != null) {
                 updateStatus(ThingStatus.OFFLINE, ThingStatusDetail.COMMUNICATION_ERROR, ex.getLocalizedMessage());
                 logger.debug("Failed publishing value {} to topic {}: {}", command, data.getCommandTopic(),
                         ex.getMessage());
-            } else {
+            } else if (Boolean.TRUE.equals(v)) {
                 logger.debug("Successfully published value {} to topic {}", command, data.getCommandTopic());
+            } else {
+                // superseded by a newer command of the channel, discarded on stop or rejected by the channel
+                logger.debug("Value {} was not published to topic {}", command, data.getCommandTopic());
             }
             return null;
         });
@@ -231,9 +246,27 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler
 
     @Override
     public void initialize() {
+        long publishWindow = getConfigNumber(CONFIG_PUBLISH_WINDOW).longValue();
+        double maxPublishRate = getConfigNumber(CONFIG_MAX_PUBLISH_RATE).doubleValue();
+        if (publishWindow > 0 || maxPublishRate > 0) {
+            publishCoalescer = new PublishCoalescer(scheduler, publishWindow, maxPublishRate);
+        }
         bridgeStatusChanged(getBridgeStatus());
     }
 
+    private BigDecimal getConfigNumber(String name) {
+        Object value = getConfig().get(name);
+        if (value instanceof BigDecimal number) {
+            return number;
+        }
+        try {
+            return value == null ? BigDecimal.ZERO : new BigDecimal(value.toString());
+        } catch (NumberFormatException e) {
+            logger.warn("Invalid value '{}' of {} for {}, ignoring it", value, name, thing.getUID());
+            return BigDecimal.ZERO;
+        }
+    }
+
     @Override
     public void handleRemoval() {
         stop();
@@ -249,6 +282,13 @@ public abstract class AbstractMQTTThingHandler extends BaseThingHandler
             logger.warn("unsubscription on disposal failed for {}: ", thing.getUID(), e);
         }
         connection = null;
+        final PublishCoalescer publishCoalescer = this.publishCoalescer;
+        if (publishCoalescer != null) {
+            publishCoalescer.stop();
+            logger.debug("Published {} values for {}, {} values were replaced or discarded",
+                    publishCoalescer.getPublishedCount(), thing.getUID(), publishCoalescer.getSuppressedCount());
+            this.publishCoalescer = null;
+        }
         super.dispose();
     }
 
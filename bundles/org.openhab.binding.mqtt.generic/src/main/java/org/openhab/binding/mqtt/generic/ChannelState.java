@@ -33,7 +33,6 @@ import org.openhab.core.thing.ChannelUID;
 import org.openhab.core.types.Command;
 import org.openhab.core.types.State;
 import org.openhab.core.types.Type;
-import org.openhab.core.types.TypeParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -47,6 +46,9 @@ import org.slf4j.LoggerFactory;
 public class ChannelState implements MqttMessageSubscriber {
     private final Logger logger = LoggerFactory.getLogger(ChannelState.class);
 
+    // the same payload is delivered to all channels subscribed to a topic, it is decoded only once
+    private static volatile @Nullable DecodedPayload lastPayload;
+
     // Immutable channel configuration
     protected final boolean readOnly;
     protected final ChannelUID channelUID;
@@ -172,7 +174,7 @@ public class ChannelState implements MqttMessageSubscriber {
         }
 
         // String value: Apply transformations
-        String strValue = new String(payload, StandardCharsets.UTF_8);
+        String strValue = decode(payload);
         for (ChannelStateTransformation t : transformationsIn) {
             String transformedValue = t.processValue(strValue);
             if (transformedValue != null) {
@@ -191,7 +193,7 @@ public class ChannelState implements MqttMessageSubscriber {
             return;
         }
 
-        Command command = TypeParser.parseCommand(cachedValue.getSupportedCommandTypes(), strValue);
+        Command command = cachedValue.parseString(strValue);
         if (command == null) {
             logger.warn("Incoming payload '{}' on '{}' not supported by type '{}'", strValue, topic,
                     cachedValue.getClass().getSimpleName());
@@ -231,6 +233,20 @@ public class ChannelState implements MqttMessageSubscriber {
         receivedOrTimeout();
     }
 
+    /**
+     * Decodes the payload, or returns the result of the last decoding if it was for the same payload.
+     * Besides saving the decoding, this lets transformations see the same string instance for all channels.
+     */
+    private static String decode(byte[] payload) {
+        DecodedPayload last = lastPayload;
+        if (last != null && last.payload() == payload) {
+            return last.value();
+        }
+        String value = new String(payload, StandardCharsets.UTF_8);
+        lastPayload = new DecodedPayload(payload, value);
+        return value;
+    }
+
     /**
      * Returns the state topic. Might be an empty string if this is a stateless channel (TRIGGER kind channel).
      */
@@ -436,4 +452,7 @@ public class ChannelState implements MqttMessageSubscriber {
     public void setConnection(MqttBrokerConnection connection) {
         this.connection = connection;
     }
+
+    private record DecodedPayload(byte[] payload, String value) {
+    }
 }
@@ -0,0 +1,212 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.tools;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * Coalesces publishes per key, usually a channel, so that rapidly changing values are not published one by one.
+ *
+ * <p>
+ * If a window is set, a publish is delayed until the end of the window starting with it, and only the latest value
+ * received within the window is published. If a maximum rate is set, publishes are additionally limited by a token
+ * bucket, which holds up to one second of publishes. While waiting for a token, newer values replace older ones.
+ *
+ * <p>
+ * Values which are replaced are not published, and the future returned for them completes with false.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PublishCoalescer {
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final ScheduledExecutorService scheduler;
+    private final long windowMillis;
+    private final double maxRate;
+    private final LongSupplier nanoTime;
+    private final Map<String, KeyState> states = new HashMap<>();
+    private long published = 0;
+    private long suppressed = 0;
+
+    /**
+     * Creates a {@link PublishCoalescer}.
+     *
+     * @param scheduler A scheduled executor service
+     * @param windowMillis The window in milliseconds in which only the latest value is published, 0 to disable
+     * @param maxRate The maximum number of publishes per second and key, 0 for no limit
+     */
+    public PublishCoalescer(ScheduledExecutorService scheduler, long windowMillis, double maxRate) {
+        this(scheduler, windowMillis, maxRate, System::nanoTime);
+    }
+
+    /**
+     * For tests
+     */
+    PublishCoalescer(ScheduledExecutorService scheduler, long windowMillis, double maxRate, LongSupplier nanoTime) {
+        this.scheduler = scheduler;
+        this.windowMillis = Math.max(0, windowMillis);
+        this.maxRate = Math.max(0, maxRate);
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * Publishes a value now, or later if it is not replaced by a newer value in the meantime.
+     *
+     * @param key The key values are coalesced by
+     * @param publisher Publishes the value
+     * @return A future that completes with the result of the publish, or with false if the value was replaced
+     */
+    public CompletableFuture<Boolean> publish(String key, Supplier<CompletableFuture<Boolean>> publisher) {
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        boolean publishNow = false;
+        synchronized (this) {
+            KeyState state = states.computeIfAbsent(key, k -> new KeyState());
+            CompletableFuture<Boolean> replaced = state.pendingFuture;
+            if (replaced != null) {
+                replaced.complete(false);
+                suppressed++;
+            }
+            state.pending = publisher;
+            state.pendingFuture = future;
+            if (state.timer == null) {
+                long delay = windowMillis > 0 ? windowMillis : state.millisUntilToken();
+                if (delay == 0) {
+                    state.takePending();
+                    publishNow = true;
+                } else {
+                    state.timer = scheduler.schedule(() -> flush(key), delay, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+        if (publishNow) {
+            run(publisher, future);
+        }
+        return future;
+    }
+
+    private void flush(String key) {
+        Supplier<CompletableFuture<Boolean>> publisher;
+        CompletableFuture<Boolean> future;
+        synchronized (this) {
+            KeyState state = states.get(key);
+            if (state == null) {
+                return;
+            }
+            state.timer = null;
+            publisher = state.pending;
+            future = state.pendingFuture;
+            if (publisher == null || future == null) {
+                return;
+            }
+            long delay = state.millisUntilToken();
+            if (delay > 0) {
+                state.timer = scheduler.schedule(() -> flush(key), delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            state.takePending();
+        }
+        run(publisher, future);
+    }
+
+    private void run(Supplier<CompletableFuture<Boolean>> publisher, CompletableFuture<Boolean> future) {
+        synchronized (this) {
+            published++;
+        }
+        try {
+            publisher.get().whenComplete((result, e) -> {
+                if (e != null) {
+                    future.completeExceptionally(e);
+                } else {
+                    future.complete(result);
+                }
+            });
+        } catch (RuntimeException e) {
+            future.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * Discards all values waiting to be published. Their futures complete with false.
+     */
+    public synchronized void stop() {
+        for (KeyState state : states.values()) {
+            ScheduledFuture<?> timer = state.timer;
+            if (timer != null) {
+                timer.cancel(false);
+            }
+            CompletableFuture<Boolean> pendingFuture = state.pendingFuture;
+            if (pendingFuture != null) {
+                pendingFuture.complete(false);
+                suppressed++;
+            }
+        }
+        states.clear();
+    }
+
+    /**
+     * Returns the number of values published.
+     */
+    public synchronized long getPublishedCount() {
+        return published;
+    }
+
+    /**
+     * Returns the number of values which were replaced by newer values or discarded, and not published.
+     */
+    public synchronized long getSuppressedCount() {
+        return suppressed;
+    }
+
+    /**
+     * The state of a key, guarded by the coalescer
+     */
+    private class KeyState {
+        private @Nullable Supplier<CompletableFuture<Boolean>> pending;
+        private @Nullable CompletableFuture<Boolean> pendingFuture;
+        private @Nullable ScheduledFuture<?> timer;
+        private double tokens = Math.max(1, maxRate);
+        private long lastRefill = nanoTime.getAsLong();
+
+        private long millisUntilToken() {
+            if (maxRate == 0) {
+                return 0;
+            }
+            long now = nanoTime.getAsLong();
+            tokens = Math.min(Math.max(1, maxRate), tokens + (now - lastRefill) / NANOS_PER_SECOND * maxRate);
+            lastRefill = now;
+            if (tokens >= 1) {
+                return 0;
+            }
+            return (long) Math.ceil((1 - tokens) / maxRate * 1000);
+        }
+
+        private void takePending() {
+            if (maxRate > 0) {
+                tokens -= 1;
+            }
+            pending = null;
+            pendingFuture = null;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.values;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.IncreaseDecreaseType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.PointType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StopMoveType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.types.UpDownType;
+import org.openhab.core.types.Command;
+import org.openhab.core.types.TypeParser;
+
+/**
+ * Parses incoming MQTT values into the first matching of a list of command types, like
+ * {@link TypeParser#parseCommand(List, String)}.
+ *
+ * The <code>valueOf</code> methods of the command types used by the values are called directly instead of being looked
+ * up and invoked by reflection for every message. Other command types are parsed by the {@link TypeParser}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class CommandParser {
+    private static final Map<Class<? extends Command>, Function<String, @Nullable Command>> PARSERS = Map.ofEntries(
+            Map.entry(DateTimeType.class, DateTimeType::valueOf), //
+            Map.entry(DecimalType.class, DecimalType::valueOf), //
+            Map.entry(HSBType.class, HSBType::valueOf), //
+            Map.entry(IncreaseDecreaseType.class, IncreaseDecreaseType::valueOf), //
+            Map.entry(OnOffType.class, OnOffType::valueOf), //
+            Map.entry(OpenClosedType.class, OpenClosedType::valueOf), //
+            Map.entry(PercentType.class, PercentType::valueOf), //
+            Map.entry(PointType.class, PointType::valueOf), //
+            Map.entry(QuantityType.class, QuantityType::valueOf), //
+            Map.entry(StopMoveType.class, StopMoveType::valueOf), //
+            Map.entry(StringType.class, StringType::valueOf), //
+            Map.entry(UpDownType.class, UpDownType::valueOf));
+
+    private final List<Function<String, @Nullable Command>> parsers;
+
+    /**
+     * @param commandTypes the command types in the order they are tried
+     */
+    CommandParser(List<Class<? extends Command>> commandTypes) {
+        parsers = commandTypes.stream().map(CommandParser::getParser).toList();
+    }
+
+    private static Function<String, @Nullable Command> getParser(Class<? extends Command> commandType) {
+        Function<String, @Nullable Command> parser = PARSERS.get(commandType);
+        if (parser == null) {
+            List<Class<? extends Command>> types = List.of(commandType);
+            parser = value -> TypeParser.parseCommand(types, value);
+        }
+        return parser;
+    }
+
+    /**
+     * @param value the value to parse
+     * @return the value as the first command type it can be parsed to, or null if there is none
+     */
+    @Nullable Command parse(String value) {
+        for (Function<String, @Nullable Command> parser : parsers) {
+            try {
+                Command command = parser.apply(value);
+                if (command != null) {
+                    return command;
+                }
+            } catch (RuntimeException e) {
+                // not a value of this type, try the next one
+            }
+        }
+        return null;
+    }
+}
@@ -56,10 +56,12 @@ public abstract class Value {
     protected State state = UnDefType.UNDEF;
     protected final List<Class<? extends Command>> commandTypes;
     private final String itemType;
+    private final CommandParser commandParser;
 
     protected Value(String itemType, List<Class<? extends Command>> commandTypes) {
         this.itemType = itemType;
         this.commandTypes = commandTypes;
+        this.commandParser = new CommandParser(commandTypes);
     }
 
     /**
@@ -82,6 +84,16 @@ public abstract class Value {
         return commandTypes;
     }
 
+    /**
+     * Parses an incoming MQTT value into the first of the {@link #getSupportedCommandTypes()} it is valid for.
+     *
+     * @param value The MQTT value
+     * @return The command, or null if the value is not valid for any of the supported command types
+     */
+    public @Nullable Command parseString(String value) {
+        return commandParser.parse(value);
+    }
+
     /**
      * Returns the item-type (one of {@link CoreItemFactory}).
      */
@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.binding.mqtt.generic.tools;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests cases for {@link PublishCoalescer}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class PublishCoalescerTests {
+    private final ScheduledExecutorService scheduler = mock(ScheduledExecutorService.class);
+    private final List<Runnable> scheduled = new ArrayList<>();
+    private final List<Long> delays = new ArrayList<>();
+    private final List<String> publishedValues = new ArrayList<>();
+    private long nanoTime = 0;
+
+    @BeforeEach
+    public void setUp() {
+        doAnswer(invocation -> {
+            scheduled.add(invocation.getArgument(0));
+            delays.add(invocation.getArgument(1));
+            return mock(ScheduledFuture.class);
+        }).when(scheduler).schedule(any(Runnable.class), anyLong(), eq(TimeUnit.MILLISECONDS));
+    }
+
+    private CompletableFuture<Boolean> publish(PublishCoalescer coalescer, String value) {
+        return coalescer.publish("channel", () -> {
+            publishedValues.add(value);
+            return CompletableFuture.completedFuture(true);
+        });
+    }
+
+    private void runScheduled() {
+        List<Runnable> runnables = new ArrayList<>(scheduled);
+        scheduled.clear();
+        runnables.forEach(Runnable::run);
+    }
+
+    @Test
+    public void windowPublishesLatestValue() {
+        PublishCoalescer coalescer = new PublishCoalescer(scheduler, 100, 0, () -> nanoTime);
+
+        CompletableFuture<Boolean> first = publish(coalescer, "1");
+        CompletableFuture<Boolean> second = publish(coalescer, "2");
+        CompletableFuture<Boolean> third = publish(coalescer, "3");
+        assertThat(publishedValues.isEmpty(), is(true));
+        assertThat(delays, is(List.of(100L)));
+
+        runScheduled();
+        assertThat(publishedValues, is(List.of("3")));
+        assertThat(first.getNow(null), is(false));
+        assertThat(second.getNow(null), is(false));
+        assertThat(third.getNow(null), is(true));
+        assertThat(coalescer.getPublishedCount(), is(1L));
+        assertThat(coalescer.getSuppressedCount(), is(2L));
+    }
+
+    @Test
+    public void rateLimitDelaysAndCoalesces() {
+        PublishCoalescer coalescer = new PublishCoalescer(scheduler, 0, 1, () -> nanoTime);
+
+        publish(coalescer, "1");
+        assertThat(publishedValues, is(List.of("1")));
+
+        publish(coalescer, "2");
+        CompletableFuture<Boolean> third = publish(coalescer, "3");
+        assertThat(publishedValues, is(List.of("1")));
+        assertThat(delays, is(List.of(1000L)));
+
+        nanoTime += 1_000_000_000L;
+        runScheduled();
+        assertThat(publishedValues, is(List.of("1", "3")));
+        assertThat(third.getNow(null), is(true));
+        assertThat(coalescer.getSuppressedCount(), is(1L));
+    }
+
+    @Test
+    public void stopDiscardsPendingValues() {
+        PublishCoalescer coalescer = new PublishCoalescer(scheduler, 100, 0, () -> nanoTime);
+
+        CompletableFuture<Boolean> pending = publish(coalescer, "1");
+        coalescer.stop();
+        assertThat(pending.getNow(null), is(false));
+
+        runScheduled();
+        assertThat(publishedValues.isEmpty(), is(true));
+    }
+}
@@ -17,6 +17,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -55,6 +56,22 @@ public class ValueTests {
         return Objects.requireNonNull(TypeParser.parseCommand(v.getSupportedCommandTypes(), str));
     }
 
+    @Test
+    public void parseStringMatchesTypeParser() {
+        List<Value> values = List.of(new TextValue(), new NumberValue(null, null, null, null),
+                new PercentageValue(null, null, null, null, null), new OnOffValue(null, null),
+                new OpenCloseValue("fancyON", "fancyOff"), new RollershutterValue(null, null, "fancyStop"),
+                new ColorValue(ColorMode.RGB, null, null, 10), new DateTimeValue(), new LocationValue());
+        List<String> inputs = List.of("", "ON", "OPEN", "UP", "STOP", "INCREASE", "42", "-1.5", "12.3 W", "0,100,50",
+                "2024-05-01T10:00:00Z", "52.5,13.4", "text");
+        for (Value value : values) {
+            for (String input : inputs) {
+                assertEquals(TypeParser.parseCommand(value.getSupportedCommandTypes(), input),
+                        value.parseString(input), value.getClass().getSimpleName() + " '" + input + "'");
+            }
+        }
+    }
+
     @Test
     public void illegalTextStateUpdate() {
         TextValue v = new TextValue("one,two".split(","));
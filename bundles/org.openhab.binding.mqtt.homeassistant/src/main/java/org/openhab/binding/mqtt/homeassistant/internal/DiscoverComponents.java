@@ -14,8 +14,10 @@ package org.openhab.binding.mqtt.homeassistant.internal;
 
 import java.lang.ref.WeakReference;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
@@ -62,6 +64,8 @@ public class DiscoverComponents implements MqttMessageSubscriber {
     protected @Nullable ComponentDiscovered discoveredListener;
     private int discoverTime;
     private Set<String> topics = new HashSet<>();
+    // The hash codes of the configurations of the components already known to the listener
+    private final Map<HaID, Integer> knownConfigHashes = new ConcurrentHashMap<>();
 
     /**
      * Implement this to get notified of new components
@@ -98,6 +102,13 @@ public class DiscoverComponents implements MqttMessageSubscriber {
         String config = new String(payload);
         AbstractComponent<?> component = null;
 
+        Integer knownConfigHash = knownConfigHashes.get(haID);
+        if (knownConfigHash != null && knownConfigHash == config.hashCode()) {
+            // Retained configurations are received again on every (re)connect, skip parsing unchanged ones
+            logger.trace("HomeAssistant component {} is unchanged", haID);
+            return;
+        }
+
         if (config.length() > 0) {
             try {
                 component = ComponentFactory.createComponent(thingUID, haID, config, updateListener, tracker, scheduler,
@@ -119,10 +130,23 @@ public class DiscoverComponents implements MqttMessageSubscriber {
                 logger.warn("HomeAssistant discover error: {}", e.getMessage());
             }
         } else {
+            // the component was removed, a configuration published later on must not be skipped
+            knownConfigHashes.remove(haID);
             logger.warn("Configuration of HomeAssistant thing {} is empty", haID.objectID);
         }
     }
 
+    /**
+     * Set the configuration of a component known to the listener. Further configurations of this component are only
+     * parsed and reported to the listener if they differ from the known configuration.
+     *
+     * @param haID The component
+     * @param configHash The hash code ({@link String#hashCode()}) of the configuration string
+     */
+    public void setKnownConfigHash(HaID haID, int configHash) {
+        knownConfigHashes.put(haID, configHash);
+    }
+
     /**
      * Start a components discovery.
      *
@@ -188,9 +212,10 @@ public class DiscoverComponents implements MqttMessageSubscriber {
     }
 
     /**
-     * Stops an ongoing discovery or do nothing if no discovery is running.
+     * Stops an ongoing discovery or do nothing if no discovery is running. The known configurations are forgotten.
      */
     public void stopDiscovery() {
         subscribeFail(new Throwable("Stopped"));
+        knownConfigHashes.clear();
     }
 }
@@ -14,20 +14,18 @@ package org.openhab.binding.mqtt.homeassistant.internal.discovery;
 
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.Collection;
-import java.util.Collections;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Set;
+import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
-import java.util.stream.Collector;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -74,13 +72,18 @@ import com.google.gson.GsonBuilder;
 @ConfigurableService(category = "system", label = "Home Assistant Discovery", description_uri = "binding:mqtt.homeassistant")
 @NonNullByDefault
 public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
+    private static final long PUBLISH_DELAY_NANOS = TimeUnit.SECONDS.toNanos(2);
+
     private final Logger logger = LoggerFactory.getLogger(HomeAssistantDiscovery.class);
     private HomeAssistantConfiguration configuration;
-    protected final Map<String, Set<HaID>> componentsPerThingID = new TreeMap<>();
-    protected final Map<String, ThingUID> thingIDPerTopic = new TreeMap<>();
-    protected final Map<String, DiscoveryResult> results = new ConcurrentHashMap<>();
+
+    // Things by thing UID. Things are only accessed within the compute methods of the map, which are atomic per thing.
+    private final Map<String, DiscoveredThing> things = new ConcurrentHashMap<>();
+    private final Map<String, ThingUID> thingUIDPerTopic = new ConcurrentHashMap<>();
+    private final Map<String, Integer> configHashPerTopic = new ConcurrentHashMap<>();
 
     private @Nullable ScheduledFuture<?> future;
+    private long publishTime;
     private final Gson gson;
 
     public static final Map<String, String> HA_COMP_TO_NAME = new TreeMap<>();
@@ -155,13 +158,21 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
      * @return summary string of component names and their counts
      */
     static String getComponentNamesSummary(Stream<String> componentNames) {
+        return getComponentNamesSummary(componentNames
+                .collect(Collectors.groupingBy(Function.identity(), TreeMap::new, Collectors.counting())));
+    }
+
+    /**
+     * Summarize component counts such as {Sensor=1, Switch=2} into string "Sensor, 2x Switch"
+     *
+     * @param componentCounts component names and their counts
+     * @return summary string of component names and their counts
+     */
+    private static String getComponentNamesSummary(SortedMap<String, ? extends Number> componentCounts) {
         StringBuilder summary = new StringBuilder();
-        Collector<String, ?, Long> countingCollector = Collectors.counting();
-        Map<String, Long> componentCounts = componentNames
-                .collect(Collectors.groupingBy(Function.identity(), countingCollector));
-        componentCounts.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(entry -> {
+        componentCounts.entrySet().forEach(entry -> {
             String componentName = entry.getKey();
-            long count = entry.getValue();
+            long count = entry.getValue().longValue();
             if (summary.length() > 0) {
                 // not the first entry, so let's add the separating comma
                 summary.append(", ");
@@ -190,20 +201,28 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
 
         // Reset the found-component timer.
         // We will collect components for the thing label description for another 2 seconds.
-        final ScheduledFuture<?> future = this.future;
-        if (future != null) {
-            future.cancel(false);
-        }
-        this.future = scheduler.schedule(this::publishResults, 2, TimeUnit.SECONDS);
+        schedulePublish();
 
         // We will of course find multiple of the same unique Thing IDs, for each different component another one.
         // Therefore the components are assembled into a list and given to the DiscoveryResult label for the user to
         // easily recognize object capabilities.
         HaID haID = new HaID(topic);
+        String configJSON = new String(payload, StandardCharsets.UTF_8);
+        int configHash = configJSON.hashCode();
+
+        // Retained configurations are received again on every scan, don't parse unchanged ones again
+        Integer knownConfigHash = configHashPerTopic.get(topic);
+        ThingUID knownThingUID = thingUIDPerTopic.get(topic);
+        if (knownConfigHash != null && knownConfigHash == configHash && knownThingUID != null
+                && things.computeIfPresent(knownThingUID.getAsString(), (key, thing) -> {
+                    thing.pending = true;
+                    return thing;
+                }) != null) {
+            return;
+        }
 
         try {
-            AbstractChannelConfiguration config = AbstractChannelConfiguration
-                    .fromString(new String(payload, StandardCharsets.UTF_8), gson);
+            AbstractChannelConfiguration config = AbstractChannelConfiguration.fromString(configJSON, gson);
 
             final String thingID = config.getThingId(haID.objectID);
 
@@ -212,41 +231,22 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
 
             final ThingUID thingUID = new ThingUID(typeID, connectionBridge, thingID);
 
-            thingIDPerTopic.put(topic, thingUID);
-
-            // We need to keep track of already found component topics for a specific thing
-            final List<HaID> components;
-            {
-                Set<HaID> componentsUnordered = componentsPerThingID.computeIfAbsent(thingID,
-                        key -> ConcurrentHashMap.newKeySet());
-
-                // Invariant. For compiler, computeIfAbsent above returns always
-                // non-null
-                Objects.requireNonNull(componentsUnordered);
-                componentsUnordered.add(haID);
-
-                components = componentsUnordered.stream().collect(Collectors.toList());
-                // We sort the components for consistent jsondb serialization order of 'topics' thing property
-                // Sorting key is HaID::toString, i.e. using the full topic string
-                components.sort(Comparator.comparing(HaID::toString));
+            ThingUID previousThingUID = thingUIDPerTopic.put(topic, thingUID);
+            if (previousThingUID != null && !previousThingUID.equals(thingUID)) {
+                removeComponent(previousThingUID, haID);
             }
+            configHashPerTopic.put(topic, configHash);
 
-            final String componentNames = getComponentNamesSummary(
-                    components.stream().map(id -> id.component).map(c -> HA_COMP_TO_NAME.getOrDefault(c, c)));
-
-            final List<String> topics = components.stream().map(HaID::toShortTopic).collect(Collectors.toList());
-
-            Map<String, Object> properties = new HashMap<>();
-            HandlerConfiguration handlerConfig = new HandlerConfiguration(haID.baseTopic, topics);
-            properties = handlerConfig.appendToProperties(properties);
-            properties = config.appendToProperties(properties);
-            properties.put("deviceId", thingID);
-
-            // Because we need the new properties map with the updated "components" list
-            results.put(thingUID.getAsString(),
-                    DiscoveryResultBuilder.create(thingUID).withProperties(properties)
-                            .withRepresentationProperty("deviceId").withBridge(connectionBridge)
-                            .withLabel(config.getThingName() + " (" + componentNames + ")").build());
+            // We need to keep track of already found component topics for a specific thing
+            things.compute(thingUID.getAsString(), (key, thing) -> {
+                DiscoveredThing discoveredThing = thing != null ? thing
+                        : new DiscoveredThing(thingUID, connectionBridge, haID.baseTopic, config);
+                discoveredThing.baseTopic = haID.baseTopic;
+                discoveredThing.config = config;
+                discoveredThing.addComponent(haID);
+                discoveredThing.pending = true;
+                return discoveredThing;
+            });
         } catch (ConfigurationException e) {
             logger.warn("HomeAssistant discover error: invalid configuration of thing {} component {}: {}",
                     haID.objectID, haID.component, e.getMessage());
@@ -275,12 +275,34 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
         getDiscoveryService().publish(BIRTH_TOPIC, ONLINE_STATUS.getBytes(), 1, false);
     }
 
+    private synchronized void schedulePublish() {
+        publishTime = System.nanoTime() + PUBLISH_DELAY_NANOS;
+        if (future == null) {
+            future = scheduler.schedule(this::publishResults, PUBLISH_DELAY_NANOS, TimeUnit.NANOSECONDS);
+        }
+    }
+
     protected void publishResults() {
-        Collection<DiscoveryResult> localResults;
+        synchronized (this) {
+            // Further components were found in the meantime, wait until no more components are found
+            long delay = publishTime - System.nanoTime();
+            if (delay > 0) {
+                future = scheduler.schedule(this::publishResults, delay, TimeUnit.NANOSECONDS);
+                return;
+            }
+            future = null;
+        }
 
-        localResults = new ArrayList<>(results.values());
-        results.clear();
-        componentsPerThingID.clear();
+        List<DiscoveryResult> localResults = new ArrayList<>();
+        for (String key : things.keySet()) {
+            things.computeIfPresent(key, (k, thing) -> {
+                if (thing.pending) {
+                    thing.pending = false;
+                    localResults.add(thing.toDiscoveryResult());
+                }
+                return thing;
+            });
+        }
         for (DiscoveryResult result : localResults) {
             final ThingTypeUID typeID = result.getThingTypeUID();
             ThingType type = typeProvider.derive(typeID, MqttBindingConstants.HOMEASSISTANT_MQTT_THING).build();
@@ -295,19 +317,75 @@ public class HomeAssistantDiscovery extends AbstractMQTTDiscovery {
         if (!topic.endsWith("/config")) {
             return;
         }
-        if (thingIDPerTopic.containsKey(topic)) {
-            ThingUID thingUID = thingIDPerTopic.remove(topic);
-            if (thingUID != null) {
-                final String thingID = thingUID.getId();
+        configHashPerTopic.remove(topic);
+        ThingUID thingUID = thingUIDPerTopic.remove(topic);
+        if (thingUID != null) {
+            removeComponent(thingUID, new HaID(topic));
+        }
+    }
 
-                HaID haID = new HaID(topic);
+    private void removeComponent(ThingUID thingUID, HaID haID) {
+        DiscoveredThing remaining = things.computeIfPresent(thingUID.getAsString(), (key, thing) -> {
+            thing.removeComponent(haID);
+            return thing.components.isEmpty() ? null : thing;
+        });
+        if (remaining == null) {
+            thingRemoved(thingUID);
+        }
+    }
 
-                Set<HaID> components = componentsPerThingID.getOrDefault(thingID, Collections.emptySet());
-                components.remove(haID);
-                if (components.isEmpty()) {
-                    thingRemoved(thingUID);
-                }
+    /**
+     * The components found for a thing, and the latest configuration received for it.
+     * The component counts per component name are kept up to date for the label of the discovery result.
+     */
+    private static class DiscoveredThing {
+        private final ThingUID thingUID;
+        // We sort the components for consistent jsondb serialization order of 'topics' thing property
+        // Sorting key is HaID::toString, i.e. using the full topic string
+        private final Set<HaID> components = new TreeSet<>(Comparator.comparing(HaID::toString));
+        private final SortedMap<String, Integer> componentCounts = new TreeMap<>();
+        private final ThingUID bridgeUID;
+        private String baseTopic;
+        private AbstractChannelConfiguration config;
+        private boolean pending;
+
+        private DiscoveredThing(ThingUID thingUID, ThingUID bridgeUID, String baseTopic,
+                AbstractChannelConfiguration config) {
+            this.thingUID = thingUID;
+            this.bridgeUID = bridgeUID;
+            this.baseTopic = baseTopic;
+            this.config = config;
+        }
+
+        private void addComponent(HaID haID) {
+            if (components.add(haID)) {
+                componentCounts.merge(getComponentName(haID), 1, Integer::sum);
             }
         }
+
+        private void removeComponent(HaID haID) {
+            if (components.remove(haID)) {
+                componentCounts.computeIfPresent(getComponentName(haID), (name, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+
+        private static String getComponentName(HaID haID) {
+            return HA_COMP_TO_NAME.getOrDefault(haID.component, haID.component);
+        }
+
+        private DiscoveryResult toDiscoveryResult() {
+            final List<String> topics = components.stream().map(HaID::toShortTopic).collect(Collectors.toList());
+
+            Map<String, Object> properties = new HashMap<>();
+            HandlerConfiguration handlerConfig = new HandlerConfiguration(baseTopic, topics);
+            properties = handlerConfig.appendToProperties(properties);
+            properties = config.appendToProperties(properties);
+            properties.put("deviceId", thingUID.getId());
+
+            return DiscoveryResultBuilder.create(thingUID).withProperties(properties)
+                    .withRepresentationProperty("deviceId").withBridge(bridgeUID)
+                    .withLabel(config.getThingName() + " (" + getComponentNamesSummary(componentCounts) + ")")
+                    .build();
+        }
     }
 }
@@ -79,6 +79,7 @@ import com.google.gson.GsonBuilder;
  * <br>
  *
  * If a Components configuration changes, the known ChannelGroupType and ChannelTypes are replaced with the new ones.
+ * Unchanged configurations, like the retained ones received again after a restart, are neither parsed nor applied.
  *
  * @author David Graeff - Initial contribution
  */
@@ -213,6 +214,11 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                             return null;
                         }));
 
+        // the known configurations are forgotten when the discovery is stopped, so register them again
+        synchronized (haComponents) { // sync whenever discoverComponents is started
+            haComponents.values().forEach(c -> discoverComponents.setKnownConfigHash(c.getHaID(), c.getConfigHash()));
+        }
+
         return future
                 .thenCompose(b -> discoverComponents.startDiscovery(connection, 0, discoveryHomeAssistantIDs, this));
     }
@@ -268,6 +274,7 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
             return;
         }
 
+        boolean changed = false;
         synchronized (haComponents) { // sync whenever discoverComponents is started
             for (AbstractComponent<?> discovered : discoveredComponentsList) {
                 final ChannelGroupUID groupUID = discovered.getGroupUID();
@@ -292,6 +299,8 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                 discovered.addChannelTypes(channelTypeProvider);
                 // Add component to the component map
                 haComponents.put(id, discovered);
+                discoverComponents.setKnownConfigHash(discovered.getHaID(), discovered.getConfigHash());
+                changed = true;
                 // Start component / Subscribe to channel topics
                 discovered.start(connection, scheduler, 0).exceptionally(e -> {
                     logger.warn("Failed to start component {}", discovered.getHaID(), e);
@@ -319,7 +328,9 @@ public class HomeAssistantThingHandler extends AbstractMQTTThingHandler
                 discoveredChannels.sort(CHANNEL_COMPARATOR_BY_UID);
                 ThingHelper.addChannelsToThing(thing, discoveredChannels);
             }
-            updateThingType();
+            if (changed) {
+                updateThingType();
+            }
         }
     }
 
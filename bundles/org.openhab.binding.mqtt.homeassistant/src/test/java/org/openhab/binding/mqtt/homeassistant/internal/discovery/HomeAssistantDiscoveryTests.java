@@ -93,6 +93,34 @@ public class HomeAssistantDiscoveryTests extends AbstractHomeAssistantTests {
                 "climate/0x847127fffe11dd6a_climate_zigbee2mqtt", "switch/0x847127fffe11dd6a_auto_lock_zigbee2mqtt"));
     }
 
+    @Test
+    public void testRepeatedThingDiscovery() throws Exception {
+        var discoveryListener = new LatchDiscoveryListener();
+        var latch = discoveryListener.createWaitForThingsDiscoveredLatch(1);
+
+        // When the components of one thing are received several times, like retained topics on every scan
+        discovery.addDiscoveryListener(discoveryListener);
+        for (int i = 0; i < 3; i++) {
+            discovery.receivedMessage(HA_UID, bridgeConnection,
+                    "homeassistant/climate/0x847127fffe11dd6a_climate_zigbee2mqtt/config",
+                    getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+            discovery.receivedMessage(HA_UID, bridgeConnection,
+                    "homeassistant/switch/0x847127fffe11dd6a_auto_lock_zigbee2mqtt/config",
+                    getResourceAsByteArray("component/configTS0601AutoLock.json"));
+        }
+
+        // Then one thing with each component once is found
+        assert latch.await(3, TimeUnit.SECONDS);
+        var discoveryResults = discoveryListener.getDiscoveryResults();
+        assertThat(discoveryResults.size(), is(1));
+        var result = discoveryResults.get(0);
+        assertThat(result.getLabel(), is("th1 (Climate Control, Switch)"));
+        var topics = (List<String>) result.getProperties().get(HandlerConfiguration.PROPERTY_TOPICS);
+        assertThat(topics.size(), is(2));
+        assertThat(topics, hasItems("climate/0x847127fffe11dd6a_climate_zigbee2mqtt",
+                "switch/0x847127fffe11dd6a_auto_lock_zigbee2mqtt"));
+    }
+
     private static class TestHomeAssistantDiscovery extends HomeAssistantDiscovery {
         public TestHomeAssistantDiscovery(MqttChannelTypeProvider typeProvider) {
             super(null);
@@ -223,6 +223,62 @@ public class HomeAssistantThingHandlerTests extends AbstractHomeAssistantTests {
         });
     }
 
+    /**
+     * Test where an unchanged component configuration is received again, like retained configurations after a
+     * reconnect. The configuration should not be parsed again.
+     */
+    @Test
+    public void testUnchangedComponentPublish() {
+        thingHandler.initialize();
+
+        verify(thingHandler, timeout(SUBSCRIBE_TIMEOUT)).start(any());
+        MQTT_TOPICS.forEach(t -> {
+            verify(bridgeConnection, timeout(SUBSCRIBE_TIMEOUT)).subscribe(eq(t), any());
+        });
+
+        var configTopic = "homeassistant/climate/0x847127fffe11dd6a_climate_zigbee2mqtt/config";
+        thingHandler.discoverComponents.processMessage(configTopic,
+                getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+        thingHandler.delayedProcessing.forceProcessNow();
+        assertThat(haThing.getChannels().size(), CoreMatchers.is(6));
+
+        thingHandler.discoverComponents.processMessage(configTopic,
+                getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+        thingHandler.delayedProcessing.forceProcessNow();
+
+        verify(thingHandler, times(1)).componentDiscovered(eq(new HaID(configTopic)), any(Climate.class));
+        assertThat(haThing.getChannels().size(), CoreMatchers.is(6));
+        verify(channelTypeProvider, times(6)).setChannelType(any(), any());
+    }
+
+    /**
+     * Test where a component is removed with an empty configuration and published again with the same
+     * configuration. The configuration should be parsed again.
+     */
+    @Test
+    public void testRemovedComponentPublishedAgain() {
+        thingHandler.initialize();
+
+        verify(thingHandler, timeout(SUBSCRIBE_TIMEOUT)).start(any());
+        MQTT_TOPICS.forEach(t -> {
+            verify(bridgeConnection, timeout(SUBSCRIBE_TIMEOUT)).subscribe(eq(t), any());
+        });
+
+        var configTopic = "homeassistant/climate/0x847127fffe11dd6a_climate_zigbee2mqtt/config";
+        thingHandler.discoverComponents.processMessage(configTopic,
+                getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+        thingHandler.delayedProcessing.forceProcessNow();
+        assertThat(haThing.getChannels().size(), CoreMatchers.is(6));
+
+        thingHandler.discoverComponents.processMessage(configTopic, new byte[0]);
+        thingHandler.discoverComponents.processMessage(configTopic,
+                getResourceAsByteArray("component/configTS0601ClimateThermostat.json"));
+        thingHandler.delayedProcessing.forceProcessNow();
+
+        verify(thingHandler, times(2)).componentDiscovered(eq(new HaID(configTopic)), any(Climate.class));
+        assertThat(haThing.getChannels().size(), CoreMatchers.is(6));
+    }
+
     @Test
     public void testDispose() {
         thingHandler.initialize();
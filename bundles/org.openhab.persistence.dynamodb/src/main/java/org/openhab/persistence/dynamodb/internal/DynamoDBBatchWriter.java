@@ -0,0 +1,372 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import software.amazon.awssdk.core.exception.SdkServiceException;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchWriteResult;
+import software.amazon.awssdk.enhanced.dynamodb.model.WriteBatch;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+/**
+ * Writes items to DynamoDB using BatchWriteItem requests.
+ *
+ * Items are queued and written in batches of at most {@link #MAX_BATCH_SIZE} items, with one request in flight at a
+ * time. Items left unprocessed by DynamoDB are queued again and retried with exponential backoff. If a table does not
+ * exist yet, the items of the batch are written using {@link TableCreatingPutItem}, creating the table.
+ *
+ * The write rate is limited with {@link WriteRateLimiter}, if configured. When the queue is full, further items are
+ * dropped.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriter {
+    /**
+     * Maximum number of items in a single BatchWriteItem request, as specified by DynamoDB
+     */
+    static final int MAX_BATCH_SIZE = 25;
+    private static final long MIN_RETRY_DELAY_MILLIS = 50;
+    private static final long MAX_RETRY_DELAY_MILLIS = 30_000;
+    private static final Duration DROPPED_LOG_INTERVAL = Duration.ofMinutes(1);
+
+    private final Logger logger = LoggerFactory.getLogger(DynamoDBBatchWriter.class);
+
+    private final DynamoDBPersistenceService service;
+    private final DynamoDbEnhancedAsyncClient client;
+    private final ScheduledExecutorService scheduler;
+    private final ExecutorService executor;
+    private final int queueSize;
+    private final @Nullable WriteRateLimiter rateLimiter;
+
+    private final Deque<DynamoDBItem<?>> queue = new ArrayDeque<>();
+    private @Nullable ScheduledFuture<?> scheduledWrite;
+    private boolean writing;
+    private boolean closed;
+    private int consecutiveFailures;
+    private long dropped;
+    private Instant lastDroppedLog = Instant.MIN;
+
+    public DynamoDBBatchWriter(DynamoDBPersistenceService service, DynamoDbEnhancedAsyncClient client,
+            ScheduledExecutorService scheduler, DynamoDBConfig dbConfig) {
+        this.service = service;
+        this.client = client;
+        this.scheduler = scheduler;
+        this.executor = service.getExecutor();
+        this.queueSize = dbConfig.getWriteQueueSize();
+        this.rateLimiter = dbConfig.isLimitWriteRate() ? new WriteRateLimiter(dbConfig.getWriteCapacityUnits())
+                : null;
+    }
+
+    /**
+     * Queue item for writing
+     *
+     * @param dto item to write
+     * @return whether the item was queued. False if the queue is full or the writer is closed.
+     */
+    public boolean enqueue(DynamoDBItem<?> dto) {
+        synchronized (queue) {
+            if (closed) {
+                return false;
+            }
+            if (queue.size() >= queueSize) {
+                dropped++;
+                Instant now = Instant.now();
+                if (Duration.between(lastDroppedLog, now).compareTo(DROPPED_LOG_INTERVAL) >= 0) {
+                    lastDroppedLog = now;
+                    logger.warn(
+                            "Write queue is full ({} items), dropping item {}. {} items dropped in total. Consider increasing write capacity.",
+                            queueSize, dto.getName(), dropped);
+                }
+                return false;
+            }
+            queue.add(dto);
+            if (!writing) {
+                writing = true;
+                scheduleWrite(0);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stop writing in the background and write the queued items, ignoring the rate limit
+     *
+     * Items that could not be written within the timeout are discarded.
+     *
+     * @param timeout maximum time to use for writing the queued items
+     */
+    public void close(Duration timeout) {
+        synchronized (queue) {
+            closed = true;
+            ScheduledFuture<?> localScheduledWrite = scheduledWrite;
+            if (localScheduledWrite != null) {
+                localScheduledWrite.cancel(false);
+                scheduledWrite = null;
+            }
+        }
+        Instant deadline = Instant.now().plus(timeout);
+        try {
+            while (Instant.now().isBefore(deadline)) {
+                List<DynamoDBItem<?>> batch;
+                synchronized (queue) {
+                    batch = takeBatch(MAX_BATCH_SIZE);
+                }
+                if (batch.isEmpty()) {
+                    break;
+                }
+                List<DynamoDBItem<?>> unprocessed = writeBatch(batch)
+                        .get(Duration.between(Instant.now(), deadline).toMillis(), TimeUnit.MILLISECONDS);
+                requeue(unprocessed);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.debug("Writing queued items failed on close: {} {}", e.getClass().getSimpleName(), e.getMessage());
+        }
+        synchronized (queue) {
+            if (!queue.isEmpty()) {
+                logger.warn("Discarding {} queued items which could not be written", queue.size());
+                queue.clear();
+            }
+        }
+    }
+
+    private void scheduleWrite(long delayMillis) {
+        scheduledWrite = scheduler.schedule(this::writeNextBatch, delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Schedule next write, or stop writing if there is nothing to write
+     */
+    private void writeCompleted(long delayMillis) {
+        synchronized (queue) {
+            if (closed || queue.isEmpty()) {
+                writing = false;
+            } else {
+                scheduleWrite(delayMillis);
+            }
+        }
+    }
+
+    private void writeNextBatch() {
+        final List<DynamoDBItem<?>> batch;
+        synchronized (queue) {
+            if (closed || queue.isEmpty()) {
+                writing = false;
+                return;
+            }
+            int size = Math.min(MAX_BATCH_SIZE, queue.size());
+            WriteRateLimiter localRateLimiter = rateLimiter;
+            if (localRateLimiter != null) {
+                size = localRateLimiter.tryAcquire(size);
+                if (size == 0) {
+                    scheduleWrite(localRateLimiter.millisUntilAvailable());
+                    return;
+                }
+            }
+            batch = takeBatch(size);
+        }
+        final CompletableFuture<List<DynamoDBItem<?>>> unprocessedFuture;
+        try {
+            unprocessedFuture = writeBatch(batch);
+        } catch (RuntimeException e) {
+            logger.warn("BatchWriteItem: failed (final) with {} {}. Dropping {} items.", e.getClass().getSimpleName(),
+                    e.getMessage(), batch.size());
+            writeCompleted(0);
+            return;
+        }
+        Instant start = Instant.now();
+        unprocessedFuture.whenCompleteAsync((unprocessed, exception) -> {
+            if (exception == null) {
+                logger.trace("BatchWriteItem: {} items written in {} ms, {} unprocessed", batch.size(),
+                        Duration.between(start, Instant.now()).toMillis(), unprocessed.size());
+                if (unprocessed.isEmpty()) {
+                    consecutiveFailures = 0;
+                    WriteRateLimiter localRateLimiter = rateLimiter;
+                    if (localRateLimiter != null) {
+                        localRateLimiter.succeeded();
+                    }
+                    writeCompleted(0);
+                } else {
+                    // Unprocessed items are the result of throttling
+                    requeue(unprocessed);
+                    writeFailed(true);
+                }
+                return;
+            }
+            Throwable cause = exception instanceof CompletionException && exception.getCause() != null
+                    ? exception.getCause()
+                    : exception;
+            if (cause instanceof ResourceNotFoundException) {
+                logger.trace("BatchWriteItem: Table was not present. Writing {} items one by one, creating the table",
+                        batch.size());
+                CompletableFuture<?>[] puts = batch.stream().map(this::putItemCreatingTable)
+                        .toArray(CompletableFuture[]::new);
+                CompletableFuture.allOf(puts).whenCompleteAsync((_void, putException) -> writeCompleted(0), executor);
+            } else if (isClientError(cause)) {
+                logger.warn("BatchWriteItem: failed (final) with {} {}. Dropping {} items.",
+                        cause.getClass().getSimpleName(), cause.getMessage(), batch.size());
+                writeCompleted(0);
+            } else {
+                logger.debug("BatchWriteItem: failed (will be retried) with {} {}", cause.getClass().getSimpleName(),
+                        cause.getMessage());
+                requeue(batch);
+                writeFailed(cause instanceof SdkServiceException serviceException
+                        && serviceException.isThrottlingException());
+            }
+        }, executor);
+    }
+
+    /**
+     * Errors caused by the request itself, which would fail again when retried
+     */
+    private static boolean isClientError(Throwable cause) {
+        return cause instanceof SdkServiceException serviceException && !serviceException.isThrottlingException()
+                && serviceException.statusCode() >= 400 && serviceException.statusCode() < 500;
+    }
+
+    private void writeFailed(boolean throttled) {
+        WriteRateLimiter localRateLimiter = rateLimiter;
+        if (throttled && localRateLimiter != null) {
+            localRateLimiter.throttled();
+        }
+        consecutiveFailures++;
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS,
+                MIN_RETRY_DELAY_MILLIS << Math.min(consecutiveFailures - 1, Long.SIZE - 2));
+        writeCompleted(delay);
+    }
+
+    private void requeue(List<DynamoDBItem<?>> items) {
+        synchronized (queue) {
+            for (int i = items.size() - 1; i >= 0; i--) {
+                queue.addFirst(items.get(i));
+            }
+        }
+    }
+
+    /**
+     * Take items from the queue. Items with the same name and timestamp cannot be written in the same request, only
+     * the last one of those is kept.
+     *
+     * Must be called while holding the queue lock.
+     */
+    private List<DynamoDBItem<?>> takeBatch(int size) {
+        Map<String, DynamoDBItem<?>> batch = new LinkedHashMap<>();
+        for (int i = 0; i < size && !queue.isEmpty(); i++) {
+            DynamoDBItem<?> dto = queue.poll();
+            batch.put(dto.getName() + "@" + dto.getTime().toInstant().toEpochMilli(), dto);
+        }
+        return new ArrayList<>(batch.values());
+    }
+
+    /**
+     * Write batch of items
+     *
+     * @return future of the items which were left unprocessed by DynamoDB
+     */
+    private CompletableFuture<List<DynamoDBItem<?>>> writeBatch(List<DynamoDBItem<?>> batch) {
+        TableBatch<DynamoDBBigDecimalItem> numbers = new TableBatch<>(DynamoDBBigDecimalItem.class);
+        TableBatch<DynamoDBStringItem> strings = new TableBatch<>(DynamoDBStringItem.class);
+        for (DynamoDBItem<?> dto : batch) {
+            if (dto instanceof DynamoDBBigDecimalItem numberItem) {
+                numbers.items.add(numberItem);
+            } else if (dto instanceof DynamoDBStringItem stringItem) {
+                strings.items.add(stringItem);
+            } else {
+                throw new IllegalStateException("Unknown DTO class. Bug");
+            }
+        }
+        BatchWriteItemEnhancedRequest.Builder request = BatchWriteItemEnhancedRequest.builder();
+        numbers.addTo(request);
+        strings.addTo(request);
+        return client.batchWriteItem(request.build()).thenApply(result -> {
+            List<DynamoDBItem<?>> unprocessed = new ArrayList<>();
+            numbers.addUnprocessed(result, unprocessed);
+            strings.addUnprocessed(result, unprocessed);
+            return unprocessed;
+        });
+    }
+
+    private CompletableFuture<Void> putItemCreatingTable(DynamoDBItem<?> dto) {
+        try {
+            if (dto instanceof DynamoDBBigDecimalItem numberItem) {
+                return new TableCreatingPutItem<>(service, numberItem, service.getTable(DynamoDBBigDecimalItem.class))
+                        .putItemAsync();
+            } else if (dto instanceof DynamoDBStringItem stringItem) {
+                return new TableCreatingPutItem<>(service, stringItem, service.getTable(DynamoDBStringItem.class))
+                        .putItemAsync();
+            } else {
+                throw new IllegalStateException("Unknown DTO class. Bug");
+            }
+        } catch (IllegalStateException e) {
+            logger.warn("PutItem: failed (final) with {} {}. Aborting.", e.getClass().getSimpleName(), e.getMessage());
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Items of a batch belonging to the same table
+     */
+    private class TableBatch<T extends DynamoDBItem<?>> {
+        private final Class<T> dtoClass;
+        private final List<T> items = new ArrayList<>();
+        private @Nullable DynamoDbAsyncTable<T> table;
+
+        private TableBatch(Class<T> dtoClass) {
+            this.dtoClass = dtoClass;
+        }
+
+        private void addTo(BatchWriteItemEnhancedRequest.Builder request) {
+            if (items.isEmpty()) {
+                return;
+            }
+            DynamoDbAsyncTable<T> localTable = table = service.getTable(dtoClass);
+            WriteBatch.Builder<T> writeBatch = WriteBatch.builder(dtoClass).mappedTableResource(localTable);
+            items.forEach(writeBatch::addPutItem);
+            request.addWriteBatch(writeBatch.build());
+        }
+
+        private void addUnprocessed(BatchWriteResult result, List<DynamoDBItem<?>> unprocessed) {
+            DynamoDbAsyncTable<T> localTable = table;
+            if (localTable != null) {
+                unprocessed.addAll(result.unprocessedPutItemsForTable(localTable));
+            }
+        }
+    }
+}
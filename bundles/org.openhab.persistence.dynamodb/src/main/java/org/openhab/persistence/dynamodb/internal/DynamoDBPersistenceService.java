@@ -27,6 +27,7 @@ import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
 
@@ -104,6 +105,10 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
 
     private static final String DYNAMODB_THREADPOOL_NAME = "dynamodbPersistenceService";
 
+    private static final String DYNAMODB_WRITER_THREADPOOL_NAME = "dynamodbPersistenceServiceWriter";
+
+    private static final Duration WRITER_CLOSE_TIMEOUT = Duration.ofSeconds(10);
+
     private final ItemRegistry itemRegistry;
     private final UnitProvider unitProvider;
     private @Nullable DynamoDbEnhancedAsyncClient client;
@@ -113,6 +118,9 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     private @Nullable DynamoDBConfig dbConfig;
     private @Nullable DynamoDBTableNameResolver tableNameResolver;
     private final ExecutorService executor = ThreadPoolManager.getPool(DYNAMODB_THREADPOOL_NAME);
+    private final ScheduledExecutorService writerScheduler = ThreadPoolManager
+            .getScheduledPool(DYNAMODB_WRITER_THREADPOOL_NAME);
+    private @Nullable DynamoDBBatchWriter writer;
     private static final Duration TIMEOUT_API_CALL = Duration.ofSeconds(60);
     private static final Duration TIMEOUT_API_CALL_ATTEMPT = Duration.ofSeconds(5);
     private Map<Class<? extends DynamoDBItem<?>>, DynamoDbAsyncTable<? extends DynamoDBItem<?>>> tableCache = new ConcurrentHashMap<>(
@@ -192,6 +200,12 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
                 logger.error("Error creating dynamodb database client. Aborting service activation.");
                 return;
             }
+            DynamoDbEnhancedAsyncClient localClient = client;
+            if (localClient == null) {
+                // Invariant. To make null checker happy
+                throw new IllegalStateException();
+            }
+            writer = new DynamoDBBatchWriter(this, localClient, writerScheduler, localDbConfig);
         } catch (Exception e) {
             logger.error("Error constructing dynamodb client", e);
             return;
@@ -277,7 +291,7 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         }
     }
 
-    private <T extends DynamoDBItem<?>> DynamoDbAsyncTable<T> getTable(Class<T> dtoClass) {
+    <T extends DynamoDBItem<?>> DynamoDbAsyncTable<T> getTable(Class<T> dtoClass) {
         DynamoDbEnhancedAsyncClient localClient = client;
         DynamoDBTableNameResolver localTableNameResolver = tableNameResolver;
         if (!ensureClient() || localClient == null || localTableNameResolver == null) {
@@ -316,6 +330,11 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
     }
 
     private void disconnect() {
+        DynamoDBBatchWriter localWriter = writer;
+        if (localWriter != null) {
+            localWriter.close(WRITER_CLOSE_TIMEOUT);
+            writer = null;
+        }
         DynamoDbAsyncClient localLowLevelClient = lowLevelClient;
         if (client == null || localLowLevelClient == null) {
             return;
@@ -530,17 +549,17 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
         // We 'copy' the item for local use. copyItem also normalizes the unit with NumberItems.
         final GenericItem copiedItem = copyItem(itemTemplate, item, effectiveName, null, unitProvider);
 
-        resolveTableSchema().thenAcceptAsync(resolved -> {
+        // Conversion is done right away if the table schema has been resolved already, avoiding a task per stored item
+        resolveTableSchema().thenAccept(resolved -> {
             if (!resolved) {
                 logger.warn("Table schema not resolved, not storing item {}.", copiedItem.getName());
                 return;
             }
 
-            DynamoDbEnhancedAsyncClient localClient = client;
-            DynamoDbAsyncClient localLowlevelClient = lowLevelClient;
+            DynamoDBBatchWriter localWriter = writer;
             DynamoDBConfig localConfig = dbConfig;
             DynamoDBTableNameResolver localTableNameResolver = tableNameResolver;
-            if (!isProperlyConfigured || localClient == null || localLowlevelClient == null || localConfig == null
+            if (!isProperlyConfigured || localWriter == null || localConfig == null
                     || localTableNameResolver == null) {
                 logger.warn("Not ready to store (config error?), not storing item {}.", item.getName());
                 return;
@@ -561,22 +580,8 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
             }
             logger.trace("store() called with item {} {} '{}', which was converted to DTO {}",
                     copiedItem.getClass().getSimpleName(), effectiveName, copiedItem.getState(), dto);
-            dto.accept(new DynamoDBItemVisitor<TableCreatingPutItem<? extends DynamoDBItem<?>>>() {
-
-                @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(
-                        DynamoDBBigDecimalItem dynamoBigDecimalItem) {
-                    return new TableCreatingPutItem<>(DynamoDBPersistenceService.this, dynamoBigDecimalItem,
-                            getTable(DynamoDBBigDecimalItem.class));
-                }
-
-                @Override
-                public TableCreatingPutItem<? extends DynamoDBItem<?>> visit(DynamoDBStringItem dynamoStringItem) {
-                    return new TableCreatingPutItem<>(DynamoDBPersistenceService.this, dynamoStringItem,
-                            getTable(DynamoDBStringItem.class));
-                }
-            }).putItemAsync();
-        }, executor).exceptionally(e -> {
+            localWriter.enqueue(dto);
+        }).exceptionally(e -> {
             logger.error("Unexcepted error", e);
             return null;
         });
@@ -658,14 +663,14 @@ public class DynamoDBPersistenceService implements QueryablePersistenceService {
 
     private void logIfManyQueuedTasks() {
         if (executor instanceof ThreadPoolExecutor localExecutor) {
-            if (localExecutor.getQueue().size() >= 5) {
-                logger.trace("executor queue size: {}, remaining space {}. Active threads {}",
-                        localExecutor.getQueue().size(), localExecutor.getQueue().remainingCapacity(),
-                        localExecutor.getActiveCount());
-            } else if (localExecutor.getQueue().size() >= 50) {
+            if (localExecutor.getQueue().size() >= 50) {
                 logger.warn(
                         "Many ({}) tasks queued in executor! This might be sign of bad design or bug in the addon code.",
                         localExecutor.getQueue().size());
+            } else if (localExecutor.getQueue().size() >= 5) {
+                logger.trace("executor queue size: {}, remaining space {}. Active threads {}",
+                        localExecutor.getQueue().size(), localExecutor.getQueue().remainingCapacity(),
+                        localExecutor.getActiveCount());
             }
         }
     }
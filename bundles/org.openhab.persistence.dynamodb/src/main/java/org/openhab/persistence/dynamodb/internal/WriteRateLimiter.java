@@ -0,0 +1,116 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import java.util.function.LongSupplier;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Token bucket limiting the rate of item writes to the provisioned write capacity.
+ *
+ * The bucket is refilled with the configured write capacity units per second. Similar to DynamoDB burst capacity,
+ * up to {@link #BURST_SECONDS} seconds of unused capacity is retained.
+ *
+ * The rate adapts to throttling reported by DynamoDB: it is halved whenever writes are throttled, and recovers
+ * gradually towards the configured rate with every successful write.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class WriteRateLimiter {
+    static final int BURST_SECONDS = 300;
+    private static final double MIN_RATE_FRACTION = 0.1;
+    private static final double RECOVERY_FRACTION = 0.1;
+    private static final double NANOS_PER_SECOND = 1_000_000_000d;
+
+    private final LongSupplier nanoTime;
+    private final double maxRate;
+    private final double minRate;
+    private final double capacity;
+    private double rate;
+    private double tokens;
+    private long lastRefill;
+
+    /**
+     *
+     * @param writeCapacityUnits provisioned write capacity, in writes per second
+     */
+    public WriteRateLimiter(long writeCapacityUnits) {
+        this(writeCapacityUnits, System::nanoTime);
+    }
+
+    /**
+     * For tests
+     */
+    WriteRateLimiter(long writeCapacityUnits, LongSupplier nanoTime) {
+        this.nanoTime = nanoTime;
+        maxRate = rate = writeCapacityUnits;
+        minRate = writeCapacityUnits * MIN_RATE_FRACTION;
+        capacity = tokens = Math.max(DynamoDBBatchWriter.MAX_BATCH_SIZE, (double) writeCapacityUnits * BURST_SECONDS);
+        lastRefill = nanoTime.getAsLong();
+    }
+
+    /**
+     * Acquire tokens for writing items
+     *
+     * @param max maximum number of items to write
+     * @return number of items that can be written now, between 0 and max
+     */
+    public synchronized int tryAcquire(int max) {
+        refill();
+        int granted = (int) Math.min(max, Math.floor(tokens));
+        tokens -= granted;
+        return granted;
+    }
+
+    /**
+     *
+     * @return time in milliseconds until at least one item can be written
+     */
+    public synchronized long millisUntilAvailable() {
+        refill();
+        if (tokens >= 1) {
+            return 0;
+        }
+        return (long) Math.ceil((1 - tokens) / rate * 1000);
+    }
+
+    /**
+     * Signal that DynamoDB throttled writes. Halves the rate and discards the retained capacity.
+     */
+    public synchronized void throttled() {
+        refill();
+        rate = Math.max(minRate, rate / 2);
+        tokens = Math.min(tokens, 0);
+    }
+
+    /**
+     * Signal that items were written without throttling. Increases the rate towards the configured rate.
+     */
+    public synchronized void succeeded() {
+        refill();
+        rate = Math.min(maxRate, rate + maxRate * RECOVERY_FRACTION);
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private void refill() {
+        long now = nanoTime.getAsLong();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) / NANOS_PER_SECOND * rate);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.test.java.JavaTest;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbAsyncTable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedAsyncClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbAsyncClient;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+/**
+ * Tests the {@link DynamoDBBatchWriter} with a mocked DynamoDB client.
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class DynamoDBBatchWriterTest extends JavaTest {
+
+    private static final String TABLE = "openhab";
+
+    private final List<List<WriteRequest>> writtenRequests = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+    private final DynamoDbAsyncClient lowLevelClient = mock(DynamoDbAsyncClient.class);
+    private @NonNullByDefault({}) DynamoDBBatchWriter writer;
+
+    @BeforeEach
+    public void setUp() {
+        DynamoDbEnhancedAsyncClient client = DynamoDbEnhancedAsyncClient.builder().dynamoDbClient(lowLevelClient)
+                .build();
+        DynamoDbAsyncTable<DynamoDBBigDecimalItem> table = client.table(TABLE,
+                DynamoDBBigDecimalItem.TABLE_SCHEMA_NEW);
+        DynamoDBPersistenceService service = mock(DynamoDBPersistenceService.class);
+        when(service.getExecutor()).thenReturn(executor);
+        doReturn(table).when(service).getTable(DynamoDBBigDecimalItem.class);
+        DynamoDBConfig dbConfig = DynamoDBConfig.fromConfig(
+                Map.of("region", "eu-west-1", "accessKey", "access1", "secretKey", "secret1", "table", TABLE));
+        assertNotNull(dbConfig);
+        writer = new DynamoDBBatchWriter(service, client, scheduler, dbConfig);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        writer.close(Duration.ofSeconds(1));
+        scheduler.shutdownNow();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testUnprocessedItemsAreWrittenAgain() {
+        // the first request leaves its first item unprocessed, as when DynamoDB throttles writes
+        when(lowLevelClient.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            List<WriteRequest> requests = invocation.getArgument(0, BatchWriteItemRequest.class).requestItems()
+                    .get(TABLE);
+            writtenRequests.add(requests);
+            Map<String, List<WriteRequest>> unprocessed = writtenRequests.size() == 1
+                    ? Map.of(TABLE, List.of(requests.get(0)))
+                    : Map.of();
+            return CompletableFuture
+                    .completedFuture(BatchWriteItemResponse.builder().unprocessedItems(unprocessed).build());
+        });
+
+        assertTrue(writer.enqueue(item("item1", 1)));
+        assertTrue(writer.enqueue(item("item2", 2)));
+
+        waitForAssert(() -> assertEquals(2, writtenRequests.size()));
+        List<WriteRequest> first = writtenRequests.get(0);
+        List<WriteRequest> second = writtenRequests.get(1);
+        assertEquals(2, first.size());
+        assertEquals(List.of(first.get(0)), second);
+        assertEquals("item1", second.get(0).putRequest().item().get(DynamoDBItem.ATTRIBUTE_NAME_ITEMNAME).s());
+    }
+
+    @Test
+    public void testWriteFailureIsRetried() {
+        when(lowLevelClient.batchWriteItem(any(BatchWriteItemRequest.class))).thenAnswer(invocation -> {
+            writtenRequests.add(invocation.getArgument(0, BatchWriteItemRequest.class).requestItems().get(TABLE));
+            return writtenRequests.size() == 1 ? CompletableFuture.failedFuture(new IllegalStateException("network"))
+                    : CompletableFuture.completedFuture(BatchWriteItemResponse.builder().build());
+        });
+
+        assertTrue(writer.enqueue(item("item1", 1)));
+
+        waitForAssert(() -> assertEquals(2, writtenRequests.size()));
+        assertEquals(writtenRequests.get(0), writtenRequests.get(1));
+    }
+
+    private static DynamoDBBigDecimalItem item(String name, long value) {
+        return new DynamoDBBigDecimalItem(name, new BigDecimal(value),
+                ZonedDateTime.of(2024, 1, 1, 0, 0, (int) value, 0, ZoneId.of("UTC")), null);
+    }
+}
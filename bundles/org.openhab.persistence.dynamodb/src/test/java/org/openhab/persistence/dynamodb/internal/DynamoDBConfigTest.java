@@ -255,4 +255,29 @@ public class DynamoDBConfigTest {
         assertEquals(Optional.empty(), fromConfig.getRetryPolicy().map(RetryPolicy::retryMode));
         assertEquals(ExpectedTableSchema.MAYBE_LEGACY, fromConfig.getTableRevision());
     }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testWriteQueueDefaults() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig
+                .fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey", "secret1"));
+        assertEquals(1000, fromConfig.getWriteQueueSize());
+        assertFalse(fromConfig.isLimitWriteRate());
+    }
+
+    @SuppressWarnings("null")
+    @Test
+    public void testWriteQueueSettings() throws Exception {
+        DynamoDBConfig fromConfig = DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1",
+                "secretKey", "secret1", "table", "mytable", "writeQueueSize", "50", "limitWriteRate", "true"));
+        assertEquals(50, fromConfig.getWriteQueueSize());
+        assertTrue(fromConfig.isLimitWriteRate());
+        assertEquals(ExpectedTableSchema.NEW, fromConfig.getTableRevision());
+    }
+
+    @Test
+    public void testInvalidWriteQueueSize() throws Exception {
+        assertNull(DynamoDBConfig.fromConfig(mapFrom("region", "eu-west-1", "accessKey", "access1", "secretKey",
+                "secret1", "writeQueueSize", "0")));
+    }
 }
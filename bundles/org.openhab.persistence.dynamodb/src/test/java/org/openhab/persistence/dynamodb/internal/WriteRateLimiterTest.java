@@ -0,0 +1,84 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.dynamodb.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ *
+ * @author agent - Initial contribution
+ *
+ */
+@NonNullByDefault
+public class WriteRateLimiterTest {
+
+    private final AtomicLong nanoTime = new AtomicLong();
+
+    private void advanceMillis(long millis) {
+        nanoTime.addAndGet(TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+
+    @Test
+    public void testBurstCapacityIsLimited() {
+        WriteRateLimiter limiter = new WriteRateLimiter(2, nanoTime::get);
+        int total = 0;
+        for (int i = 0; i < 100; i++) {
+            total += limiter.tryAcquire(DynamoDBBatchWriter.MAX_BATCH_SIZE);
+        }
+        assertEquals(2 * WriteRateLimiter.BURST_SECONDS, total);
+        assertEquals(0, limiter.tryAcquire(1));
+        assertEquals(500, limiter.millisUntilAvailable());
+    }
+
+    @Test
+    public void testRefillWithConfiguredRate() {
+        WriteRateLimiter limiter = new WriteRateLimiter(10, nanoTime::get);
+        while (limiter.tryAcquire(DynamoDBBatchWriter.MAX_BATCH_SIZE) > 0) {
+            // consume burst capacity
+        }
+        advanceMillis(1000);
+        assertEquals(10, limiter.tryAcquire(DynamoDBBatchWriter.MAX_BATCH_SIZE));
+        advanceMillis(250);
+        assertEquals(2, limiter.tryAcquire(DynamoDBBatchWriter.MAX_BATCH_SIZE));
+        assertEquals(50, limiter.millisUntilAvailable());
+    }
+
+    @Test
+    public void testRateAdaptsToThrottling() {
+        WriteRateLimiter limiter = new WriteRateLimiter(10, nanoTime::get);
+        assertTrue(limiter.tryAcquire(1) > 0);
+
+        limiter.throttled();
+        assertEquals(5, limiter.getRate(), 1e-9);
+        assertEquals(0, limiter.tryAcquire(1));
+        limiter.throttled();
+        limiter.throttled();
+        limiter.throttled();
+        limiter.throttled();
+        assertEquals(1, limiter.getRate(), 1e-9); // minimum is 10% of the configured rate
+
+        advanceMillis(1000);
+        assertEquals(1, limiter.tryAcquire(DynamoDBBatchWriter.MAX_BATCH_SIZE));
+
+        for (int i = 0; i < 20; i++) {
+            limiter.succeeded();
+        }
+        assertEquals(10, limiter.getRate(), 1e-9);
+    }
+}
@@ -14,6 +14,8 @@ package org.openhab.persistence.influxdb;
 
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 
+import java.nio.file.Path;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -25,15 +27,14 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
@@ -49,13 +50,16 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.openhab.persistence.influxdb.internal.AggregateFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItem;
+import org.openhab.persistence.influxdb.internal.InfluxDBHistoricItemIterable;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataService;
 import org.openhab.persistence.influxdb.internal.InfluxDBPersistentItemInfo;
 import org.openhab.persistence.influxdb.internal.InfluxDBRepository;
 import org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils;
+import org.openhab.persistence.influxdb.internal.InfluxDBWriteBuffer;
 import org.openhab.persistence.influxdb.internal.InfluxPoint;
 import org.openhab.persistence.influxdb.internal.influx1.InfluxDB1RepositoryImpl;
 import org.openhab.persistence.influxdb.internal.influx2.InfluxDB2RepositoryImpl;
@@ -99,6 +103,9 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
     private final Logger logger = LoggerFactory.getLogger(InfluxDBPersistenceService.class);
 
     private static final int COMMIT_INTERVAL = 3; // in s
+    private static final int QUERY_QUEUE_SIZE = 1000;
+    private static final Duration QUERY_TIMEOUT = Duration.ofSeconds(30);
+    private static final Path SPOOL_FOLDER = Path.of(OpenHAB.getUserDataFolder(), "persistence", "influxdb", "spool");
     protected static final String CONFIG_URI = "persistence:influxdb";
 
     // External dependencies
@@ -111,7 +118,10 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
 
     // storage
     private final ScheduledFuture<?> storeJob;
-    private final BlockingQueue<InfluxPoint> pointsQueue = new LinkedBlockingQueue<>();
+    private final InfluxDBWriteBuffer writeBuffer;
+    private long retryInterval = 0; // in ms
+    private long nextWriteAttempt = 0;
+    private long reportedDropped = 0;
 
     // conversion
     private final Set<ItemFactory> itemFactories = new HashSet<>();
@@ -124,6 +134,9 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
         this.influxDBMetadataService = influxDBMetadataService;
         this.configuration = new InfluxDBConfiguration(config);
         if (configuration.isValid()) {
+            this.writeBuffer = new InfluxDBWriteBuffer(configuration.getBufferSize(), configuration.getBatchSize(),
+                    configuration.getSpoolSize() > 0 ? SPOOL_FOLDER : null,
+                    configuration.getSpoolSize() * 1024L * 1024L);
             this.influxDBRepository = createInfluxDBRepository();
             this.influxDBRepository.connect();
             this.storeJob = ThreadPoolManager.getScheduledPool("org.openhab.influxdb")
@@ -153,10 +166,16 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
         serviceActivated = false;
 
         storeJob.cancel(false);
+        nextWriteAttempt = 0;
         commit(); // ensure we at least tried to store the data;
 
-        if (!pointsQueue.isEmpty()) {
-            logger.warn("InfluxDB failed to finally store {} points.", pointsQueue.size());
+        int lost = writeBuffer.close();
+        if (lost > 0) {
+            logger.warn("InfluxDB failed to finally store {} points.", lost);
+        }
+        int spooled = writeBuffer.getStatistics().spooled();
+        if (spooled > 0) {
+            logger.info("InfluxDB kept {} points in the spool, they will be stored after the next start.", spooled);
         }
 
         influxDBRepository.disconnect();
@@ -210,10 +229,10 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
                 logger.trace("Ignoring item {}, conversion to an InfluxDB point failed.", item.getName());
                 return;
             }
-            if (pointsQueue.offer(point)) {
+            if (writeBuffer.add(point)) {
                 logger.trace("Queued {} for item {}", point, item);
             } else {
-                logger.warn("Failed to queue {} for item {}", point, item);
+                logger.debug("Failed to queue {} for item {}", point, item);
             }
         });
     }
@@ -244,15 +263,49 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
                 return List.of();
             }
 
-            List<InfluxDBRepository.InfluxRow> results = influxDBRepository.query(filter,
-                    configuration.getRetentionPolicy());
-            return results.stream().map(this::mapRowToHistoricItem).collect(Collectors.toList());
+            return new InfluxDBHistoricItemIterable(
+                    consumer -> influxDBRepository.query(filter, configuration.getRetentionPolicy(), consumer),
+                    this::mapRowToHistoricItem, ThreadPoolManager.getPool("org.openhab.influxdb"), QUERY_QUEUE_SIZE,
+                    QUERY_TIMEOUT);
         } else {
             logger.debug("Query for persisted data ignored, InfluxDB is not connected");
             return List.of();
         }
     }
 
+    /**
+     * Query the values of an item aggregated into time windows by the database. Each window with values results in
+     * one {@link HistoricItem} with the start of the window as timestamp, so the size of the result is bounded by the
+     * queried range and the interval instead of the number of stored values.
+     *
+     * @param filter the filter criteria, the item name is mandatory
+     * @param function the function to aggregate the values of a time window with
+     * @param interval the length of the time windows
+     * @return the aggregated values
+     */
+    public List<HistoricItem> queryAggregated(FilterCriteria filter, AggregateFunction function,
+            Duration interval) {
+        if (!serviceActivated || !checkConnection()) {
+            logger.debug("Aggregated query for persisted data ignored, InfluxDB is not connected");
+            return List.of();
+        }
+        if (filter.getItemName() == null) {
+            logger.warn("Item name is missing in filter {} when querying data.", filter);
+            return List.of();
+        }
+        if (interval.isNegative() || interval.toMillis() == 0) {
+            logger.warn("Invalid interval {} for aggregated query of item '{}'", interval, filter.getItemName());
+            return List.of();
+        }
+
+        List<HistoricItem> items = new ArrayList<>();
+        if (!influxDBRepository.queryAggregated(filter, configuration.getRetentionPolicy(), function, interval,
+                row -> items.add(mapRowToHistoricItem(row)))) {
+            return List.of();
+        }
+        return items;
+    }
+
     private HistoricItem mapRowToHistoricItem(InfluxDBRepository.InfluxRow row) {
         State state = InfluxDBStateConvertUtils.objectToState(row.value(), row.itemName(), itemRegistry);
         return new InfluxDBHistoricItem(row.itemName(), state,
@@ -279,18 +332,60 @@ public class InfluxDBPersistenceService implements ModifiablePersistenceService
         return false;
     }
 
-    private void commit() {
-        if (!pointsQueue.isEmpty() && checkConnection()) {
-            List<InfluxPoint> points = new ArrayList<>();
-            pointsQueue.drainTo(points);
-            if (!influxDBRepository.write(points)) {
-                logger.warn("Re-queuing {} elements, failed to write batch.", points.size());
-                pointsQueue.addAll(points);
+    /**
+     * Write buffered points in chunks. If writing fails, the attempts are delayed with an exponential backoff.
+     */
+    private synchronized void commit() {
+        long now = System.currentTimeMillis();
+        if (now < nextWriteAttempt) {
+            return;
+        }
+
+        List<InfluxPoint> points = writeBuffer.nextChunk();
+        while (!points.isEmpty()) {
+            if (!checkConnection()) {
+                delayNextWriteAttempt(now);
+                break;
+            } else if (!influxDBRepository.write(points)) {
                 influxDBRepository.disconnect();
-            } else {
-                logger.trace("Wrote {} elements to database", points.size());
+                delayNextWriteAttempt(now);
+                logger.warn("Failed to write batch of {} elements, retrying in {} s.", points.size(),
+                        retryInterval / 1000);
+                break;
+            }
+            logger.trace("Wrote {} elements to database", points.size());
+            writeBuffer.written();
+            retryInterval = 0;
+            nextWriteAttempt = 0;
+            if (!serviceActivated) {
+                // do not delay the deactivation by writing a large backlog
+                break;
             }
+            points = writeBuffer.nextChunk();
+        }
+
+        InfluxDBWriteBuffer.Statistics statistics = writeBuffer.getStatistics();
+        if (statistics.dropped() > reportedDropped) {
+            logger.warn("Dropped {} elements because the write buffer is full.",
+                    statistics.dropped() - reportedDropped);
+            reportedDropped = statistics.dropped();
         }
+        logger.trace("Write buffer: {}", statistics);
+    }
+
+    private void delayNextWriteAttempt(long now) {
+        retryInterval = Math.min(Math.max(retryInterval * 2, COMMIT_INTERVAL * 1000L),
+                configuration.getMaxRetryInterval() * 1000L);
+        nextWriteAttempt = now + retryInterval;
+    }
+
+    /**
+     * Returns the counters of queued, spooled, spilled, dropped and written points.
+     *
+     * @return the statistics of the write buffer
+     */
+    public InfluxDBWriteBuffer.Statistics getWriteStatistics() {
+        return writeBuffer.getStatistics();
     }
 
     /**
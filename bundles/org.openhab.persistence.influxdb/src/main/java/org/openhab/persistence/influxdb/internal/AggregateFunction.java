@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * The aggregate functions supported for aggregated queries. The values of an item are aggregated by the database
+ * into time windows of a fixed interval.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum AggregateFunction {
+    /**
+     * Average of all values within a time window.
+     */
+    AVG("mean"),
+    /**
+     * Lowest value within a time window.
+     */
+    MIN("min"),
+    /**
+     * Highest value within a time window.
+     */
+    MAX("max"),
+    /**
+     * Number of values within a time window, supported for all item types.
+     */
+    COUNT("count");
+
+    private final String functionName;
+
+    AggregateFunction(String functionName) {
+        this.functionName = functionName;
+    }
+
+    /**
+     * @return the name of the function in Flux and InfluxQL
+     */
+    public String getFunctionName() {
+        return functionName;
+    }
+}
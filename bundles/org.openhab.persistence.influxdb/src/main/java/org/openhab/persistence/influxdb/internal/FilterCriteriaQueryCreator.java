@@ -12,6 +12,8 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.time.Duration;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
 
@@ -31,6 +33,18 @@ public interface FilterCriteriaQueryCreator {
      */
     String createQuery(FilterCriteria criteria, String retentionPolicy);
 
+    /**
+     * Create query from {@link FilterCriteria} that aggregates the values in time windows on the server
+     *
+     * @param criteria Criteria to create query from
+     * @param retentionPolicy Name of the retentionPolicy/bucket to use in query
+     * @param function Function to aggregate the values of a time window with
+     * @param interval Length of the time windows
+     * @return Created query as a String
+     */
+    String createAggregatedQuery(FilterCriteria criteria, String retentionPolicy, AggregateFunction function,
+            Duration interval);
+
     default String getOperationSymbol(FilterCriteria.Operator operator, InfluxDBVersion version) {
         return switch (operator) {
             case EQ -> "=";
@@ -40,6 +40,10 @@ public class InfluxDBConfiguration {
     public static final String ADD_CATEGORY_TAG_PARAM = "addCategoryTag";
     public static final String ADD_LABEL_TAG_PARAM = "addLabelTag";
     public static final String ADD_TYPE_TAG_PARAM = "addTypeTag";
+    public static final String BUFFER_SIZE_PARAM = "bufferSize";
+    public static final String BATCH_SIZE_PARAM = "batchSize";
+    public static final String SPOOL_SIZE_PARAM = "spoolSize";
+    public static final String MAX_RETRY_INTERVAL_PARAM = "maxRetryInterval";
     private final Logger logger = LoggerFactory.getLogger(InfluxDBConfiguration.class);
     private final String url;
     private final String user;
@@ -52,6 +56,10 @@ public class InfluxDBConfiguration {
     private final boolean addCategoryTag;
     private final boolean addTypeTag;
     private final boolean addLabelTag;
+    private final int bufferSize;
+    private final int batchSize;
+    private final int spoolSize;
+    private final int maxRetryInterval;
 
     public InfluxDBConfiguration(Map<String, Object> config) {
         url = ConfigParser.valueAsOrElse(config.get(URL_PARAM), String.class, "http://127.0.0.1:8086");
@@ -65,6 +73,11 @@ public class InfluxDBConfiguration {
         addCategoryTag = ConfigParser.valueAsOrElse(config.get(ADD_CATEGORY_TAG_PARAM), Boolean.class, false);
         addLabelTag = ConfigParser.valueAsOrElse(config.get(ADD_LABEL_TAG_PARAM), Boolean.class, false);
         addTypeTag = ConfigParser.valueAsOrElse(config.get(ADD_TYPE_TAG_PARAM), Boolean.class, false);
+        bufferSize = Math.max(1, ConfigParser.valueAsOrElse(config.get(BUFFER_SIZE_PARAM), Integer.class, 10000));
+        batchSize = Math.max(1, ConfigParser.valueAsOrElse(config.get(BATCH_SIZE_PARAM), Integer.class, 1000));
+        spoolSize = Math.max(0, ConfigParser.valueAsOrElse(config.get(SPOOL_SIZE_PARAM), Integer.class, 100));
+        maxRetryInterval = Math.max(1,
+                ConfigParser.valueAsOrElse(config.get(MAX_RETRY_INTERVAL_PARAM), Integer.class, 300));
     }
 
     private InfluxDBVersion parseInfluxVersion(@Nullable String value) {
@@ -143,6 +156,22 @@ public class InfluxDBConfiguration {
         return addLabelTag;
     }
 
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public int getSpoolSize() {
+        return spoolSize;
+    }
+
+    public int getMaxRetryInterval() {
+        return maxRetryInterval;
+    }
+
     public String getUser() {
         return user;
     }
@@ -161,6 +190,7 @@ public class InfluxDBConfiguration {
                 + " chars', token='" + token.length() + " chars', databaseName='" + databaseName
                 + "', retentionPolicy='" + retentionPolicy + "', version=" + version + ", replaceUnderscore="
                 + replaceUnderscore + ", addCategoryTag=" + addCategoryTag + ", addTypeTag=" + addTypeTag
-                + ", addLabelTag=" + addLabelTag + '}';
+                + ", addLabelTag=" + addLabelTag + ", bufferSize=" + bufferSize + ", batchSize=" + batchSize
+                + ", spoolSize=" + spoolSize + ", maxRetryInterval=" + maxRetryInterval + '}';
     }
 }
@@ -0,0 +1,146 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.InfluxRow;
+
+/**
+ * Iterable over the result of a query, which is passed from the thread receiving the response to the iterating
+ * thread through a bounded queue. At most one queue of rows is held in memory, rows are converted to
+ * {@link HistoricItem}s while iterating.
+ *
+ * The query is executed on the executor each time an iterator is created. It is blocked while the queue is full, and
+ * cancelled if the iterator does not take a row within the timeout, e.g. because the caller stopped iterating.
+ * Failures of the query end the iteration, they are logged by the repository.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBHistoricItemIterable implements Iterable<HistoricItem> {
+
+    /**
+     * Executes a query, passing the result rows to the consumer. Returns when the query is complete.
+     */
+    @FunctionalInterface
+    public interface Query {
+        boolean execute(Consumer<InfluxRow> consumer);
+    }
+
+    private static final Object END = new Object();
+
+    private final Query query;
+    private final Function<InfluxRow, HistoricItem> mapper;
+    private final Executor executor;
+    private final int queueSize;
+    private final Duration timeout;
+
+    /**
+     * @param query the query to execute
+     * @param mapper converts the result rows to {@link HistoricItem}s
+     * @param executor executor to run the query on
+     * @param queueSize maximum number of rows held in the queue
+     * @param timeout maximum time to wait for the iterator to take a row before the query is cancelled
+     */
+    public InfluxDBHistoricItemIterable(Query query, Function<InfluxRow, HistoricItem> mapper, Executor executor,
+            int queueSize, Duration timeout) {
+        this.query = query;
+        this.mapper = mapper;
+        this.executor = executor;
+        this.queueSize = queueSize;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        BlockingQueue<Object> queue = new ArrayBlockingQueue<>(queueSize);
+        executor.execute(() -> {
+            try {
+                query.execute(row -> put(queue, row));
+            } finally {
+                try {
+                    // if the iterator is gone, nobody is waiting for the end of the result
+                    queue.offer(END, timeout.toMillis(), TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+
+        return new Iterator<>() {
+            private @Nullable InfluxRow next;
+            private boolean done;
+
+            @Override
+            public boolean hasNext() {
+                if (next != null) {
+                    return true;
+                }
+                if (done) {
+                    return false;
+                }
+                try {
+                    Object element = queue.take();
+                    if (element == END) {
+                        done = true;
+                        return false;
+                    }
+                    next = (InfluxRow) element;
+                    return true;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    done = true;
+                    return false;
+                }
+            }
+
+            @Override
+            public HistoricItem next() {
+                InfluxRow row = hasNext() ? next : null;
+                if (row == null) {
+                    throw new NoSuchElementException();
+                }
+                next = null;
+                return mapper.apply(row);
+            }
+        };
+    }
+
+    /**
+     * Queue a row, waiting while the queue is full. The exception thrown on timeout makes the repository cancel the
+     * query.
+     */
+    private void put(BlockingQueue<Object> queue, InfluxRow row) {
+        try {
+            if (!queue.offer(row, timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                throw new CancellationException("Query result was not consumed within " + timeout);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while queueing query result");
+        }
+    }
+}
@@ -12,9 +12,11 @@
  */
 package org.openhab.persistence.influxdb.internal;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
@@ -60,13 +62,29 @@ public interface InfluxDBRepository {
     Map<String, Integer> getStoredItemsCount();
 
     /**
-     * Executes Flux query
+     * Executes query and passes the result rows to the consumer while they are received from the server
      *
      * @param filter the query filter
-     * @return Query results
-     * 
+     * @param retentionPolicy the retention policy/bucket to query
+     * @param consumer the consumer of the result rows, called from the thread receiving the response. It may block
+     *            to slow down receiving, a RuntimeException thrown by it cancels the query.
+     * @return <code>true</code> if query executed successfully, <code>false</code> otherwise
+     */
+    boolean query(FilterCriteria filter, String retentionPolicy, Consumer<InfluxRow> consumer);
+
+    /**
+     * Executes query that aggregates the values in time windows on the server and passes the result rows to the
+     * consumer while they are received from the server
+     *
+     * @param filter the query filter
+     * @param retentionPolicy the retention policy/bucket to query
+     * @param function the function to aggregate the values of a time window with
+     * @param interval the length of the time windows
+     * @param consumer the consumer of the result rows, called from the thread receiving the response
+     * @return <code>true</code> if query executed successfully, <code>false</code> otherwise
      */
-    List<InfluxRow> query(FilterCriteria filter, String retentionPolicy);
+    boolean queryAggregated(FilterCriteria filter, String retentionPolicy, AggregateFunction function,
+            Duration interval, Consumer<InfluxRow> consumer);
 
     /**
      * Write points to database
@@ -0,0 +1,433 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Buffer for {@link InfluxPoint}s which have not been written to the database yet.
+ *
+ * Points are kept in memory up to a configured capacity. Further points are appended to segment files in a spool
+ * folder, each segment holding at most one chunk of points. If the spool exceeds its size limit, the oldest segment
+ * is dropped. Points are handed out in chunks, spooled points first. A chunk is handed out again until it has been
+ * written, points in memory are spooled when the buffer is closed, so they can be written after a restart.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteBuffer {
+    private static final int SEGMENT_MAGIC = 0x4F484950;
+    private static final int SEGMENT_VERSION = 1;
+    private static final Pattern SEGMENT_NAME = Pattern.compile("segment-(\\d+)\\.bin");
+
+    private static final byte VALUE_STRING = 1;
+    private static final byte VALUE_BOOLEAN = 2;
+    private static final byte VALUE_INTEGER = 3;
+    private static final byte VALUE_LONG = 4;
+    private static final byte VALUE_DOUBLE = 5;
+    private static final byte VALUE_DECIMAL = 6;
+
+    /**
+     * Counters of the buffer.
+     *
+     * @param queued the number of points in memory, including a chunk which is currently written
+     * @param spooled the number of points in the spool
+     * @param spilled the total number of points written to the spool
+     * @param dropped the total number of points dropped because the buffer was full
+     * @param written the total number of points written to the database
+     */
+    public record Statistics(int queued, int spooled, long spilled, long dropped, long written) {
+    }
+
+    private record Segment(Path path, int points, long size) {
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(InfluxDBWriteBuffer.class);
+
+    private final Deque<InfluxPoint> memory = new ArrayDeque<>();
+    private final int capacity;
+    private final int chunkSize;
+    private final @Nullable Path spoolFolder;
+    private final long maxSpoolSize;
+
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private long nextSegment = 0;
+    private long spoolSize = 0;
+    private int spooledPoints = 0;
+    private @Nullable DataOutputStream segmentOutput;
+    private @Nullable Path segmentPath;
+    private int segmentPoints = 0;
+
+    private List<InfluxPoint> chunk = List.of();
+    private @Nullable Segment chunkSegment;
+
+    private long spilled = 0;
+    private long dropped = 0;
+    private long written = 0;
+
+    /**
+     * Creates a buffer and takes over all segments already present in the spool folder.
+     *
+     * @param capacity the maximum number of points kept in memory
+     * @param chunkSize the maximum number of points handed out at once
+     * @param spoolFolder the folder for segment files or null to drop points if the memory is full
+     * @param maxSpoolSize the maximum size of all segment files in bytes
+     */
+    public InfluxDBWriteBuffer(int capacity, int chunkSize, @Nullable Path spoolFolder, long maxSpoolSize) {
+        this.capacity = Math.max(1, capacity);
+        this.chunkSize = Math.max(1, chunkSize);
+        this.spoolFolder = spoolFolder;
+        this.maxSpoolSize = maxSpoolSize;
+        if (spoolFolder != null) {
+            openSpool(spoolFolder);
+        }
+    }
+
+    /**
+     * Adds a point to the buffer.
+     *
+     * @param point the point
+     * @return false if the buffer is full and the point has been dropped
+     */
+    public synchronized boolean add(InfluxPoint point) {
+        if (memory.size() < capacity) {
+            memory.add(point);
+            return true;
+        }
+        if (spool(point)) {
+            spilled++;
+            return true;
+        }
+        dropped++;
+        return false;
+    }
+
+    /**
+     * Returns the next chunk of points to write. The same chunk is returned until {@link #written()} is called.
+     *
+     * @return the points, empty if the buffer is empty
+     */
+    public synchronized List<InfluxPoint> nextChunk() {
+        if (!chunk.isEmpty()) {
+            return chunk;
+        }
+        if (segments.isEmpty() && memory.isEmpty() && segmentPoints > 0) {
+            closeSegment();
+        }
+        while (!segments.isEmpty()) {
+            Segment segment = segments.peekFirst();
+            List<InfluxPoint> points = readSegment(segment.path);
+            if (!points.isEmpty()) {
+                chunk = points;
+                chunkSegment = segment;
+                return chunk;
+            }
+            segments.removeFirst();
+            deleteSegment(segment);
+        }
+        if (!memory.isEmpty()) {
+            List<InfluxPoint> points = new ArrayList<>(Math.min(memory.size(), chunkSize));
+            while (points.size() < chunkSize && !memory.isEmpty()) {
+                points.add(memory.removeFirst());
+            }
+            chunk = points;
+        }
+        flushSegment();
+        return chunk;
+    }
+
+    /**
+     * Marks the chunk returned by {@link #nextChunk()} as written.
+     */
+    public synchronized void written() {
+        written += chunk.size();
+        Segment segment = chunkSegment;
+        if (segment != null) {
+            segments.remove(segment);
+            deleteSegment(segment);
+            chunkSegment = null;
+        }
+        chunk = List.of();
+    }
+
+    /**
+     * Spools all points kept in memory and closes the spool.
+     *
+     * @return the number of points which could not be spooled and are lost
+     */
+    public synchronized int close() {
+        int lost = 0;
+        if (chunkSegment == null) {
+            for (InfluxPoint point : chunk) {
+                lost += spool(point) ? 0 : 1;
+            }
+        }
+        chunk = List.of();
+        chunkSegment = null;
+        for (InfluxPoint point : memory) {
+            lost += spool(point) ? 0 : 1;
+        }
+        memory.clear();
+        closeSegment();
+        dropped += lost;
+        return lost;
+    }
+
+    public synchronized Statistics getStatistics() {
+        int queued = memory.size() + (chunkSegment == null ? chunk.size() : 0);
+        return new Statistics(queued, spooledPoints, spilled, dropped, written);
+    }
+
+    private void openSpool(Path spoolFolder) {
+        if (!Files.isDirectory(spoolFolder)) {
+            return;
+        }
+        List<Path> paths = new ArrayList<>();
+        try (Stream<Path> files = Files.list(spoolFolder)) {
+            files.filter(path -> SEGMENT_NAME.matcher(path.getFileName().toString()).matches())
+                    .sorted((a, b) -> Long.compare(segmentNumber(a), segmentNumber(b))).forEach(paths::add);
+        } catch (IOException e) {
+            logger.warn("Failed to read spool folder '{}': {}", spoolFolder, e.getMessage());
+            return;
+        }
+        for (Path path : paths) {
+            nextSegment = Math.max(nextSegment, segmentNumber(path) + 1);
+            int points = readSegment(path).size();
+            try {
+                if (points > 0) {
+                    Segment segment = new Segment(path, points, Files.size(path));
+                    segments.add(segment);
+                    spoolSize += segment.size;
+                    spooledPoints += points;
+                } else {
+                    Files.deleteIfExists(path);
+                }
+            } catch (IOException e) {
+                logger.warn("Failed to read spool segment '{}': {}", path, e.getMessage());
+            }
+        }
+        if (spooledPoints > 0) {
+            logger.info("Found {} points in spool folder '{}'", spooledPoints, spoolFolder);
+        }
+    }
+
+    private boolean spool(InfluxPoint point) {
+        Path spoolFolder = this.spoolFolder;
+        if (spoolFolder == null) {
+            return false;
+        }
+        // make room by dropping the oldest segment which is not currently written
+        while (spoolSize >= maxSpoolSize) {
+            Segment oldest = segments.stream().filter(segment -> segment != chunkSegment).findFirst().orElse(null);
+            if (oldest == null) {
+                return false;
+            }
+            segments.remove(oldest);
+            deleteSegment(oldest);
+            dropped += oldest.points;
+            logger.warn("Spool size limit reached, dropped {} points", oldest.points);
+        }
+        try {
+            DataOutputStream output = segmentOutput;
+            if (output == null) {
+                Files.createDirectories(spoolFolder);
+                Path path = spoolFolder.resolve("segment-" + nextSegment++ + ".bin");
+                output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+                output.writeInt(SEGMENT_MAGIC);
+                output.writeInt(SEGMENT_VERSION);
+                segmentOutput = output;
+                segmentPath = path;
+                segmentPoints = 0;
+                spoolSize += output.size();
+            }
+            int size = output.size();
+            writePoint(output, point);
+            spoolSize += output.size() - size;
+            spooledPoints++;
+            segmentPoints++;
+            if (segmentPoints >= chunkSize) {
+                closeSegment();
+            }
+            return true;
+        } catch (IOException e) {
+            logger.warn("Failed to write to spool folder '{}': {}", spoolFolder, e.getMessage());
+            return false;
+        }
+    }
+
+    private void flushSegment() {
+        DataOutputStream output = segmentOutput;
+        if (output != null) {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                logger.warn("Failed to write spool segment '{}': {}", segmentPath, e.getMessage());
+            }
+        }
+    }
+
+    private void closeSegment() {
+        DataOutputStream output = segmentOutput;
+        Path path = segmentPath;
+        if (output == null || path == null) {
+            return;
+        }
+        try {
+            output.close();
+            segments.add(new Segment(path, segmentPoints, output.size()));
+        } catch (IOException e) {
+            logger.warn("Failed to write spool segment '{}': {}", path, e.getMessage());
+            spoolSize -= output.size();
+            spooledPoints -= segmentPoints;
+            dropped += segmentPoints;
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+            }
+        }
+        segmentOutput = null;
+        segmentPath = null;
+        segmentPoints = 0;
+    }
+
+    private void deleteSegment(Segment segment) {
+        spoolSize -= segment.size;
+        spooledPoints -= segment.points;
+        try {
+            Files.deleteIfExists(segment.path);
+        } catch (IOException e) {
+            logger.warn("Failed to delete spool segment '{}': {}", segment.path, e.getMessage());
+        }
+    }
+
+    private List<InfluxPoint> readSegment(Path path) {
+        List<InfluxPoint> points = new ArrayList<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            if (input.readInt() != SEGMENT_MAGIC || input.readInt() != SEGMENT_VERSION) {
+                logger.warn("Ignoring spool segment '{}' with unknown format", path);
+                return points;
+            }
+            while (true) {
+                points.add(readPoint(input));
+            }
+        } catch (EOFException e) {
+            // end of segment, a point written partially before a crash is ignored
+        } catch (IOException e) {
+            logger.warn("Failed to read spool segment '{}': {}", path, e.getMessage());
+        }
+        return points;
+    }
+
+    private static long segmentNumber(Path path) {
+        Matcher matcher = SEGMENT_NAME.matcher(path.getFileName().toString());
+        return matcher.matches() ? Long.parseLong(matcher.group(1)) : -1;
+    }
+
+    private static void writePoint(DataOutputStream output, InfluxPoint point) throws IOException {
+        writeString(output, point.getMeasurementName());
+        output.writeLong(point.getTime().getEpochSecond());
+        output.writeInt(point.getTime().getNano());
+        Object value = point.getValue();
+        if (value instanceof Boolean booleanValue) {
+            output.writeByte(VALUE_BOOLEAN);
+            output.writeBoolean(booleanValue);
+        } else if (value instanceof Integer integerValue) {
+            output.writeByte(VALUE_INTEGER);
+            output.writeInt(integerValue);
+        } else if (value instanceof Long longValue) {
+            output.writeByte(VALUE_LONG);
+            output.writeLong(longValue);
+        } else if (value instanceof Double doubleValue) {
+            output.writeByte(VALUE_DOUBLE);
+            output.writeDouble(doubleValue);
+        } else if (value instanceof Number numberValue) {
+            BigDecimal decimalValue = numberValue instanceof BigDecimal bigDecimal ? bigDecimal
+                    : new BigDecimal(numberValue.toString());
+            byte[] unscaledValue = decimalValue.unscaledValue().toByteArray();
+            output.writeByte(VALUE_DECIMAL);
+            output.writeInt(decimalValue.scale());
+            output.writeInt(unscaledValue.length);
+            output.write(unscaledValue);
+        } else {
+            output.writeByte(VALUE_STRING);
+            writeString(output, String.valueOf(value));
+        }
+        Map<String, String> tags = point.getTags();
+        output.writeInt(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeString(output, tag.getKey());
+            writeString(output, tag.getValue());
+        }
+    }
+
+    private static InfluxPoint readPoint(DataInputStream input) throws IOException {
+        InfluxPoint.Builder builder = InfluxPoint.newBuilder(readString(input))
+                .withTime(Instant.ofEpochSecond(input.readLong(), input.readInt()));
+        byte valueType = input.readByte();
+        switch (valueType) {
+            case VALUE_STRING -> builder.withValue(readString(input));
+            case VALUE_BOOLEAN -> builder.withValue(input.readBoolean());
+            case VALUE_INTEGER -> builder.withValue(input.readInt());
+            case VALUE_LONG -> builder.withValue(input.readLong());
+            case VALUE_DOUBLE -> builder.withValue(input.readDouble());
+            case VALUE_DECIMAL -> {
+                int scale = input.readInt();
+                byte[] unscaledValue = new byte[input.readInt()];
+                input.readFully(unscaledValue);
+                builder.withValue(new BigDecimal(new BigInteger(unscaledValue), scale));
+            }
+            default -> throw new IOException("unknown value type " + valueType);
+        }
+        int tags = input.readInt();
+        for (int i = 0; i < tags; i++) {
+            builder.withTag(readString(input), readString(input));
+        }
+        return builder.build();
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -16,6 +16,7 @@ import static org.influxdb.querybuilder.BuiltQuery.QueryBuilder.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
 import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -25,8 +26,10 @@ import org.influxdb.querybuilder.BuiltQuery;
 import org.influxdb.querybuilder.Select;
 import org.influxdb.querybuilder.Where;
 import org.influxdb.querybuilder.clauses.SimpleClause;
+import org.influxdb.querybuilder.time.DurationLiteral;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.types.State;
+import org.openhab.persistence.influxdb.internal.AggregateFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataService;
@@ -58,9 +61,29 @@ public class InfluxDB1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQu
         Select select = select().column("\"" + COLUMN_VALUE_NAME_V1 + "\"::field")
                 .column("\"" + TAG_ITEM_NAME + "\"::tag")
                 .fromRaw(null, fullQualifiedTableName(retentionPolicy, tableName, hasCriteriaName));
+        addConditions(select.where(), criteria, itemName, tableName);
 
-        Where where = select.where();
+        return applyOrderingAndPageSize(criteria, select);
+    }
+
+    @Override
+    public String createAggregatedQuery(FilterCriteria criteria, String retentionPolicy, AggregateFunction function,
+            Duration interval) {
+        final String itemName = Objects.requireNonNull(criteria.getItemName()); // we checked non-null before
+        final String tableName = getTableName(itemName);
 
+        Select select = select().function(function.getFunctionName(), raw("\"" + COLUMN_VALUE_NAME_V1 + "\""))
+                .as(COLUMN_VALUE_NAME_V1).fromRaw(null, fullQualifiedTableName(retentionPolicy, tableName, true));
+        addConditions(select.where(), criteria, itemName, tableName);
+        long millis = interval.toMillis();
+        Object timeInterval = millis % 1000 == 0 ? time(millis / 1000, DurationLiteral.SECOND)
+                : time(millis, DurationLiteral.MILLISECONDS);
+        select = select.groupBy(timeInterval, TAG_ITEM_NAME).fill("none");
+
+        return applyOrderingAndPageSize(criteria, select);
+    }
+
+    private void addConditions(Where where, FilterCriteria criteria, @Nullable String itemName, String tableName) {
         if (itemName != null && !tableName.equals(itemName)) {
             where.and(BuiltQuery.QueryBuilder.eq(TAG_ITEM_NAME, itemName));
         }
@@ -76,7 +99,9 @@ public class InfluxDB1FilterCriteriaQueryCreatorImpl implements FilterCriteriaQu
             where.and(new SimpleClause(COLUMN_VALUE_NAME_V1,
                     getOperationSymbol(criteria.getOperator(), InfluxDBVersion.V1), stateToObject(filterState)));
         }
+    }
 
+    private String applyOrderingAndPageSize(FilterCriteria criteria, Select select) {
         if (criteria.getOrdering() == FilterCriteria.Ordering.DESCENDING) {
             select = select.orderBy(desc());
         } else if (criteria.getOrdering() == FilterCriteria.Ordering.ASCENDING) {
@@ -17,14 +17,19 @@ import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.COLUMN
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.FIELD_VALUE_NAME;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.TAG_ITEM_NAME;
 
+import java.time.Duration;
 import java.time.Instant;
-import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -37,6 +42,7 @@ import org.influxdb.dto.Pong;
 import org.influxdb.dto.Query;
 import org.influxdb.dto.QueryResult;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.persistence.influxdb.internal.AggregateFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataService;
@@ -57,6 +63,8 @@ import com.influxdb.exceptions.InfluxException;
  */
 @NonNullByDefault
 public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
+    private static final int QUERY_CHUNK_SIZE = 10000;
+
     private final Logger logger = LoggerFactory.getLogger(InfluxDB1RepositoryImpl.class);
     private final InfluxDBConfiguration configuration;
     private final FilterCriteriaQueryCreator queryCreator;
@@ -168,26 +176,73 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public List<InfluxRow> query(FilterCriteria filter, String retentionPolicy) {
+    public boolean query(FilterCriteria filter, String retentionPolicy, Consumer<InfluxRow> consumer) {
+        return executeQuery(filter, queryCreator.createQuery(filter, retentionPolicy), consumer);
+    }
+
+    @Override
+    public boolean queryAggregated(FilterCriteria filter, String retentionPolicy, AggregateFunction function,
+            Duration interval, Consumer<InfluxRow> consumer) {
+        return executeQuery(filter,
+                queryCreator.createAggregatedQuery(filter, retentionPolicy, function, interval), consumer);
+    }
+
+    /**
+     * Execute query with a chunked response and pass the rows of each chunk to the consumer, so the response is not
+     * parsed into one large {@link QueryResult} first. The client processes the chunks on its own thread, so wait for
+     * it to complete.
+     */
+    private boolean executeQuery(FilterCriteria filter, String query, Consumer<InfluxRow> consumer) {
+        final InfluxDB currentClient = client;
+        if (currentClient == null) {
+            logger.warn("Failed to execute query '{}': API not present", filter);
+            return false;
+        }
+        logger.trace("Query {}", query);
+
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<@Nullable Throwable> failure = new AtomicReference<>();
         try {
-            final InfluxDB currentClient = client;
-            if (currentClient != null) {
-                String query = queryCreator.createQuery(filter, retentionPolicy);
-                logger.trace("Query {}", query);
-                Query parsedQuery = new Query(query, configuration.getDatabaseName());
-                List<QueryResult.Result> results = currentClient.query(parsedQuery, TimeUnit.MILLISECONDS).getResults();
-                return convertClientResultToRepository(results);
-            } else {
-                throw new InfluxException("API not present");
-            }
+            Query parsedQuery = new Query(query, configuration.getDatabaseName());
+            currentClient.query(parsedQuery, QUERY_CHUNK_SIZE, (cancellable, result) -> {
+                if (cancelled.get()) {
+                    cancellable.cancel();
+                    return;
+                }
+                try {
+                    convertClientResultToRepository(result.getResults(), consumer);
+                } catch (RuntimeException e) {
+                    cancellable.cancel();
+                    failure.set(e);
+                    completed.countDown();
+                }
+            }, completed::countDown, e -> {
+                failure.set(e);
+                completed.countDown();
+            });
+            completed.await();
         } catch (InfluxException | InfluxDBException e) {
+            failure.set(e);
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof CancellationException) {
+            // the consumer stopped taking rows
+            logger.debug("Cancelled query '{}': {}", filter, e.getMessage());
+            return false;
+        } else if (e != null) {
             logger.warn("Failed to execute query '{}': {}", filter, e.getMessage());
-            return List.of();
+            return false;
         }
+        return true;
     }
 
-    private List<InfluxRow> convertClientResultToRepository(List<QueryResult.Result> results) {
-        List<InfluxRow> rows = new ArrayList<>();
+    private void convertClientResultToRepository(List<QueryResult.Result> results, Consumer<InfluxRow> consumer) {
         for (QueryResult.Result result : results) {
             List<QueryResult.Series> allSeries = result.getSeries();
             if (result.getError() != null) {
@@ -199,7 +254,9 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
             } else {
                 for (QueryResult.Series series : allSeries) {
                     logger.trace("series {}", series);
-                    String defaultItemName = series.getName();
+                    Map<String, String> tags = series.getTags();
+                    String itemTag = tags != null ? tags.get(TAG_ITEM_NAME) : null;
+                    String defaultItemName = itemTag != null ? itemTag : series.getName();
                     List<List<Object>> allValues = series.getValues();
                     if (allValues == null) {
                         logger.debug("query returned no values");
@@ -214,21 +271,23 @@ public class InfluxDB1RepositoryImpl implements InfluxDBRepository {
                                 throw new IllegalStateException("missing column");
                             }
                             for (List<Object> valueObject : allValues) {
-                                Double rawTime = (Double) valueObject.get(timestampColumn);
-                                Instant time = Instant.ofEpochMilli(rawTime.longValue());
+                                // chunked responses contain RFC3339 timestamps instead of epoch values
+                                Object rawTime = valueObject.get(timestampColumn);
+                                Instant time = rawTime instanceof Number number
+                                        ? Instant.ofEpochMilli(number.longValue())
+                                        : Instant.parse((String) rawTime);
                                 Object value = valueObject.get(valueColumn);
                                 String itemName = itemNameColumn == -1 ? defaultItemName
                                         : Objects.requireNonNullElse((String) valueObject.get(itemNameColumn),
                                                 defaultItemName);
                                 logger.trace("adding historic item {}: time {} value {}", itemName, time, value);
-                                rows.add(new InfluxRow(time, itemName, value));
+                                consumer.accept(new InfluxRow(time, itemName, value));
                             }
                         }
                     }
                 }
             }
         }
-        return rows;
     }
 
     @Override
@@ -17,12 +17,16 @@ import static com.influxdb.query.dsl.functions.restriction.Restrictions.tag;
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 import static org.openhab.persistence.influxdb.internal.InfluxDBStateConvertUtils.stateToObject;
 
+import java.time.Duration;
 import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Objects;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.types.State;
+import org.openhab.persistence.influxdb.internal.AggregateFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBMetadataService;
@@ -50,6 +54,31 @@ public class InfluxDB2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQu
 
     @Override
     public String createQuery(FilterCriteria criteria, String retentionPolicy) {
+        Flux flux = createFilterQuery(criteria, retentionPolicy, false);
+        flux = applyOrderingAndPageSize(criteria, flux);
+
+        return flux.toString();
+    }
+
+    @Override
+    public String createAggregatedQuery(FilterCriteria criteria, String retentionPolicy, AggregateFunction function,
+            Duration interval) {
+        Flux flux = createFilterQuery(criteria, retentionPolicy, true);
+        // windows are labeled with their start like the GROUP BY time() windows of InfluxQL
+        flux = flux.aggregateWindow().withEvery(interval.toMillis(), ChronoUnit.MILLIS)
+                .withAggregateFunction(function.getFunctionName()).withTimeSrc(COLUMN_START_NAME_V2)
+                .withCreateEmpty(false);
+        flux = applyOrderingAndPageSize(criteria, flux);
+
+        return flux.toString();
+    }
+
+    /**
+     * Create the query of the values matching the criteria
+     *
+     * @param windowed keep the _start and _stop columns that aggregateWindow needs
+     */
+    private Flux createFilterQuery(FilterCriteria criteria, String retentionPolicy, boolean windowed) {
         Flux flux = Flux.from(retentionPolicy);
 
         RangeFlux range = flux.range();
@@ -69,13 +98,16 @@ public class InfluxDB2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQu
         String name = influxDBMetadataService.getMeasurementNameOrDefault(itemName, itemName);
         String measurementName = configuration.isReplaceUnderscore() ? name.replace('_', '.') : name;
         flux = flux.filter(measurement().equal(measurementName));
+        List<String> columns = new ArrayList<>(
+                List.of(FIELD_MEASUREMENT_NAME, COLUMN_TIME_NAME_V2, COLUMN_VALUE_NAME_V2));
+        if (windowed) {
+            columns.addAll(List.of(COLUMN_START_NAME_V2, COLUMN_STOP_NAME_V2));
+        }
         if (!measurementName.equals(itemName)) {
             flux = flux.filter(tag(TAG_ITEM_NAME).equal(itemName));
-            flux = flux.keep(
-                    new String[] { FIELD_MEASUREMENT_NAME, COLUMN_TIME_NAME_V2, COLUMN_VALUE_NAME_V2, TAG_ITEM_NAME });
-        } else {
-            flux = flux.keep(new String[] { FIELD_MEASUREMENT_NAME, COLUMN_TIME_NAME_V2, COLUMN_VALUE_NAME_V2 });
+            columns.add(TAG_ITEM_NAME);
         }
+        flux = flux.keep(columns.toArray(String[]::new));
 
         State filterState = criteria.getState();
         if (filterState != null && criteria.getOperator() != null) {
@@ -84,10 +116,7 @@ public class InfluxDB2FilterCriteriaQueryCreatorImpl implements FilterCriteriaQu
                             getOperationSymbol(criteria.getOperator(), InfluxDBVersion.V2)));
             flux = flux.filter(restrictions);
         }
-
-        flux = applyOrderingAndPageSize(criteria, flux);
-
-        return flux.toString();
+        return flux;
     }
 
     private Flux applyOrderingAndPageSize(FilterCriteria criteria, Flux flux) {
@@ -14,6 +14,7 @@ package org.openhab.persistence.influxdb.internal.influx2;
 
 import static org.openhab.persistence.influxdb.internal.InfluxDBConstants.*;
 
+import java.time.Duration;
 import java.time.Instant;
 import java.time.OffsetDateTime;
 import java.time.ZonedDateTime;
@@ -23,12 +24,17 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
-import java.util.stream.Stream;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.influxdb.InfluxDBIOException;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.persistence.influxdb.internal.AggregateFunction;
 import org.openhab.persistence.influxdb.internal.FilterCriteriaQueryCreator;
 import org.openhab.persistence.influxdb.internal.InfluxDBConfiguration;
 import org.openhab.persistence.influxdb.internal.InfluxDBConstants;
@@ -48,6 +54,7 @@ import com.influxdb.client.domain.Ready;
 import com.influxdb.client.domain.WritePrecision;
 import com.influxdb.client.write.Point;
 import com.influxdb.exceptions.InfluxException;
+import com.influxdb.query.FluxRecord;
 import com.influxdb.query.FluxTable;
 
 /**
@@ -213,33 +220,79 @@ public class InfluxDB2RepositoryImpl implements InfluxDBRepository {
     }
 
     @Override
-    public List<InfluxRow> query(FilterCriteria filter, String retentionPolicy) {
+    public boolean query(FilterCriteria filter, String retentionPolicy, Consumer<InfluxRow> consumer) {
+        return executeQuery(filter, queryCreator.createQuery(filter, retentionPolicy), consumer);
+    }
+
+    @Override
+    public boolean queryAggregated(FilterCriteria filter, String retentionPolicy, AggregateFunction function,
+            Duration interval, Consumer<InfluxRow> consumer) {
+        return executeQuery(filter,
+                queryCreator.createAggregatedQuery(filter, retentionPolicy, function, interval), consumer);
+    }
+
+    /**
+     * Execute query and pass the records to the consumer while the response is parsed, so the response is not
+     * collected into {@link FluxTable}s first. The client streams the response on its own thread, so wait for it to
+     * complete.
+     */
+    private boolean executeQuery(FilterCriteria filter, String query, Consumer<InfluxRow> consumer) {
+        final QueryApi currentQueryAPI = queryAPI;
+        if (currentQueryAPI == null) {
+            logger.warn("Failed to execute query '{}': API not present", filter);
+            return false;
+        }
+        logger.trace("Query {}", query);
+
+        CountDownLatch completed = new CountDownLatch(1);
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicReference<@Nullable Throwable> failure = new AtomicReference<>();
         try {
-            final QueryApi currentQueryAPI = queryAPI;
-            if (currentQueryAPI != null) {
-                String query = queryCreator.createQuery(filter, retentionPolicy);
-                logger.trace("Query {}", query);
-                List<FluxTable> clientResult = currentQueryAPI.query(query);
-                return clientResult.stream().flatMap(this::mapRawResultToHistoric).toList();
-            } else {
-                throw new InfluxException("API not present");
-            }
+            currentQueryAPI.query(query, (cancellable, record) -> {
+                if (cancelled.get()) {
+                    cancellable.cancel();
+                    return;
+                }
+                try {
+                    consumer.accept(mapRecordToRow(record));
+                } catch (RuntimeException e) {
+                    cancellable.cancel();
+                    failure.set(e);
+                    completed.countDown();
+                }
+            }, e -> {
+                failure.set(e);
+                completed.countDown();
+            }, completed::countDown);
+            completed.await();
         } catch (InfluxException | InfluxDBIOException e) {
+            failure.set(e);
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            return false;
+        }
+
+        Throwable e = failure.get();
+        if (e instanceof CancellationException) {
+            // the consumer stopped taking rows
+            logger.debug("Cancelled query '{}': {}", filter, e.getMessage());
+            return false;
+        } else if (e != null) {
             logger.warn("Failed to execute query '{}': {}", filter, e.getMessage());
-            return List.of();
+            return false;
         }
+        return true;
     }
 
-    private Stream<InfluxRow> mapRawResultToHistoric(FluxTable rawRow) {
-        return rawRow.getRecords().stream().map(r -> {
-            String itemName = (String) r.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
-            if (itemName == null) {
-                itemName = r.getMeasurement();
-            }
-            Object value = r.getValueByKey(COLUMN_VALUE_NAME_V2);
-            Instant time = (Instant) r.getValueByKey(COLUMN_TIME_NAME_V2);
-            return new InfluxRow(time, itemName, value);
-        });
+    private InfluxRow mapRecordToRow(FluxRecord record) {
+        String itemName = (String) record.getValueByKey(InfluxDBConstants.TAG_ITEM_NAME);
+        if (itemName == null) {
+            itemName = record.getMeasurement();
+        }
+        Object value = record.getValueByKey(COLUMN_VALUE_NAME_V2);
+        Instant time = (Instant) record.getValueByKey(COLUMN_TIME_NAME_V2);
+        return new InfluxRow(time, itemName, value);
     }
 
     @Override
@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.influxdb.internal.InfluxDBRepository.InfluxRow;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBHistoricItemIterableTest {
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger producedRows = new AtomicInteger();
+    private final AtomicInteger mappedRows = new AtomicInteger();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void allRowsAreReturnedInOrder() {
+        InfluxDBHistoricItemIterable iterable = new InfluxDBHistoricItemIterable(produce(5000, null), this::map,
+                executor, 10, TIMEOUT);
+
+        List<String> states = new ArrayList<>();
+        iterable.forEach(item -> states.add(item.getState().toString()));
+
+        assertThat(states.size(), is(5000));
+        assertThat(states.get(0), is("0"));
+        assertThat(states.get(4999), is("4999"));
+    }
+
+    @Test
+    public void rowsAreQueuedUpToQueueSize() throws InterruptedException {
+        InfluxDBHistoricItemIterable iterable = new InfluxDBHistoricItemIterable(produce(100, null), this::map,
+                executor, 10, TIMEOUT);
+
+        Iterator<HistoricItem> iterator = iterable.iterator();
+        assertThat(iterator.next().getState().toString(), is("0"));
+        Thread.sleep(200);
+
+        // one row taken, the queue is full and one row waits to be queued
+        assertThat(producedRows.get(), is(lessThanOrEqualTo(12)));
+        assertThat(mappedRows.get(), is(1));
+    }
+
+    @Test
+    public void queryIsCancelledWhenRowsAreNotTaken() throws InterruptedException {
+        AtomicReference<@Nullable RuntimeException> failure = new AtomicReference<>();
+        CountDownLatch completed = new CountDownLatch(1);
+        InfluxDBHistoricItemIterable iterable = new InfluxDBHistoricItemIterable(consumer -> {
+            try {
+                return produce(100, null).execute(consumer);
+            } catch (RuntimeException e) {
+                failure.set(e);
+                return false;
+            } finally {
+                completed.countDown();
+            }
+        }, this::map, executor, 10, Duration.ofMillis(100));
+
+        Iterator<HistoricItem> iterator = iterable.iterator();
+        assertThat(iterator.hasNext(), is(true));
+
+        assertThat(completed.await(5, TimeUnit.SECONDS), is(true));
+        assertThat(failure.get(), is(instanceOf(CancellationException.class)));
+    }
+
+    @Test
+    public void failedQueryEndsIteration() {
+        InfluxDBHistoricItemIterable iterable = new InfluxDBHistoricItemIterable(produce(3, 2), this::map, executor, 10,
+                TIMEOUT);
+
+        List<HistoricItem> items = new ArrayList<>();
+        iterable.forEach(items::add);
+
+        assertThat(items.size(), is(2));
+    }
+
+    @Test
+    public void queryIsExecutedForEachIterator() {
+        InfluxDBHistoricItemIterable iterable = new InfluxDBHistoricItemIterable(produce(3, null), this::map,
+                executor, 10, TIMEOUT);
+
+        iterable.forEach(item -> {
+        });
+        iterable.forEach(item -> {
+        });
+
+        assertThat(producedRows.get(), is(6));
+    }
+
+    /**
+     * Query producing rows with consecutive values, failing after the given number of rows
+     */
+    private InfluxDBHistoricItemIterable.Query produce(int rows, @Nullable Integer failAfter) {
+        return consumer -> {
+            for (int i = 0; i < rows; i++) {
+                if (failAfter != null && i == failAfter) {
+                    return false;
+                }
+                consumer.accept(new InfluxRow(Instant.ofEpochSecond(i), "item", i));
+                producedRows.incrementAndGet();
+            }
+            return true;
+        };
+    }
+
+    private HistoricItem map(InfluxRow row) {
+        mappedRows.incrementAndGet();
+        return new InfluxDBHistoricItem(row.itemName(), new DecimalType(((Integer) row.value()).longValue()),
+                ZonedDateTime.ofInstant(row.time(), ZoneId.systemDefault()));
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.influxdb.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class InfluxDBWriteBufferTest {
+    private @TempDir @NonNullByDefault({}) Path spoolFolder;
+
+    @Test
+    public void chunksAreLimitedAndRepeatedUntilWritten() {
+        InfluxDBWriteBuffer buffer = new InfluxDBWriteBuffer(10, 3, null, 0);
+        for (int i = 0; i < 5; i++) {
+            buffer.add(point(i));
+        }
+
+        List<InfluxPoint> chunk = buffer.nextChunk();
+        assertThat(chunk.size(), is(3));
+        assertThat(buffer.nextChunk(), is(sameInstance(chunk)));
+
+        buffer.written();
+        assertThat(buffer.nextChunk().size(), is(2));
+        buffer.written();
+        assertThat(buffer.nextChunk(), is(empty()));
+
+        InfluxDBWriteBuffer.Statistics statistics = buffer.getStatistics();
+        assertThat(statistics.written(), is(5L));
+        assertThat(statistics.queued(), is(0));
+    }
+
+    @Test
+    public void pointsAreDroppedIfFullWithoutSpool() {
+        InfluxDBWriteBuffer buffer = new InfluxDBWriteBuffer(2, 10, null, 0);
+        assertThat(buffer.add(point(1)), is(true));
+        assertThat(buffer.add(point(2)), is(true));
+        assertThat(buffer.add(point(3)), is(false));
+
+        InfluxDBWriteBuffer.Statistics statistics = buffer.getStatistics();
+        assertThat(statistics.queued(), is(2));
+        assertThat(statistics.dropped(), is(1L));
+    }
+
+    @Test
+    public void overflowIsSpooledAndWrittenFirst() {
+        InfluxDBWriteBuffer buffer = new InfluxDBWriteBuffer(2, 2, spoolFolder, 1024 * 1024);
+        for (int i = 0; i < 6; i++) {
+            buffer.add(point(i));
+        }
+        assertThat(buffer.getStatistics().spilled(), is(4L));
+        assertThat(buffer.getStatistics().spooled(), is(4));
+
+        assertThat(times(buffer.nextChunk()), contains(2L, 3L));
+        buffer.written();
+        assertThat(times(buffer.nextChunk()), contains(4L, 5L));
+        buffer.written();
+        assertThat(times(buffer.nextChunk()), contains(0L, 1L));
+        buffer.written();
+
+        assertThat(buffer.getStatistics().spooled(), is(0));
+        assertThat(spoolFolder.toFile().list(), is(emptyArray()));
+    }
+
+    @Test
+    public void spoolSizeIsLimitedByDroppingOldestSegment() {
+        InfluxDBWriteBuffer buffer = new InfluxDBWriteBuffer(1, 2, spoolFolder, 200);
+        for (int i = 0; i < 20; i++) {
+            buffer.add(point(i));
+        }
+
+        InfluxDBWriteBuffer.Statistics statistics = buffer.getStatistics();
+        assertThat(statistics.dropped(), is(greaterThan(0L)));
+        assertThat(statistics.spooled() + statistics.queued() + statistics.dropped(), is(20L));
+        assertThat(times(buffer.nextChunk()), not(hasItem(1L)));
+    }
+
+    @Test
+    public void closeSpoolsPointsForNextStart() {
+        InfluxDBWriteBuffer buffer = new InfluxDBWriteBuffer(10, 2, spoolFolder, 1024 * 1024);
+        buffer.add(InfluxPoint.newBuilder("measurement").withTime(Instant.ofEpochSecond(100, 42))
+                .withValue(new BigDecimal("12.340")).withTag("item", "number").build());
+        buffer.add(InfluxPoint.newBuilder("measurement").withTime(Instant.ofEpochSecond(101)).withValue("text")
+                .withTag("item", "string").build());
+        buffer.add(InfluxPoint.newBuilder("measurement").withTime(Instant.ofEpochSecond(102)).withValue(1)
+                .withTag("item", "switch").build());
+        buffer.nextChunk();
+        assertThat(buffer.close(), is(0));
+
+        InfluxDBWriteBuffer restarted = new InfluxDBWriteBuffer(10, 2, spoolFolder, 1024 * 1024);
+        assertThat(restarted.getStatistics().spooled(), is(3));
+
+        List<InfluxPoint> chunk = restarted.nextChunk();
+        assertThat(chunk.size(), is(2));
+        assertThat(chunk.get(0).getTime(), is(Instant.ofEpochSecond(100, 42)));
+        assertThat(chunk.get(0).getValue(), is(new BigDecimal("12.340")));
+        assertThat(chunk.get(0).getTags().get("item"), is("number"));
+        assertThat(chunk.get(1).getValue(), is("text"));
+        restarted.written();
+        assertThat(restarted.nextChunk().get(0).getValue(), is(1));
+    }
+
+    private static InfluxPoint point(long time) {
+        return InfluxPoint.newBuilder("measurement").withTime(Instant.ofEpochSecond(time)).withValue(time)
+                .withTag("item", "item").build();
+    }
+
+    private static List<Long> times(List<InfluxPoint> points) {
+        return points.stream().map(point -> point.getTime().getEpochSecond()).toList();
+    }
+}
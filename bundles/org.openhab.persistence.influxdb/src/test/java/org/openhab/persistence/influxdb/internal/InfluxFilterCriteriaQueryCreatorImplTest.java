@@ -16,6 +16,7 @@ import static org.hamcrest.CoreMatchers.equalTo;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.Mockito.when;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.time.format.DateTimeFormatter;
@@ -186,6 +187,55 @@ public class InfluxFilterCriteriaQueryCreatorImplTest {
                 \t|> last()"""));
     }
 
+    @Test
+    public void testAggregatedQuery() {
+        FilterCriteria criteria = createBaseCriteria();
+        criteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        String queryV1 = instanceV1.createAggregatedQuery(criteria, RETENTION_POLICY, AggregateFunction.AVG,
+                Duration.ofMinutes(5));
+        assertThat(queryV1, equalTo(
+                "SELECT mean(\"value\") AS value FROM \"origin\".\"sampleItem\" GROUP BY time(300s),item fill(none) ORDER BY time ASC;"));
+
+        String queryV2 = instanceV2.createAggregatedQuery(criteria, RETENTION_POLICY, AggregateFunction.AVG,
+                Duration.ofMinutes(5));
+        assertThat(queryV2, equalTo("""
+                from(bucket:"origin")
+                \t|> range(start:-100y, stop:100y)
+                \t|> filter(fn: (r) => r["_measurement"] == "sampleItem")
+                \t|> keep(columns:["_measurement", "_time", "_value", "_start", "_stop"])
+                \t|> aggregateWindow(every:300000ms, fn:mean, timeSrc:"_start", createEmpty:false)
+                \t|> sort(desc:false, columns:["_time"])"""));
+    }
+
+    @Test
+    public void testAggregatedQueryWithRangeAndSubSecondInterval() {
+        FilterCriteria criteria = createBaseCriteria();
+        ZonedDateTime now = ZonedDateTime.now();
+        ZonedDateTime tomorrow = now.plus(1, ChronoUnit.DAYS);
+        criteria.setBeginDate(now);
+        criteria.setEndDate(tomorrow);
+
+        String queryV1 = instanceV1.createAggregatedQuery(criteria, RETENTION_POLICY, AggregateFunction.MAX,
+                Duration.ofMillis(1500));
+        String expectedQueryV1 = String.format(
+                "SELECT max(\"value\") AS value FROM \"origin\".\"sampleItem\" WHERE time >= '%s' AND time <= '%s' GROUP BY time(1500ms),item fill(none) ORDER BY time DESC;",
+                now.toInstant(), tomorrow.toInstant());
+        assertThat(queryV1, equalTo(expectedQueryV1));
+
+        String queryV2 = instanceV2.createAggregatedQuery(criteria, RETENTION_POLICY, AggregateFunction.MAX,
+                Duration.ofMillis(1500));
+        String expectedQueryV2 = String.format("""
+                from(bucket:"origin")
+                \t|> range(start:%s, stop:%s)
+                \t|> filter(fn: (r) => r["_measurement"] == "sampleItem")
+                \t|> keep(columns:["_measurement", "_time", "_value", "_start", "_stop"])
+                \t|> aggregateWindow(every:1500ms, fn:max, timeSrc:"_start", createEmpty:false)
+                \t|> sort(desc:true, columns:["_time"])""", INFLUX2_DATE_FORMATTER.format(now.toInstant()),
+                INFLUX2_DATE_FORMATTER.format(tomorrow.toInstant()));
+        assertThat(queryV2, equalTo(expectedQueryV2));
+    }
+
     private FilterCriteria createBaseCriteria() {
         FilterCriteria criteria = new FilterCriteria();
         criteria.setItemName(ITEM_NAME);
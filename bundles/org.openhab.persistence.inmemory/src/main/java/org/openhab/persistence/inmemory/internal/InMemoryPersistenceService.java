@@ -12,8 +12,12 @@
  */
 package org.openhab.persistence.inmemory.internal;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.Instant;
+import java.time.ZoneId;
 import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.Date;
 import java.util.List;
@@ -23,15 +27,24 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.TreeSet;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
 
+import javax.measure.Unit;
+
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.OpenHAB;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigParser;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.ModifiablePersistenceService;
@@ -66,12 +79,29 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
     protected static final String CONFIG_URI = "persistence:inmemory";
     private final String MAX_ENTRIES_CONFIG = "maxEntries";
     private final long MAX_ENTRIES_DEFAULT = 512;
+    private final String PERSISTENT_CONFIG = "persistent";
+    private final String SNAPSHOT_INTERVAL_CONFIG = "snapshotInterval";
+    private final long SNAPSHOT_INTERVAL_DEFAULT = 10;
 
     private final Logger logger = LoggerFactory.getLogger(InMemoryPersistenceService.class);
 
-    private final Map<String, PersistItem> persistMap = new ConcurrentHashMap<>();
+    private final Map<String, ItemDatabase> persistMap = new ConcurrentHashMap<>();
+    private final Path storageFolder;
     private long maxEntries = MAX_ENTRIES_DEFAULT;
 
+    private volatile @Nullable InMemoryStorage storage;
+    private @Nullable ScheduledFuture<?> snapshotJob;
+    // set when values were stored or removed since the last snapshot
+    private final AtomicBoolean snapshotDirty = new AtomicBoolean(false);
+
+    public InMemoryPersistenceService() {
+        this(Path.of(OpenHAB.getUserDataFolder(), "persistence", SERVICE_ID));
+    }
+
+    InMemoryPersistenceService(Path storageFolder) {
+        this.storageFolder = storageFolder;
+    }
+
     @Activate
     public void activate(Map<String, Object> config) {
         modified(config);
@@ -79,24 +109,47 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
     }
 
     @Modified
-    public void modified(Map<String, Object> config) {
+    public synchronized void modified(Map<String, Object> config) {
         maxEntries = ConfigParser.valueAsOrElse(config.get(MAX_ENTRIES_CONFIG), Long.class, MAX_ENTRIES_DEFAULT);
-
-        persistMap.values().forEach(persistItem -> {
+        boolean persistent = ConfigParser.valueAsOrElse(config.get(PERSISTENT_CONFIG), Boolean.class, false);
+        long snapshotInterval = Math.max(1, ConfigParser.valueAsOrElse(config.get(SNAPSHOT_INTERVAL_CONFIG),
+                Long.class, SNAPSHOT_INTERVAL_DEFAULT));
+
+        persistMap.values().forEach(itemDatabase -> {
+            if (itemDatabase instanceof NumericPersistItem numericPersistItem) {
+                numericPersistItem.database().trim(maxEntries);
+                return;
+            }
+            PersistItem persistItem = (PersistItem) itemDatabase;
             Lock lock = persistItem.lock();
             lock.lock();
             try {
-                while (persistItem.database().size() > maxEntries) {
+                while (maxEntries > 0 && persistItem.database().size() > maxEntries) {
                     persistItem.database().pollFirst();
                 }
             } finally {
                 lock.unlock();
             }
         });
+
+        stopSnapshotJob();
+        if (persistent) {
+            if (storage == null) {
+                openStorage();
+            }
+            if (storage != null) {
+                snapshotJob = ThreadPoolManager.getScheduledPool("org.openhab." + SERVICE_ID).scheduleWithFixedDelay(
+                        this::writeSnapshotIfDirty, snapshotInterval, snapshotInterval, TimeUnit.MINUTES);
+            }
+        } else {
+            closeStorage();
+        }
     }
 
     @Deactivate
-    public void deactivate() {
+    public synchronized void deactivate() {
+        stopSnapshotJob();
+        closeStorage();
         logger.debug("InMemory persistence service deactivated.");
     }
 
@@ -143,19 +196,31 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
             return false;
         }
 
-        PersistItem persistItem = persistMap.get(itemName);
-        if (persistItem == null) {
+        ItemDatabase itemDatabase = persistMap.get(itemName);
+        while (itemDatabase instanceof NumericPersistItem numericPersistItem) {
+            if (numericPersistItem.database().removeIf((timestamp, value) -> applies(toZonedDateTime(timestamp),
+                    toState(numericPersistItem, value), filter))) {
+                snapshotDirty.set(true);
+                return true;
+            }
+            // converted to a generic database concurrently
+            itemDatabase = persistMap.get(itemName);
+        }
+        if (!(itemDatabase instanceof PersistItem persistItem)) {
             return false;
         }
 
         Lock lock = persistItem.lock();
         lock.lock();
         try {
-            List<PersistEntry> toRemove = persistItem.database().stream().filter(e -> applies(e, filter)).toList();
+            List<PersistEntry> toRemove = persistItem.database().stream()
+                    .filter(e -> applies(e.timestamp(), e.state(), filter)).toList();
             toRemove.forEach(persistItem.database()::remove);
         } finally {
             lock.unlock();
         }
+        // removed values are not contained in the log, so the next snapshot has to be written
+        snapshotDirty.set(true);
         return true;
     }
 
@@ -166,8 +231,11 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
             return List.of();
         }
 
-        PersistItem persistItem = persistMap.get(itemName);
-        if (persistItem == null) {
+        ItemDatabase itemDatabase = persistMap.get(itemName);
+        if (itemDatabase instanceof NumericPersistItem numericPersistItem) {
+            return queryNumeric(itemName, numericPersistItem, filter);
+        }
+        if (!(itemDatabase instanceof PersistItem persistItem)) {
             return List.of();
         }
 
@@ -179,8 +247,8 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
                 : Comparator.comparing(PersistEntry::timestamp).reversed();
 
         try {
-            return persistItem.database().stream().filter(e -> applies(e, filter)).sorted(comparator)
-                    .map(e -> toHistoricItem(itemName, e)).toList();
+            return persistItem.database().stream().filter(e -> applies(e.timestamp(), e.state(), filter))
+                    .sorted(comparator).map(e -> toHistoricItem(itemName, e)).toList();
         } finally {
             lock.unlock();
         }
@@ -192,51 +260,70 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
         return List.of();
     }
 
-    private PersistenceItemInfo toItemInfo(Map.Entry<String, PersistItem> itemEntry) {
-        Lock lock = itemEntry.getValue().lock();
+    private PersistenceItemInfo toItemInfo(Map.Entry<String, ItemDatabase> itemEntry) {
+        String name = itemEntry.getKey();
+        if (itemEntry.getValue() instanceof NumericPersistItem numericPersistItem) {
+            NumericRingBuffer.Bounds bounds = numericPersistItem.database().bounds();
+            if (bounds == null) {
+                return toItemInfo(name, 0, null, null);
+            }
+            return toItemInfo(name, bounds.count(), Instant.ofEpochMilli(bounds.first()),
+                    Instant.ofEpochMilli(bounds.last()));
+        }
+
+        PersistItem persistItem = (PersistItem) itemEntry.getValue();
+        Lock lock = persistItem.lock();
         lock.lock();
         try {
-            String name = itemEntry.getKey();
-            Integer count = itemEntry.getValue().database().size();
-            Instant earliest = itemEntry.getValue().database().first().timestamp().toInstant();
-            Instant latest = itemEntry.getValue().database.last().timestamp.toInstant();
-            return new PersistenceItemInfo() {
+            Integer count = persistItem.database().size();
+            Instant earliest = persistItem.database().first().timestamp().toInstant();
+            Instant latest = persistItem.database().last().timestamp().toInstant();
+            return toItemInfo(name, count, earliest, latest);
+        } finally {
+            lock.unlock();
+        }
+    }
 
-                @Override
-                public String getName() {
-                    return name;
-                }
+    private PersistenceItemInfo toItemInfo(String name, Integer count, @Nullable Instant earliest,
+            @Nullable Instant latest) {
+        return new PersistenceItemInfo() {
 
-                @Override
-                public @Nullable Integer getCount() {
-                    return count;
-                }
+            @Override
+            public String getName() {
+                return name;
+            }
 
-                @Override
-                public @Nullable Date getEarliest() {
-                    return Date.from(earliest);
-                }
+            @Override
+            public @Nullable Integer getCount() {
+                return count;
+            }
 
-                @Override
-                public @Nullable Date getLatest() {
-                    return Date.from(latest);
-                }
-            };
-        } finally {
-            lock.unlock();
-        }
+            @Override
+            public @Nullable Date getEarliest() {
+                return earliest != null ? Date.from(earliest) : null;
+            }
+
+            @Override
+            public @Nullable Date getLatest() {
+                return latest != null ? Date.from(latest) : null;
+            }
+        };
     }
 
     private HistoricItem toHistoricItem(String itemName, PersistEntry entry) {
+        return toHistoricItem(itemName, entry.timestamp(), entry.state());
+    }
+
+    private HistoricItem toHistoricItem(String itemName, ZonedDateTime timestamp, State state) {
         return new HistoricItem() {
             @Override
             public ZonedDateTime getTimestamp() {
-                return entry.timestamp();
+                return timestamp;
             }
 
             @Override
             public State getState() {
-                return entry.state();
+                return state;
             }
 
             @Override
@@ -251,16 +338,37 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
             return;
         }
 
-        PersistItem persistItem = Objects.requireNonNull(persistMap.computeIfAbsent(itemName,
-                k -> new PersistItem(new TreeSet<>(Comparator.comparing(PersistEntry::timestamp)),
-                        new ReentrantLock())));
+        putState(itemName, timestamp, state);
+
+        InMemoryStorage storage = this.storage;
+        if (storage != null) {
+            storage.append(itemName, timestamp, state);
+            snapshotDirty.set(true);
+        }
+    }
+
+    private void putState(String itemName, ZonedDateTime timestamp, State state) {
+        ItemDatabase itemDatabase = Objects.requireNonNull(persistMap.computeIfAbsent(itemName, k -> create(state)));
+        while (itemDatabase instanceof NumericPersistItem numericPersistItem) {
+            Double value = toNumericValue(numericPersistItem, state);
+            if (value != null) {
+                if (numericPersistItem.database().add(timestamp.toInstant().toEpochMilli(), value, maxEntries)) {
+                    return;
+                }
+            } else {
+                convert(itemName, numericPersistItem);
+            }
+            // converted to a generic database, by this or another thread
+            itemDatabase = Objects.requireNonNull(persistMap.computeIfAbsent(itemName, k -> create(state)));
+        }
 
+        PersistItem persistItem = (PersistItem) itemDatabase;
         Lock lock = persistItem.lock();
         lock.lock();
         try {
             persistItem.database().add(new PersistEntry(timestamp, state));
 
-            while (persistItem.database.size() > maxEntries) {
+            while (maxEntries > 0 && persistItem.database.size() > maxEntries) {
                 persistItem.database().pollFirst();
             }
         } finally {
@@ -268,14 +376,184 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
         }
     }
 
+    private void putNumericValue(String itemName, @Nullable Unit<?> unit, long timestamp, double value) {
+        ItemDatabase itemDatabase = Objects.requireNonNull(persistMap.computeIfAbsent(itemName,
+                k -> new NumericPersistItem(new NumericRingBuffer(maxEntries), unit)));
+        if (itemDatabase instanceof NumericPersistItem numericPersistItem
+                && Objects.equals(unit, numericPersistItem.unit())
+                && numericPersistItem.database().add(timestamp, value, maxEntries)) {
+            return;
+        }
+        // stored in a generic database or with another unit
+        putState(itemName, toZonedDateTime(timestamp),
+                unit != null ? new QuantityType<>(value, unit) : new DecimalType(value));
+    }
+
+    private void openStorage() {
+        InMemoryStorage storage = new InMemoryStorage(storageFolder);
+        long start = System.currentTimeMillis();
+        try {
+            long count = storage.open(new InMemoryStorage.Loader() {
+                @Override
+                public void load(String itemName, ZonedDateTime timestamp, State state) {
+                    putState(itemName, timestamp, state);
+                }
+
+                @Override
+                public void loadNumeric(String itemName, @Nullable Unit<?> unit, long timestamp, double value) {
+                    putNumericValue(itemName, unit, timestamp, value);
+                }
+            });
+            logger.debug("Restored {} values from '{}' in {} ms", count, storageFolder,
+                    System.currentTimeMillis() - start);
+            this.storage = storage;
+        } catch (IOException e) {
+            logger.warn("Failed to open storage in '{}', values will not be persisted: {}", storageFolder,
+                    e.getMessage());
+            storage.close();
+        }
+    }
+
+    private void closeStorage() {
+        InMemoryStorage storage = this.storage;
+        if (storage != null) {
+            writeSnapshot();
+            storage.close();
+            this.storage = null;
+        }
+    }
+
+    private void stopSnapshotJob() {
+        ScheduledFuture<?> snapshotJob = this.snapshotJob;
+        if (snapshotJob != null) {
+            snapshotJob.cancel(false);
+            this.snapshotJob = null;
+        }
+    }
+
+    private void writeSnapshotIfDirty() {
+        if (snapshotDirty.get()) {
+            writeSnapshot();
+        }
+    }
+
+    private void writeSnapshot() {
+        InMemoryStorage storage = this.storage;
+        if (storage == null) {
+            return;
+        }
+        snapshotDirty.set(false);
+        long start = System.currentTimeMillis();
+        try {
+            storage.writeSnapshot(writer -> {
+                for (Map.Entry<String, ItemDatabase> itemEntry : persistMap.entrySet()) {
+                    if (itemEntry.getValue() instanceof NumericPersistItem numericPersistItem) {
+                        NumericRingBuffer.Range range = numericPersistItem.database().range(Long.MIN_VALUE,
+                                Long.MAX_VALUE);
+                        writer.writeNumericItem(itemEntry.getKey(), numericPersistItem.unit(), range.timestamps(),
+                                range.values());
+                    } else if (itemEntry.getValue() instanceof PersistItem persistItem) {
+                        List<InMemoryStorage.Entry> entries;
+                        Lock lock = persistItem.lock();
+                        lock.lock();
+                        try {
+                            entries = persistItem.database().stream()
+                                    .map(e -> new InMemoryStorage.Entry(e.timestamp(), e.state())).toList();
+                        } finally {
+                            lock.unlock();
+                        }
+                        writer.writeItem(itemEntry.getKey(), entries);
+                    }
+                }
+            });
+            logger.debug("Wrote snapshot to '{}' in {} ms", storageFolder, System.currentTimeMillis() - start);
+        } catch (IOException e) {
+            snapshotDirty.set(true);
+            logger.warn("Failed to write snapshot to '{}': {}", storageFolder, e.getMessage());
+        }
+    }
+
+    private Iterable<HistoricItem> queryNumeric(String itemName, NumericPersistItem numericPersistItem,
+            FilterCriteria filter) {
+        ZonedDateTime beginDate = filter.getBeginDate();
+        ZonedDateTime endDate = filter.getEndDate();
+        NumericRingBuffer.Range range = numericPersistItem.database().range(
+                beginDate != null ? beginDate.toInstant().toEpochMilli() : Long.MIN_VALUE,
+                endDate != null ? endDate.toInstant().toEpochMilli() : Long.MAX_VALUE);
+
+        boolean ascending = filter.getOrdering() == FilterCriteria.Ordering.ASCENDING;
+        List<HistoricItem> historicItems = new ArrayList<>(range.size());
+        for (int i = 0; i < range.size(); i++) {
+            int index = ascending ? i : range.size() - 1 - i;
+            ZonedDateTime timestamp = toZonedDateTime(range.timestamps()[index]);
+            State state = toState(numericPersistItem, range.values()[index]);
+            if (filter.getState() == null || applies(timestamp, state, filter)) {
+                historicItems.add(toHistoricItem(itemName, timestamp, state));
+            }
+        }
+        return historicItems;
+    }
+
+    /**
+     * Creates the database for an item. Plain decimal and quantity states are stored in a {@link NumericRingBuffer},
+     * all other states in a generic database.
+     */
+    private ItemDatabase create(State state) {
+        if (state.getClass() == DecimalType.class) {
+            return new NumericPersistItem(new NumericRingBuffer(maxEntries), null);
+        } else if (state instanceof QuantityType<?> quantityState) {
+            return new NumericPersistItem(new NumericRingBuffer(maxEntries), quantityState.getUnit());
+        }
+        return new PersistItem(new TreeSet<>(Comparator.comparing(PersistEntry::timestamp)), new ReentrantLock());
+    }
+
+    /**
+     * Replaces a numeric database by a generic database with the same entries, used when a state can not be stored
+     * in the numeric database, e.g. because of a different type or unit.
+     */
+    private void convert(String itemName, NumericPersistItem numericPersistItem) {
+        NumericRingBuffer.Range range = numericPersistItem.database().close();
+        if (range == null) {
+            // already converted by another thread
+            return;
+        }
+        logger.debug("Converting numeric database of item '{}' with {} entries to generic database", itemName,
+                range.size());
+        TreeSet<PersistEntry> database = new TreeSet<>(Comparator.comparing(PersistEntry::timestamp));
+        for (int i = 0; i < range.size(); i++) {
+            database.add(new PersistEntry(toZonedDateTime(range.timestamps()[i]),
+                    toState(numericPersistItem, range.values()[i])));
+        }
+        persistMap.replace(itemName, numericPersistItem, new PersistItem(database, new ReentrantLock()));
+    }
+
+    private @Nullable Double toNumericValue(NumericPersistItem numericPersistItem, State state) {
+        Unit<?> unit = numericPersistItem.unit();
+        if (unit == null) {
+            return state.getClass() == DecimalType.class ? ((DecimalType) state).doubleValue() : null;
+        } else if (state instanceof QuantityType<?> quantityState && unit.equals(quantityState.getUnit())) {
+            return quantityState.doubleValue();
+        }
+        return null;
+    }
+
+    private State toState(NumericPersistItem numericPersistItem, double value) {
+        Unit<?> unit = numericPersistItem.unit();
+        return unit != null ? new QuantityType<>(value, unit) : new DecimalType(value);
+    }
+
+    private ZonedDateTime toZonedDateTime(long timestamp) {
+        return ZonedDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+    }
+
     @SuppressWarnings({ "rawType", "unchecked" })
-    private boolean applies(PersistEntry entry, FilterCriteria filter) {
+    private boolean applies(ZonedDateTime timestamp, State state, FilterCriteria filter) {
         ZonedDateTime beginDate = filter.getBeginDate();
-        if (beginDate != null && entry.timestamp().isBefore(beginDate)) {
+        if (beginDate != null && timestamp.isBefore(beginDate)) {
             return false;
         }
         ZonedDateTime endDate = filter.getEndDate();
-        if (endDate != null && entry.timestamp().isAfter(endDate)) {
+        if (endDate != null && timestamp.isAfter(endDate)) {
             return false;
         }
 
@@ -287,14 +565,14 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
         }
 
         if (operator == FilterCriteria.Operator.EQ) {
-            return entry.state().equals(refState);
+            return state.equals(refState);
         }
 
         if (operator == FilterCriteria.Operator.NEQ) {
-            return !entry.state().equals(refState);
+            return !state.equals(refState);
         }
 
-        if (entry.state() instanceof Comparable comparableState && entry.state.getClass().equals(refState.getClass())) {
+        if (state instanceof Comparable comparableState && state.getClass().equals(refState.getClass())) {
             if (operator == FilterCriteria.Operator.GT) {
                 return comparableState.compareTo(refState) > 0;
             }
@@ -316,6 +594,12 @@ public class InMemoryPersistenceService implements ModifiablePersistenceService
     private record PersistEntry(ZonedDateTime timestamp, State state) {
     }
 
-    private record PersistItem(TreeSet<PersistEntry> database, Lock lock) {
+    private sealed interface ItemDatabase permits PersistItem, NumericPersistItem {
+    }
+
+    private record PersistItem(TreeSet<PersistEntry> database, Lock lock) implements ItemDatabase {
+    }
+
+    private record NumericPersistItem(NumericRingBuffer database, @Nullable Unit<?> unit) implements ItemDatabase {
     }
 }
@@ -0,0 +1,481 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.inmemory.internal;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import javax.measure.Unit;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.openhab.core.types.util.UnitUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The {@link InMemoryStorage} makes the values of the {@link InMemoryPersistenceService} survive restarts.
+ *
+ * Every stored value is appended to a memory-mapped log file as a length-prefixed binary record. Periodically a
+ * compact snapshot of all values is written and the logs covered by it are deleted. Each log file has a generation
+ * number, the snapshot contains all values of the logs with a lower generation. On startup the snapshot is loaded
+ * and the remaining logs are replayed.
+ *
+ * Records are aligned to four bytes. A record starts with the length of its (padded) payload, which is written after
+ * the payload, so an incomplete record reads as the end of the log. A negative length marks unused space at the end
+ * of a mapped region, which has to be skipped.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class InMemoryStorage {
+    static final int REGION_SIZE = 4 * 1024 * 1024;
+
+    private static final int MAGIC = 0x4f48494d;
+    private static final int VERSION = 1;
+    private static final String SNAPSHOT_FILE = "snapshot.bin";
+    private static final String LOG_FILE_PREFIX = "log-";
+    private static final String LOG_FILE_SUFFIX = ".bin";
+
+    private static final byte KIND_DECIMAL = 0;
+    private static final byte KIND_QUANTITY = 1;
+    private static final byte KIND_STATE = 2;
+
+    private static final byte ITEM_END = 0;
+    private static final byte ITEM_GENERIC = 1;
+    private static final byte ITEM_NUMERIC = 2;
+
+    private final Logger logger = LoggerFactory.getLogger(InMemoryStorage.class);
+
+    private final Path folder;
+    private final Object snapshotLock = new Object();
+
+    // used for decoding only
+    private final Map<String, Unit<?>> units = new HashMap<>();
+    private final Map<String, Class<? extends State>> stateTypes = new HashMap<>();
+
+    // guarded by this
+    private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream();
+    private final DataOutputStream recordOutput = new DataOutputStream(recordBytes);
+    private long generation = 0;
+    private @Nullable FileChannel logChannel;
+    private @Nullable MappedByteBuffer logBuffer;
+    private long mappedEnd = 0;
+
+    /**
+     * Receives the values read from the snapshot and the logs.
+     */
+    interface Loader {
+        void load(String itemName, ZonedDateTime timestamp, State state);
+
+        void loadNumeric(String itemName, @Nullable Unit<?> unit, long timestamp, double value);
+    }
+
+    /**
+     * Provides the values of all items for a snapshot.
+     */
+    @FunctionalInterface
+    interface SnapshotSource {
+        void write(SnapshotWriter writer) throws IOException;
+    }
+
+    interface SnapshotWriter {
+        void writeItem(String itemName, List<Entry> entries) throws IOException;
+
+        void writeNumericItem(String itemName, @Nullable Unit<?> unit, long[] timestamps, double[] values)
+                throws IOException;
+    }
+
+    record Entry(ZonedDateTime timestamp, State state) {
+    }
+
+    InMemoryStorage(Path folder) {
+        this.folder = folder;
+    }
+
+    /**
+     * Loads the snapshot, replays the logs written after it and starts a new log.
+     *
+     * @param loader receives the values
+     * @return the number of values read
+     * @throws IOException if the storage folder or the new log can not be created
+     */
+    synchronized long open(Loader loader) throws IOException {
+        Files.createDirectories(folder);
+        long count = 0;
+        long snapshotGeneration = 0;
+        Path snapshot = folder.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshot)))) {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION) {
+                    throw new IOException("unknown format");
+                }
+                snapshotGeneration = in.readLong();
+                count += readSnapshot(in, loader);
+            } catch (IOException e) {
+                logger.warn("Failed to read snapshot '{}', values may be lost: {}", snapshot, e.getMessage());
+            }
+        }
+
+        long lastGeneration = snapshotGeneration - 1;
+        for (long logGeneration : listLogGenerations()) {
+            Path log = logFile(logGeneration);
+            if (logGeneration < snapshotGeneration) {
+                // already contained in the snapshot, deleting may have failed before
+                deleteLog(log);
+                continue;
+            }
+            count += replayLog(log, loader);
+            lastGeneration = logGeneration;
+        }
+
+        generation = Math.max(snapshotGeneration, lastGeneration + 1);
+        openLog();
+        return count;
+    }
+
+    /**
+     * Appends a value to the log.
+     *
+     * @param itemName the name of the item
+     * @param timestamp the timestamp of the value
+     * @param state the value
+     */
+    synchronized void append(String itemName, ZonedDateTime timestamp, State state) {
+        FileChannel logChannel = this.logChannel;
+        if (logChannel == null) {
+            return;
+        }
+        try {
+            recordBytes.reset();
+            writeString(recordOutput, itemName);
+            writeEntry(recordOutput, timestamp, state);
+            while (recordBytes.size() % 4 != 0) {
+                recordOutput.writeByte(0);
+            }
+            int length = recordBytes.size();
+
+            MappedByteBuffer logBuffer = this.logBuffer;
+            if (logBuffer == null || logBuffer.remaining() < length + 4) {
+                if (logBuffer != null && logBuffer.remaining() > 0) {
+                    logBuffer.putInt(-logBuffer.remaining());
+                }
+                long size = ((length + 4L + REGION_SIZE - 1) / REGION_SIZE) * REGION_SIZE;
+                logBuffer = logChannel.map(FileChannel.MapMode.READ_WRITE, mappedEnd, size);
+                mappedEnd += size;
+                this.logBuffer = logBuffer;
+            }
+            int position = logBuffer.position();
+            logBuffer.position(position + 4);
+            logBuffer.put(recordBytes.toByteArray());
+            logBuffer.putInt(position, length);
+        } catch (IOException e) {
+            logger.warn("Failed to append value of item '{}' to log: {}", itemName, e.getMessage());
+        }
+    }
+
+    /**
+     * Writes a snapshot of all values and deletes the logs contained in it. Values stored while the snapshot is
+     * written are appended to a new log, so no value is lost.
+     *
+     * @param source provides the values of all items
+     * @throws IOException if the snapshot can not be written
+     */
+    void writeSnapshot(SnapshotSource source) throws IOException {
+        synchronized (snapshotLock) {
+            long snapshotGeneration;
+            synchronized (this) {
+                if (logChannel == null) {
+                    return;
+                }
+                closeLog();
+                generation++;
+                openLog();
+                snapshotGeneration = generation;
+            }
+
+            Path snapshot = folder.resolve(SNAPSHOT_FILE);
+            Path temporarySnapshot = folder.resolve(SNAPSHOT_FILE + ".tmp");
+            try (FileChannel channel = FileChannel.open(temporarySnapshot, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                DataOutputStream out = new DataOutputStream(
+                        new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024));
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(snapshotGeneration);
+                source.write(new SnapshotWriter() {
+                    @Override
+                    public void writeItem(String itemName, List<Entry> entries) throws IOException {
+                        out.writeByte(ITEM_GENERIC);
+                        writeString(out, itemName);
+                        out.writeInt(entries.size());
+                        for (Entry entry : entries) {
+                            writeEntry(out, entry.timestamp(), entry.state());
+                        }
+                    }
+
+                    @Override
+                    public void writeNumericItem(String itemName, @Nullable Unit<?> unit, long[] timestamps,
+                            double[] values) throws IOException {
+                        out.writeByte(ITEM_NUMERIC);
+                        writeString(out, itemName);
+                        writeString(out, unit != null ? unit.toString() : "");
+                        out.writeInt(timestamps.length);
+                        for (int i = 0; i < timestamps.length; i++) {
+                            out.writeLong(timestamps[i]);
+                            out.writeDouble(values[i]);
+                        }
+                    }
+                });
+                out.writeByte(ITEM_END);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temporarySnapshot, snapshot, StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+
+            for (long logGeneration : listLogGenerations()) {
+                if (logGeneration < snapshotGeneration) {
+                    deleteLog(logFile(logGeneration));
+                }
+            }
+        }
+    }
+
+    /**
+     * Flushes and closes the current log.
+     */
+    synchronized void close() {
+        closeLog();
+    }
+
+    private long readSnapshot(DataInputStream in, Loader loader) throws IOException {
+        long count = 0;
+        byte itemType;
+        while ((itemType = in.readByte()) != ITEM_END) {
+            String itemName = readString(in);
+            if (itemType == ITEM_NUMERIC) {
+                String unitString = readString(in);
+                Unit<?> unit = unitString.isEmpty() ? null : parseUnit(unitString);
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    long timestamp = in.readLong();
+                    double value = in.readDouble();
+                    if (unitString.isEmpty() || unit != null) {
+                        loader.loadNumeric(itemName, unit, timestamp, value);
+                    }
+                }
+                count += size;
+            } else if (itemType == ITEM_GENERIC) {
+                int size = in.readInt();
+                for (int i = 0; i < size; i++) {
+                    Entry entry = readEntry(in);
+                    if (entry != null) {
+                        loader.load(itemName, entry.timestamp(), entry.state());
+                    }
+                }
+                count += size;
+            } else {
+                throw new IOException("unknown item type " + itemType);
+            }
+        }
+        return count;
+    }
+
+    private long replayLog(Path log, Loader loader) {
+        long count = 0;
+        long position = 0;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(log)))) {
+            while (true) {
+                int length = in.readInt();
+                position += 4;
+                if (length == 0) {
+                    break;
+                } else if (length < 0) {
+                    // unused space at the end of a mapped region
+                    in.skipNBytes(-length - 4L);
+                    position += -length - 4L;
+                    continue;
+                }
+                byte[] record = in.readNBytes(length);
+                if (record.length < length) {
+                    break;
+                }
+                position += length;
+                DataInputStream recordInput = new DataInputStream(new ByteArrayInputStream(record));
+                String itemName = readString(recordInput);
+                Entry entry = readEntry(recordInput);
+                if (entry != null) {
+                    loader.load(itemName, entry.timestamp(), entry.state());
+                    count++;
+                }
+            }
+        } catch (EOFException e) {
+            // end of log
+        } catch (IOException e) {
+            logger.warn("Failed to replay log '{}' after {} bytes, values may be lost: {}", log, position,
+                    e.getMessage());
+        }
+        return count;
+    }
+
+    private void writeEntry(DataOutput out, ZonedDateTime timestamp, State state) throws IOException {
+        Instant instant = timestamp.toInstant();
+        out.writeLong(instant.getEpochSecond());
+        out.writeInt(instant.getNano());
+        if (state.getClass() == DecimalType.class) {
+            out.writeByte(KIND_DECIMAL);
+            out.writeDouble(((DecimalType) state).doubleValue());
+        } else if (state instanceof QuantityType<?> quantityState) {
+            out.writeByte(KIND_QUANTITY);
+            out.writeDouble(quantityState.doubleValue());
+            writeString(out, quantityState.getUnit().toString());
+        } else {
+            out.writeByte(KIND_STATE);
+            writeString(out, state.getClass().getName());
+            writeString(out, state.toFullString());
+        }
+    }
+
+    private @Nullable Entry readEntry(DataInput in) throws IOException {
+        ZonedDateTime timestamp = ZonedDateTime.ofInstant(Instant.ofEpochSecond(in.readLong(), in.readInt()),
+                ZoneId.systemDefault());
+        byte kind = in.readByte();
+        State state;
+        if (kind == KIND_DECIMAL) {
+            state = new DecimalType(in.readDouble());
+        } else if (kind == KIND_QUANTITY) {
+            double value = in.readDouble();
+            Unit<?> unit = parseUnit(readString(in));
+            state = unit != null ? new QuantityType<>(value, unit) : null;
+        } else if (kind == KIND_STATE) {
+            state = parseState(readString(in), readString(in));
+        } else {
+            throw new IOException("unknown value kind " + kind);
+        }
+        return state != null ? new Entry(timestamp, state) : null;
+    }
+
+    private @Nullable Unit<?> parseUnit(String unitString) {
+        Unit<?> unit = units.get(unitString);
+        if (unit == null) {
+            unit = UnitUtils.parseUnit(unitString);
+            if (unit == null) {
+                logger.debug("Skipping value with unknown unit '{}'", unitString);
+                return null;
+            }
+            units.put(unitString, unit);
+        }
+        return unit;
+    }
+
+    @SuppressWarnings("unchecked")
+    private @Nullable State parseState(String typeName, String value) {
+        try {
+            Class<? extends State> stateType = stateTypes.get(typeName);
+            if (stateType == null) {
+                stateType = (Class<? extends State>) Class.forName(typeName);
+                stateTypes.put(typeName, stateType);
+            }
+            return TypeParser.parseState(List.of(stateType), value);
+        } catch (ClassNotFoundException e) {
+            logger.debug("Skipping value of unknown type '{}'", typeName);
+            return null;
+        }
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private void openLog() throws IOException {
+        logChannel = FileChannel.open(logFile(generation), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        logBuffer = null;
+        mappedEnd = 0;
+    }
+
+    private void closeLog() {
+        MappedByteBuffer logBuffer = this.logBuffer;
+        if (logBuffer != null) {
+            logBuffer.force();
+        }
+        FileChannel logChannel = this.logChannel;
+        if (logChannel != null) {
+            try {
+                logChannel.close();
+            } catch (IOException e) {
+                logger.debug("Failed to close log: {}", e.getMessage());
+            }
+        }
+        this.logBuffer = null;
+        this.logChannel = null;
+    }
+
+    private Path logFile(long generation) {
+        return folder.resolve(LOG_FILE_PREFIX + generation + LOG_FILE_SUFFIX);
+    }
+
+    private List<Long> listLogGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(folder)) {
+            return files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(LOG_FILE_PREFIX) && name.endsWith(LOG_FILE_SUFFIX))
+                    .map(name -> name.substring(LOG_FILE_PREFIX.length(), name.length() - LOG_FILE_SUFFIX.length()))
+                    .filter(generation -> generation.matches("\\d+")).map(Long::valueOf).sorted().toList();
+        }
+    }
+
+    private void deleteLog(Path log) {
+        try {
+            Files.deleteIfExists(log);
+        } catch (IOException e) {
+            // a memory-mapped file can not be deleted on some platforms before it is unmapped
+            logger.debug("Failed to delete log '{}': {}", log, e.getMessage());
+        }
+    }
+}
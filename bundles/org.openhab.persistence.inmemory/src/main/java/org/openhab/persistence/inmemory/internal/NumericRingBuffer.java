@@ -0,0 +1,293 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.inmemory.internal;
+
+import java.util.concurrent.locks.StampedLock;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * The {@link NumericRingBuffer} stores numeric values of a single item in parallel primitive arrays, which are
+ * used as a ring sorted by timestamp (epoch milliseconds).
+ *
+ * Values with increasing timestamps are appended in constant time, other values are inserted at their position.
+ * The capacity grows up to the maximum number of entries, when it is reached the oldest value is removed.
+ * Writers are serialized by a {@link StampedLock}, readers use optimistic reads and only fall back to a read lock
+ * if a write happened while reading.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class NumericRingBuffer {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    private final StampedLock lock = new StampedLock();
+
+    private long[] timestamps;
+    private double[] values;
+    private int head = 0;
+    private int size = 0;
+    private boolean closed = false;
+
+    /**
+     * A copy of consecutive entries, sorted by ascending timestamp.
+     */
+    record Range(long[] timestamps, double[] values) {
+        int size() {
+            return timestamps.length;
+        }
+    }
+
+    record Bounds(int count, long first, long last) {
+    }
+
+    @FunctionalInterface
+    interface EntryPredicate {
+        boolean test(long timestamp, double value);
+    }
+
+    NumericRingBuffer(long maxEntries) {
+        int capacity = maxEntries > 0 ? (int) Math.min(maxEntries, INITIAL_CAPACITY) : INITIAL_CAPACITY;
+        timestamps = new long[capacity];
+        values = new double[capacity];
+    }
+
+    /**
+     * Adds a value. If a value with the same timestamp exists, the existing value is kept.
+     *
+     * @param timestamp the timestamp in epoch milliseconds
+     * @param value the value
+     * @param maxEntries the maximum number of entries, 0 for no limit
+     * @return false if the buffer was closed and the value was not added
+     */
+    boolean add(long timestamp, double value, long maxEntries) {
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return false;
+            }
+            int position = size == 0 || timestamp > timestamps[physical(size - 1)] ? size : lowerBound(timestamp);
+            if (position < size && timestamps[physical(position)] == timestamp) {
+                return true;
+            }
+            if (size == timestamps.length) {
+                long limit = maxEntries > 0 ? Math.min(maxEntries, MAX_CAPACITY) : MAX_CAPACITY;
+                if (timestamps.length < limit) {
+                    resize((int) Math.min(2L * timestamps.length, limit));
+                } else if (position == 0) {
+                    // older than all values of a full buffer, would be removed immediately
+                    return true;
+                } else {
+                    head = physical(1);
+                    size--;
+                    position--;
+                }
+            }
+            for (int i = size; i > position; i--) {
+                timestamps[physical(i)] = timestamps[physical(i - 1)];
+                values[physical(i)] = values[physical(i - 1)];
+            }
+            timestamps[physical(position)] = timestamp;
+            values[physical(position)] = value;
+            size++;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns a copy of all entries with a timestamp between begin and end (both inclusive).
+     *
+     * @param begin the first timestamp in epoch milliseconds
+     * @param end the last timestamp in epoch milliseconds
+     * @return the entries, sorted by ascending timestamp
+     */
+    Range range(long begin, long end) {
+        long stamp = lock.tryOptimisticRead();
+        if (stamp != 0) {
+            try {
+                Range range = readRange(begin, end);
+                if (lock.validate(stamp)) {
+                    return range;
+                }
+            } catch (RuntimeException e) {
+                // inconsistent state caused by a concurrent write, read again with lock
+            }
+        }
+        stamp = lock.readLock();
+        try {
+            return readRange(begin, end);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Removes all entries matching the predicate.
+     *
+     * @param predicate the entries to remove
+     * @return false if the buffer was closed and nothing was removed
+     */
+    boolean removeIf(EntryPredicate predicate) {
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return false;
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                long timestamp = timestamps[physical(i)];
+                double value = values[physical(i)];
+                if (!predicate.test(timestamp, value)) {
+                    timestamps[physical(kept)] = timestamp;
+                    values[physical(kept)] = value;
+                    kept++;
+                }
+            }
+            size = kept;
+            return true;
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Removes the oldest entries until the buffer holds at most the given number of entries and releases
+     * capacity which is no longer needed.
+     *
+     * @param maxEntries the maximum number of entries, 0 for no limit
+     */
+    void trim(long maxEntries) {
+        long stamp = lock.writeLock();
+        try {
+            if (maxEntries <= 0) {
+                return;
+            }
+            if (size > maxEntries) {
+                head = physical(size - (int) maxEntries);
+                size = (int) maxEntries;
+            }
+            if (timestamps.length > maxEntries) {
+                resize(Math.max(size, 1));
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Closes the buffer for further modifications and returns all entries.
+     *
+     * @return the entries or null if the buffer has already been closed
+     */
+    @Nullable
+    Range close() {
+        long stamp = lock.writeLock();
+        try {
+            if (closed) {
+                return null;
+            }
+            closed = true;
+            return readRange(Long.MIN_VALUE, Long.MAX_VALUE);
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Returns the number of entries and the first and last timestamp.
+     *
+     * @return the bounds or null if the buffer is empty
+     */
+    @Nullable
+    Bounds bounds() {
+        long stamp = lock.readLock();
+        try {
+            if (size == 0) {
+                return null;
+            }
+            return new Bounds(size, timestamps[head], timestamps[physical(size - 1)]);
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    int capacity() {
+        long stamp = lock.readLock();
+        try {
+            return timestamps.length;
+        } finally {
+            lock.unlockRead(stamp);
+        }
+    }
+
+    private Range readRange(long begin, long end) {
+        long[] timestamps = this.timestamps;
+        double[] values = this.values;
+        int head = this.head;
+        int size = this.size;
+        int capacity = timestamps.length;
+
+        int from = lowerBound(timestamps, head, size, begin);
+        int to = end == Long.MAX_VALUE ? size : lowerBound(timestamps, head, size, end + 1);
+        int count = Math.max(0, to - from);
+        long[] rangeTimestamps = new long[count];
+        double[] rangeValues = new double[count];
+        for (int i = 0; i < count; i++) {
+            int index = (head + from + i) % capacity;
+            rangeTimestamps[i] = timestamps[index];
+            rangeValues[i] = values[index];
+        }
+        return new Range(rangeTimestamps, rangeValues);
+    }
+
+    private int lowerBound(long timestamp) {
+        return lowerBound(timestamps, head, size, timestamp);
+    }
+
+    /**
+     * Returns the position of the first entry with a timestamp not before the given timestamp.
+     */
+    private static int lowerBound(long[] timestamps, int head, int size, long timestamp) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (timestamps[(head + middle) % timestamps.length] < timestamp) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void resize(int capacity) {
+        long[] newTimestamps = new long[capacity];
+        double[] newValues = new double[capacity];
+        for (int i = 0; i < size; i++) {
+            newTimestamps[i] = timestamps[physical(i)];
+            newValues[i] = values[physical(i)];
+        }
+        timestamps = newTimestamps;
+        values = newValues;
+        head = 0;
+    }
+
+    private int physical(int position) {
+        return (head + position) % timestamps.length;
+    }
+}
@@ -16,17 +16,20 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
 import static org.mockito.Mockito.when;
 
+import java.nio.file.Path;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.TreeSet;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
@@ -35,7 +38,9 @@ import org.openhab.core.items.GenericItem;
 import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.HSBType;
 import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
 import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.SIUnits;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.types.State;
@@ -57,6 +62,8 @@ public class InMemoryPersistenceTests {
 
     private @NonNullByDefault({}) FilterCriteria filterCriteria;
 
+    private @NonNullByDefault({}) @TempDir Path storageFolder;
+
     @BeforeEach
     public void setup() {
         when(item.getName()).thenReturn(ITEM_NAME);
@@ -175,6 +182,140 @@ public class InMemoryPersistenceTests {
         assertThat(resultSet, contains(3, 2, 1));
     }
 
+    @Test
+    public void storeQuantity() {
+        State state = new QuantityType<>(21.5, SIUnits.CELSIUS);
+        ZonedDateTime expectedTime = ZonedDateTime.of(2022, 05, 31, 10, 0, 0, 0, ZoneId.systemDefault());
+        service.store(item, expectedTime, state);
+
+        TreeSet<HistoricItem> storedStates = new TreeSet<>(Comparator.comparing(HistoricItem::getTimestamp));
+        service.query(filterCriteria).forEach(storedStates::add);
+
+        assertThat(storedStates, hasSize(1));
+        assertThat(storedStates.first().getState(), is(state));
+        assertThat(storedStates.first().getTimestamp(), is(expectedTime));
+    }
+
+    @Test
+    public void storeDifferentTypesKeepsAllValues() {
+        ZonedDateTime start = ZonedDateTime.of(2020, 12, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+        service.store(item, start, new DecimalType(1));
+        service.store(item, start.plusHours(1), new QuantityType<>(2, SIUnits.CELSIUS));
+        service.store(item, start.plusHours(2), new StringType("3"));
+
+        filterCriteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        List<State> resultSet = new ArrayList<>();
+        service.query(filterCriteria).forEach(h -> resultSet.add(h.getState()));
+
+        assertThat(resultSet,
+                contains(new DecimalType(1), new QuantityType<>(2, SIUnits.CELSIUS), new StringType("3")));
+    }
+
+    @Test
+    public void storeRemovesOldestValuesWhenMaxEntriesIsReached() {
+        service.activate(Map.of("maxEntries", 3L));
+        ZonedDateTime start = ZonedDateTime.of(2020, 12, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+        for (int i = 1; i <= 5; i++) {
+            service.store(item, start.plusHours(i), new DecimalType(i));
+        }
+        // older than all stored values
+        service.store(item, start, new DecimalType(0));
+
+        filterCriteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        List<Integer> resultSet = new ArrayList<>();
+        service.query(filterCriteria).forEach(h -> resultSet.add(((DecimalType) h.getState()).intValue()));
+
+        assertThat(resultSet, contains(3, 4, 5));
+    }
+
+    @Test
+    public void querySupportsStateFilterForNumericValues() {
+        ZonedDateTime start = ZonedDateTime.of(2020, 12, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+        service.store(item, start, new DecimalType(1));
+        service.store(item, start.plusHours(1), new DecimalType(2));
+        service.store(item, start.plusHours(2), new DecimalType(3));
+
+        filterCriteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+        filterCriteria.setOperator(FilterCriteria.Operator.GTE);
+        filterCriteria.setState(new DecimalType(2));
+
+        List<Integer> resultSet = new ArrayList<>();
+        service.query(filterCriteria).forEach(h -> resultSet.add(((DecimalType) h.getState()).intValue()));
+
+        assertThat(resultSet, contains(2, 3));
+    }
+
+    @Test
+    public void persistentValuesAreRestoredFromSnapshot() {
+        service = new InMemoryPersistenceService(storageFolder);
+        service.activate(Map.of("persistent", true));
+        ZonedDateTime start = ZonedDateTime.of(2020, 12, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+        service.store(item, start, new DecimalType(1));
+        service.store(item, start.plusHours(1), new QuantityType<>(2, SIUnits.CELSIUS));
+        service.store(item, start.plusHours(2), new StringType("3"));
+        service.deactivate();
+
+        assertRestored(start);
+    }
+
+    @Test
+    public void persistentValuesAreRestoredFromLog() {
+        service = new InMemoryPersistenceService(storageFolder);
+        service.activate(Map.of("persistent", true));
+        ZonedDateTime start = ZonedDateTime.of(2020, 12, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+        service.store(item, start, new DecimalType(1));
+        service.store(item, start.plusHours(1), new QuantityType<>(2, SIUnits.CELSIUS));
+        service.store(item, start.plusHours(2), new StringType("3"));
+
+        // no deactivation, values are only contained in the log
+        InMemoryPersistenceService crashedService = service;
+        assertRestored(start);
+        crashedService.deactivate();
+    }
+
+    @Test
+    public void persistentRemovedValuesAreNotRestored() {
+        service = new InMemoryPersistenceService(storageFolder);
+        service.activate(Map.of("persistent", true));
+        ZonedDateTime start = ZonedDateTime.of(2020, 12, 1, 12, 0, 0, 0, ZoneId.systemDefault());
+        service.store(item, start, new DecimalType(1));
+        service.store(item, start.plusHours(1), new DecimalType(2));
+        filterCriteria.setBeginDate(start.plusMinutes(30));
+        service.remove(filterCriteria);
+        service.store(item, start.plusHours(2), new DecimalType(3));
+
+        // removals are written with the next snapshot, at the latest on deactivation
+        service.deactivate();
+        service = new InMemoryPersistenceService(storageFolder);
+        service.activate(Map.of("persistent", true));
+        filterCriteria = new FilterCriteria();
+        filterCriteria.setItemName(ITEM_NAME);
+        filterCriteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        List<Integer> resultSet = new ArrayList<>();
+        service.query(filterCriteria).forEach(h -> resultSet.add(((DecimalType) h.getState()).intValue()));
+
+        assertThat(resultSet, contains(1, 3));
+        service.deactivate();
+    }
+
+    private void assertRestored(ZonedDateTime start) {
+        service = new InMemoryPersistenceService(storageFolder);
+        service.activate(Map.of("persistent", true));
+        filterCriteria.setOrdering(FilterCriteria.Ordering.ASCENDING);
+
+        List<HistoricItem> resultSet = new ArrayList<>();
+        service.query(filterCriteria).forEach(resultSet::add);
+
+        assertThat(resultSet.stream().map(HistoricItem::getState).toList(),
+                contains(new DecimalType(1), new QuantityType<>(2, SIUnits.CELSIUS), new StringType("3")));
+        assertThat(resultSet.stream().map(HistoricItem::getTimestamp).toList(),
+                contains(start, start.plusHours(1), start.plusHours(2)));
+        service.deactivate();
+    }
+
     @Test
     public void removeBetweenTimes() {
         State historicState1 = new StringType("value1");
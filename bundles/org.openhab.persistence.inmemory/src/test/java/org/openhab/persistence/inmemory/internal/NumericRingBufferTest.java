@@ -0,0 +1,121 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.inmemory.internal;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.*;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+
+/**
+ * The {@link NumericRingBufferTest} contains tests for the {@link NumericRingBuffer}
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class NumericRingBufferTest {
+
+    @Test
+    public void addKeepsEntriesSortedByTimestamp() {
+        NumericRingBuffer buffer = new NumericRingBuffer(10);
+        buffer.add(30, 3, 10);
+        buffer.add(10, 1, 10);
+        buffer.add(20, 2, 10);
+        buffer.add(40, 4, 10);
+
+        NumericRingBuffer.Range range = buffer.range(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(range.timestamps(), is(new long[] { 10, 20, 30, 40 }));
+        assertThat(range.values(), is(new double[] { 1, 2, 3, 4 }));
+    }
+
+    @Test
+    public void addKeepsExistingValueForSameTimestamp() {
+        NumericRingBuffer buffer = new NumericRingBuffer(10);
+        buffer.add(10, 1, 10);
+        buffer.add(10, 2, 10);
+
+        assertThat(buffer.range(Long.MIN_VALUE, Long.MAX_VALUE).values(), is(new double[] { 1 }));
+    }
+
+    @Test
+    public void addRemovesOldestEntryWhenFull() {
+        NumericRingBuffer buffer = new NumericRingBuffer(3);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i * 10, i, 3);
+        }
+        buffer.add(35, 3.5, 3);
+
+        NumericRingBuffer.Range range = buffer.range(Long.MIN_VALUE, Long.MAX_VALUE);
+        assertThat(range.timestamps(), is(new long[] { 35, 40, 50 }));
+        assertThat(buffer.capacity(), is(3));
+    }
+
+    @Test
+    public void addGrowsCapacityWithoutLimit() {
+        NumericRingBuffer buffer = new NumericRingBuffer(0);
+        for (int i = 0; i < 100; i++) {
+            buffer.add(i, i, 0);
+        }
+
+        assertThat(buffer.range(Long.MIN_VALUE, Long.MAX_VALUE).size(), is(100));
+        assertThat(buffer.capacity(), is(greaterThanOrEqualTo(100)));
+    }
+
+    @Test
+    public void rangeIncludesBeginAndEnd() {
+        NumericRingBuffer buffer = new NumericRingBuffer(10);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i * 10, i, 10);
+        }
+
+        assertThat(buffer.range(20, 40).timestamps(), is(new long[] { 20, 30, 40 }));
+        assertThat(buffer.range(21, 39).timestamps(), is(new long[] { 30 }));
+        assertThat(buffer.range(60, 70).size(), is(0));
+    }
+
+    @Test
+    public void removeIfRemovesMatchingEntries() {
+        NumericRingBuffer buffer = new NumericRingBuffer(10);
+        for (int i = 1; i <= 5; i++) {
+            buffer.add(i * 10, i, 10);
+        }
+        buffer.removeIf((timestamp, value) -> value % 2 == 0);
+
+        assertThat(buffer.range(Long.MIN_VALUE, Long.MAX_VALUE).timestamps(), is(new long[] { 10, 30, 50 }));
+    }
+
+    @Test
+    public void trimRemovesOldestEntriesAndReleasesCapacity() {
+        NumericRingBuffer buffer = new NumericRingBuffer(16);
+        for (int i = 1; i <= 10; i++) {
+            buffer.add(i * 10, i, 16);
+        }
+        buffer.trim(4);
+
+        assertThat(buffer.range(Long.MIN_VALUE, Long.MAX_VALUE).timestamps(), is(new long[] { 70, 80, 90, 100 }));
+        assertThat(buffer.capacity(), is(4));
+    }
+
+    @Test
+    public void closedBufferRejectsModifications() {
+        NumericRingBuffer buffer = new NumericRingBuffer(10);
+        buffer.add(10, 1, 10);
+
+        NumericRingBuffer.Range range = buffer.close();
+        assertThat(range, is(notNullValue()));
+        assertThat(buffer.close(), is(nullValue()));
+        assertThat(buffer.add(20, 2, 10), is(false));
+        assertThat(buffer.removeIf((timestamp, value) -> true), is(false));
+    }
+}
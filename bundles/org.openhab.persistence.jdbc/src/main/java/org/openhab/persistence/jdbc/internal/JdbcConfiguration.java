@@ -62,6 +62,12 @@ public class JdbcConfiguration {
     private String tableNamePrefix = "item";
     private int tableIdDigitCount = 4;
     private boolean rebuildTableNames = false;
+    private boolean narrowTables = false;
+
+    // write-behind queue, disabled when batchSize is 0
+    private int batchSize = 0;
+    private int batchInterval = 1000;
+    private int batchQueueSize = 10000;
 
     private int errReconnectThreshold = 0;
 
@@ -189,6 +195,35 @@ public class JdbcConfiguration {
             logger.debug("JDBC::updateConfig: rebuildTableNames={}", rebuildTableNames);
         }
 
+        String nt = (String) configuration.get("narrowTables");
+        if (nt != null && !nt.isBlank()) {
+            narrowTables = Boolean.parseBoolean(nt);
+            logger.debug("JDBC::updateConfig: narrowTables={}", narrowTables);
+        }
+        if (narrowTables && getTableUseRealCaseSensitiveItemNames()) {
+            logger.warn(
+                    "JDBC::updateConfig: narrowTables requires the items manage table and cannot be combined with case sensitive real item names, ignoring it.");
+            narrowTables = false;
+        }
+
+        String bs = (String) configuration.get("batchSize");
+        if (bs != null && !bs.isBlank() && isNumericPattern.matcher(bs).matches()) {
+            batchSize = Integer.parseInt(bs);
+            logger.debug("JDBC::updateConfig: batchSize={}", batchSize);
+        }
+
+        String bi = (String) configuration.get("batchInterval");
+        if (bi != null && !bi.isBlank() && isNumericPattern.matcher(bi).matches()) {
+            batchInterval = Math.max(Integer.parseInt(bi), 1);
+            logger.debug("JDBC::updateConfig: batchInterval={}", batchInterval);
+        }
+
+        String bq = (String) configuration.get("batchQueueSize");
+        if (bq != null && !bq.isBlank() && isNumericPattern.matcher(bq).matches()) {
+            batchQueueSize = Math.max(Integer.parseInt(bq), 1);
+            logger.debug("JDBC::updateConfig: batchQueueSize={}", batchQueueSize);
+        }
+
         // undocumented
         String ac = (String) configuration.get("maximumPoolSize");
         if (ac != null && !ac.isBlank()) {
@@ -398,6 +433,44 @@ public class JdbcConfiguration {
         return tableIdDigitCount;
     }
 
+    /**
+     * Checks if values of all items are stored in two shared tables instead of one table per item.
+     *
+     * @return true if narrowTables is enabled.
+     */
+    public boolean getNarrowTables() {
+        return narrowTables;
+    }
+
+    public String getNarrowNumberTable() {
+        return tableNamePrefix + "_number";
+    }
+
+    public String getNarrowStringTable() {
+        return tableNamePrefix + "_string";
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Checks if values are queued and written in batches instead of one by one.
+     *
+     * @return true if batchSize is greater than 0.
+     */
+    public boolean isBatchEnabled() {
+        return batchSize > 0;
+    }
+
+    public int getBatchInterval() {
+        return batchInterval;
+    }
+
+    public int getBatchQueueSize() {
+        return batchQueueSize;
+    }
+
     public JdbcBaseDAO getDBDAO() {
         return dBDAO;
     }
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.sql.SQLException;
 import java.sql.SQLInvalidAuthorizationSpecException;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -32,9 +33,13 @@ import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceItemInfo;
 import org.openhab.core.types.State;
+import org.openhab.persistence.jdbc.internal.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.internal.db.JdbcHistoricItemIterable;
+import org.openhab.persistence.jdbc.internal.dto.AggregateFunction;
 import org.openhab.persistence.jdbc.internal.dto.Column;
 import org.openhab.persistence.jdbc.internal.dto.ItemVO;
 import org.openhab.persistence.jdbc.internal.dto.ItemsVO;
+import org.openhab.persistence.jdbc.internal.dto.JdbcPendingValue;
 import org.openhab.persistence.jdbc.internal.dto.JdbcPersistenceItemInfo;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcException;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcSQLException;
@@ -60,7 +65,20 @@ public class JdbcMapper {
     protected boolean initialized = false;
     protected @NonNullByDefault({}) JdbcConfiguration conf;
     protected final Map<String, String> itemNameToTableNameMap = new HashMap<>();
+    protected final Map<String, Integer> itemNameToItemIdMap = new HashMap<>();
     protected @NonNullByDefault({}) NamingStrategy namingStrategy;
+    // Lazy query results report every chunk read, like the queries run here directly
+    private final JdbcHistoricItemIterable.QueryListener queryListener = new JdbcHistoricItemIterable.QueryListener() {
+        @Override
+        public void querySucceeded() {
+            errCnt = 0;
+        }
+
+        @Override
+        public void queryFailed(SQLException e) {
+            errCnt++;
+        }
+    };
     private long afterAccessMin = 10000;
     private long afterAccessMax = 0;
 
@@ -170,6 +188,12 @@ public class JdbcMapper {
         isvo.setJdbcUriDatabaseName(conf.getDbName());
         isvo.setItemsManageTable(conf.getItemsManageTable());
         List<ItemsVO> vol = conf.getDBDAO().doGetItemTables(isvo);
+        if (conf.getNarrowTables()) {
+            // the shared narrow tables do not belong to a single item
+            Set<String> narrowTables = Set.of(conf.getNarrowNumberTable().toLowerCase(),
+                    conf.getNarrowStringTable().toLowerCase());
+            vol.removeIf(t -> narrowTables.contains(t.getTableName().toLowerCase()));
+        }
         logTime("getItemTables", timerStart, System.currentTimeMillis());
         return vol;
     }
@@ -214,6 +238,11 @@ public class JdbcMapper {
 
     protected void storeItemValue(Item item, State itemState, @Nullable ZonedDateTime date) throws JdbcException {
         logger.debug("JDBC::storeItemValue: item={} state={} date={}", item, itemState, date);
+        if (conf.getNarrowTables()) {
+            storeItemValues(item,
+                    List.of(new JdbcPendingValue(item, itemState, date == null ? ZonedDateTime.now() : date)));
+            return;
+        }
         String tableName = getTable(item);
         long timerStart = System.currentTimeMillis();
         if (date == null) {
@@ -225,6 +254,22 @@ public class JdbcMapper {
         errCnt = 0;
     }
 
+    protected void storeItemValues(Item item, List<JdbcPendingValue> values) throws JdbcException {
+        logger.debug("JDBC::storeItemValues: item={} values={}", item, values.size());
+        long timerStart;
+        if (conf.getNarrowTables()) {
+            int itemId = getItemId(item);
+            timerStart = System.currentTimeMillis();
+            conf.getDBDAO().doStoreNarrowItemValues(item, getNarrowTable(item), itemId, values);
+        } else {
+            String tableName = getTable(item);
+            timerStart = System.currentTimeMillis();
+            conf.getDBDAO().doStoreItemValues(item, tableName, values);
+        }
+        logTime("storeItemValues", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+    }
+
     public long getRowCount(String tableName) throws JdbcSQLException {
         return conf.getDBDAO().doGetRowCount(tableName);
     }
@@ -242,6 +287,85 @@ public class JdbcMapper {
         return result;
     }
 
+    protected Iterable<HistoricItem> streamHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount,
+            String table, Item item) throws JdbcException {
+        logger.debug("JDBC::streamHistItemFilterQuery numberDecimalcount='{}' table='{}' item='{}'",
+                numberDecimalcount, table, item);
+        return readFirstChunk(conf.getDBDAO().doStreamHistItemFilterQuery(item, filter, numberDecimalcount, table,
+                item.getName(), timeZoneProvider.getTimeZone(), queryListener));
+    }
+
+    protected Iterable<HistoricItem> streamNarrowHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount,
+            int itemId, Item item) throws JdbcException {
+        logger.debug("JDBC::streamNarrowHistItemFilterQuery numberDecimalcount='{}' itemId='{}' item='{}'",
+                numberDecimalcount, itemId, item);
+        return readFirstChunk(conf.getDBDAO().doStreamNarrowHistItemFilterQuery(item, filter, numberDecimalcount,
+                getNarrowTable(item), itemId, timeZoneProvider.getTimeZone(), queryListener));
+    }
+
+    /**
+     * Runs the query of a lazy result right away, so a failing query is reported here instead of ending the
+     * iteration early.
+     */
+    private Iterable<HistoricItem> readFirstChunk(JdbcHistoricItemIterable result) throws JdbcException {
+        long timerStart = System.currentTimeMillis();
+        try {
+            result.readFirstChunk();
+        } catch (SQLException e) {
+            throw new JdbcException("Unable to query item", e);
+        }
+        logTime("readFirstChunk", timerStart, System.currentTimeMillis());
+        return result;
+    }
+
+    protected List<HistoricItem> getAggregatedHistItems(FilterCriteria filter, String table, Item item,
+            AggregateFunction function, long intervalSeconds) throws JdbcSQLException {
+        logger.debug("JDBC::getAggregatedHistItems table='{}' item='{}' function={} intervalSeconds={}", table, item,
+                function, intervalSeconds);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetAggregatedHistItems(item, filter, table, function,
+                intervalSeconds, timeZoneProvider.getTimeZone());
+        logTime("getAggregatedHistItems", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
+    protected List<HistoricItem> getNarrowAggregatedHistItems(FilterCriteria filter, int itemId, Item item,
+            AggregateFunction function, long intervalSeconds) throws JdbcSQLException {
+        logger.debug("JDBC::getNarrowAggregatedHistItems itemId='{}' item='{}' function={} intervalSeconds={}",
+                itemId, item, function, intervalSeconds);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetNarrowAggregatedHistItems(item, filter, getNarrowTable(item),
+                itemId, function, intervalSeconds, timeZoneProvider.getTimeZone());
+        logTime("getNarrowAggregatedHistItems", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
+    protected List<HistoricItem> getNarrowHistItemFilterQuery(FilterCriteria filter, int numberDecimalcount,
+            int itemId, Item item) throws JdbcSQLException {
+        logger.debug("JDBC::getNarrowHistItemFilterQuery numberDecimalcount='{}' itemId='{}' item='{}'",
+                numberDecimalcount, itemId, item);
+        long timerStart = System.currentTimeMillis();
+        List<HistoricItem> result = conf.getDBDAO().doGetNarrowHistItemFilterQuery(item, filter, numberDecimalcount,
+                getNarrowTable(item), itemId, timeZoneProvider.getTimeZone());
+        logTime("getNarrowHistItemFilterQuery", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+        return result;
+    }
+
+    protected void deleteNarrowItemValues(FilterCriteria filter, int itemId) throws JdbcSQLException {
+        logger.debug("JDBC::deleteNarrowItemValues itemId='{}' itemName='{}'", itemId, filter.getItemName());
+        long timerStart = System.currentTimeMillis();
+        // the item type is not known here, values can only be in one of both tables
+        conf.getDBDAO().doDeleteNarrowItemValues(filter, conf.getNarrowNumberTable(), itemId,
+                timeZoneProvider.getTimeZone());
+        conf.getDBDAO().doDeleteNarrowItemValues(filter, conf.getNarrowStringTable(), itemId,
+                timeZoneProvider.getTimeZone());
+        logTime("deleteNarrowItemValues", timerStart, System.currentTimeMillis());
+        errCnt = 0;
+    }
+
     protected void deleteItemValues(FilterCriteria filter, String table) throws JdbcSQLException {
         logger.debug("JDBC::deleteItemValues filter='{}' table='{}' itemName='{}'", true, table, filter.getItemName());
         long timerStart = System.currentTimeMillis();
@@ -331,11 +455,24 @@ public class JdbcMapper {
             // Reset the error counter
             errCnt = 0;
         }
+        if (conf.getNarrowTables()) {
+            createNarrowTables();
+        }
         populateItemNameToTableNameMap();
     }
 
+    private void createNarrowTables() throws JdbcSQLException {
+        logger.debug("JDBC::createNarrowTables");
+        long timerStart = System.currentTimeMillis();
+        JdbcBaseDAO dao = conf.getDBDAO();
+        dao.doCreateNarrowTable(conf.getNarrowNumberTable(), dao.getNarrowDataType(true));
+        dao.doCreateNarrowTable(conf.getNarrowStringTable(), dao.getNarrowDataType(false));
+        logTime("createNarrowTables", timerStart, System.currentTimeMillis());
+    }
+
     public void populateItemNameToTableNameMap() throws JdbcSQLException {
         itemNameToTableNameMap.clear();
+        itemNameToItemIdMap.clear();
         if (conf.getTableUseRealCaseSensitiveItemNames()) {
             for (String itemName : getItemTables().stream().map(t -> t.getTableName()).collect(Collectors.toList())) {
                 itemNameToTableNameMap.put(itemName, itemName);
@@ -349,6 +486,7 @@ public class JdbcMapper {
                 }
                 itemNameToTableNameMap.put(vo.getItemName(),
                         namingStrategy.getTableName(vo.getItemId(), vo.getItemName()));
+                itemNameToItemIdMap.put(vo.getItemName(), vo.getItemId());
             }
         }
     }
@@ -398,6 +536,40 @@ public class JdbcMapper {
         return tableName;
     }
 
+    /**
+     * Returns the id of an item in the items manage table, creating a new entry if needed.
+     * Used instead of {@link #getTable(Item)} when narrow tables are enabled.
+     */
+    protected int getItemId(Item item) throws JdbcException {
+        String itemName = item.getName();
+        if (!initialized) {
+            throw new JdbcException("Not initialized, unable to find id for item " + itemName);
+        }
+
+        Integer itemId = itemNameToItemIdMap.get(itemName);
+        if (itemId != null) {
+            return itemId;
+        }
+
+        logger.debug("JDBC::getItemId: no id found for item '{}' in itemNameToItemIdMap", itemName);
+        ItemsVO isvo = new ItemsVO();
+        isvo.setItemName(itemName);
+        isvo.setItemsManageTable(conf.getItemsManageTable());
+        isvo = createNewEntryInItemsTable(isvo);
+        int newItemId = isvo.getItemId();
+        if (newItemId == 0) {
+            throw new JdbcException("Creating items entry for item " + itemName + " failed");
+        }
+        itemNameToItemIdMap.put(itemName, newItemId);
+        itemNameToTableNameMap.put(itemName, namingStrategy.getTableName(newItemId, itemName));
+
+        return newItemId;
+    }
+
+    protected String getNarrowTable(Item item) {
+        return conf.getDBDAO().isNarrowNumberItem(item) ? conf.getNarrowNumberTable() : conf.getNarrowStringTable();
+    }
+
     private void formatTableNames() throws JdbcSQLException {
         boolean tmpinit = initialized;
         if (tmpinit) {
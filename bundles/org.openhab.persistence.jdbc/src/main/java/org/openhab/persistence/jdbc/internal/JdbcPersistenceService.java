@@ -12,17 +12,25 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
+import java.time.Duration;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.BlockingDeque;
 import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingDeque;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -35,6 +43,7 @@ import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.ModifiablePersistenceService;
 import org.openhab.core.persistence.PersistenceItemInfo;
@@ -44,10 +53,14 @@ import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
 import org.openhab.persistence.jdbc.internal.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.internal.dto.AggregateFunction;
 import org.openhab.persistence.jdbc.internal.dto.Column;
 import org.openhab.persistence.jdbc.internal.dto.ItemsVO;
+import org.openhab.persistence.jdbc.internal.dto.JdbcPendingValue;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcException;
+import org.openhab.persistence.jdbc.internal.exceptions.JdbcQueryException;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcSQLException;
+import org.openhab.persistence.jdbc.internal.utils.MovingAverage;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
@@ -70,6 +83,8 @@ import org.slf4j.LoggerFactory;
 @ConfigurableService(category = "persistence", label = "JDBC Persistence Service", description_uri = JdbcPersistenceServiceConstants.CONFIG_URI)
 public class JdbcPersistenceService extends JdbcMapper implements ModifiablePersistenceService {
 
+    private static final int MIGRATION_PAGE_SIZE = 10000;
+
     private final Logger logger = LoggerFactory.getLogger(JdbcPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
@@ -77,6 +92,18 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
             new NamedThreadFactory(JdbcPersistenceServiceConstants.SERVICE_ID));
 
+    // Write-behind queue, only used when batching is enabled
+    private BlockingDeque<JdbcPendingValue> pendingValues = new LinkedBlockingDeque<>(1);
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private final AtomicLong droppedValues = new AtomicLong();
+    private final MovingAverage flushTimeAverage = new MovingAverage(100);
+    private @Nullable ScheduledFuture<?> flushJob;
+    private long reportedDroppedValues = 0;
+    private volatile long storedValues = 0;
+    private volatile int lastFlushSize = 0;
+    private volatile long lastFlushTime = 0;
+    private volatile double averageFlushTime = 0;
+
     @Activate
     public JdbcPersistenceService(final @Reference ItemRegistry itemRegistry,
             final @Reference TimeZoneProvider timeZoneProvider) {
@@ -120,6 +147,7 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("JDBC::deactivate:  persistence bundle stopping. Disconnecting from database. reason={}", reason);
+        stopFlushJob();
         // closeConnection();
         initialized = false;
     }
@@ -137,24 +165,139 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
 
     @Override
     public void store(Item item) {
-        scheduler.execute(() -> internalStore(item, null, item.getState()));
+        scheduleStore(item, null, item.getState());
     }
 
     @Override
     public void store(Item item, @Nullable String alias) {
         // alias is not supported
-        scheduler.execute(() -> internalStore(item, null, item.getState()));
+        scheduleStore(item, null, item.getState());
     }
 
     @Override
     public void store(Item item, ZonedDateTime date, State state) {
-        scheduler.execute(() -> internalStore(item, date, state));
+        scheduleStore(item, date, state);
     }
 
     @Override
     public void store(Item item, ZonedDateTime date, State state, @Nullable String alias) {
         // alias is not supported
-        scheduler.execute(() -> internalStore(item, null, item.getState()));
+        scheduleStore(item, null, item.getState());
+    }
+
+    private void scheduleStore(Item item, @Nullable ZonedDateTime date, State state) {
+        if (conf.isBatchEnabled()) {
+            enqueue(item, date, state);
+        } else {
+            scheduler.execute(() -> internalStore(item, date, state));
+        }
+    }
+
+    private void enqueue(Item item, @Nullable ZonedDateTime date, State state) {
+        // Do not store undefined/uninitialized data
+        if (state instanceof UnDefType) {
+            logger.debug("JDBC::enqueue: ignore Item '{}' because it is UnDefType", item.getName());
+            return;
+        }
+        // The value is written later, so the time has to be taken now
+        JdbcPendingValue value = new JdbcPendingValue(item, state, date != null ? date : ZonedDateTime.now());
+        BlockingDeque<JdbcPendingValue> queue = pendingValues;
+        if (!queue.offer(value)) {
+            droppedValues.incrementAndGet();
+            logger.debug("JDBC::enqueue: queue is full, dropping state '{}' for item '{}'", state, item.getName());
+            return;
+        }
+        if (queue.size() >= conf.getBatchSize() && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flushPendingValues);
+        }
+    }
+
+    synchronized void flushPendingValues() {
+        flushScheduled.set(false);
+        long dropped = droppedValues.get();
+        if (dropped > reportedDroppedValues) {
+            logger.warn("JDBC::flush: queue limit of {} values reached, {} values have been dropped",
+                    conf.getBatchQueueSize(), dropped - reportedDroppedValues);
+            reportedDroppedValues = dropped;
+        }
+        if (pendingValues.isEmpty()) {
+            return;
+        }
+        if (!checkDBAccessability()) {
+            logger.warn(
+                    "JDBC::flush: No connection to database. {} values remain queued! Will retry connecting to database when error count:{} equals errReconnectThreshold:{}",
+                    pendingValues.size(), errCnt, conf.getErrReconnectThreshold());
+            return;
+        }
+
+        List<JdbcPendingValue> values = new ArrayList<>(pendingValues.size());
+        pendingValues.drainTo(values);
+        Map<String, List<JdbcPendingValue>> valuesPerItem = new LinkedHashMap<>();
+        for (JdbcPendingValue value : values) {
+            valuesPerItem.computeIfAbsent(value.getItem().getName(), k -> new ArrayList<>()).add(value);
+        }
+
+        long timerStart = System.currentTimeMillis();
+        int stored = 0;
+        for (List<JdbcPendingValue> itemValues : valuesPerItem.values()) {
+            Item item = itemValues.get(0).getItem();
+            try {
+                storeItemValues(item, itemValues);
+                stored += itemValues.size();
+            } catch (JdbcException e) {
+                errCnt++;
+                logger.warn("JDBC::flush: Unable to store {} values for item '{}', values are queued again",
+                        itemValues.size(), item.getName(), e);
+                requeue(itemValues);
+            }
+        }
+        long flushTime = System.currentTimeMillis() - timerStart;
+        flushTimeAverage.add(flushTime);
+        storedValues += stored;
+        lastFlushSize = values.size();
+        lastFlushTime = flushTime;
+        averageFlushTime = flushTimeAverage.getAverageDouble();
+        logger.debug("JDBC: Stored {} of {} values for {} items in SQL database in {} ms.", stored, values.size(),
+                valuesPerItem.size(), flushTime);
+    }
+
+    /**
+     * Put values that could not be stored back to the head of the queue, so they are written before newer values.
+     * Values that do not fit into the queue anymore are dropped.
+     */
+    private void requeue(List<JdbcPendingValue> values) {
+        for (int i = values.size() - 1; i >= 0; i--) {
+            if (!pendingValues.offerFirst(values.get(i))) {
+                droppedValues.incrementAndGet();
+            }
+        }
+    }
+
+    void startFlushJob() {
+        stopFlushJob();
+        if (conf.isBatchEnabled()) {
+            pendingValues = new LinkedBlockingDeque<>(conf.getBatchQueueSize());
+            int interval = conf.getBatchInterval();
+            flushJob = scheduler.scheduleWithFixedDelay(this::flushPendingValues, interval, interval,
+                    TimeUnit.MILLISECONDS);
+            logger.debug("JDBC::startFlushJob: writing batches of {} values, at least every {} ms",
+                    conf.getBatchSize(), interval);
+        }
+    }
+
+    void stopFlushJob() {
+        ScheduledFuture<?> flushJob = this.flushJob;
+        if (flushJob != null) {
+            flushJob.cancel(false);
+            this.flushJob = null;
+            // write what is left in the queue
+            flushPendingValues();
+            if (!pendingValues.isEmpty()) {
+                logger.warn("JDBC::stopFlushJob: {} queued values could not be stored and are discarded",
+                        pendingValues.size());
+                pendingValues.clear();
+            }
+        }
     }
 
     private synchronized void internalStore(Item item, @Nullable ZonedDateTime date, State state) {
@@ -231,6 +374,30 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
             }
         }
 
+        if (conf.getNarrowTables()) {
+            Integer itemId = itemNameToItemIdMap.get(itemName);
+            if (itemId == null) {
+                logger.debug("JDBC::query: unable to find id for item with name: '{}', no data in database.", itemName);
+                return List.of();
+            }
+            try {
+                if (filter.getPageNumber() == 0) {
+                    return streamNarrowHistItemFilterQuery(filter, conf.getNumberDecimalcount(), itemId, item);
+                }
+                long timerStart = System.currentTimeMillis();
+                List<HistoricItem> items = getNarrowHistItemFilterQuery(filter, conf.getNumberDecimalcount(), itemId,
+                        item);
+                if (logger.isDebugEnabled()) {
+                    logger.debug("JDBC: Query for item '{}' returned {} rows in {} ms", itemName, items.size(),
+                            System.currentTimeMillis() - timerStart);
+                }
+                return items;
+            } catch (JdbcException e) {
+                logger.warn("JDBC::query: Unable to query item", e);
+                return List.of();
+            }
+        }
+
         String table = itemNameToTableNameMap.get(itemName);
         if (table == null) {
             logger.debug("JDBC::query: unable to find table for item with name: '{}', no data in database.", itemName);
@@ -238,6 +405,10 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         }
 
         try {
+            if (filter.getPageNumber() == 0) {
+                // values are read in chunks and converted while iterating, without materializing the whole result
+                return streamHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
+            }
             long timerStart = System.currentTimeMillis();
             List<HistoricItem> items = getHistItemFilterQuery(filter, conf.getNumberDecimalcount(), table, item);
             if (logger.isDebugEnabled()) {
@@ -247,12 +418,101 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
             // Success
             errCnt = 0;
             return items;
-        } catch (JdbcSQLException e) {
+        } catch (JdbcException e) {
             logger.warn("JDBC::query: Unable to query item", e);
             return List.of();
         }
     }
 
+    /**
+     * Queries values of an item aggregated into time buckets. Aggregation is performed by the database, so only
+     * one row per bucket is transferred, for example about 1000 rows for a one year chart with 9 hour buckets.
+     *
+     * @param filter the filter to apply, page size and page number are ignored
+     * @param function the aggregate function to apply per bucket
+     * @param interval the length of a bucket, at least one second
+     * @return one value per non-empty bucket, with the time of its first value (bucket start on TimescaleDB)
+     */
+    public List<HistoricItem> queryAggregated(FilterCriteria filter, AggregateFunction function, Duration interval) {
+        if (!checkDBAccessability()) {
+            logger.warn("JDBC::queryAggregated: database not connected, query aborted for item '{}'",
+                    filter.getItemName());
+            return List.of();
+        }
+
+        String itemName = filter.getItemName();
+        if (itemName == null) {
+            logger.warn("Item name is missing in filter {}", filter);
+            return List.of();
+        }
+        Item item = getBaseItem(itemName);
+        if (item == null) {
+            return List.of();
+        }
+        if (function != AggregateFunction.COUNT && !conf.getDBDAO().isNarrowNumberItem(item)) {
+            logger.warn("JDBC::queryAggregated: {} is not supported for item '{}' of type {}", function, itemName,
+                    item.getType());
+            return List.of();
+        }
+        long intervalSeconds = Math.max(interval.getSeconds(), 1);
+
+        try {
+            long timerStart = System.currentTimeMillis();
+            List<HistoricItem> items;
+            if (conf.getNarrowTables()) {
+                Integer itemId = itemNameToItemIdMap.get(itemName);
+                if (itemId == null) {
+                    logger.debug(
+                            "JDBC::queryAggregated: unable to find id for item with name: '{}', no data in database.",
+                            itemName);
+                    return List.of();
+                }
+                items = getNarrowAggregatedHistItems(filter, itemId, item, function, intervalSeconds);
+            } else {
+                String table = itemNameToTableNameMap.get(itemName);
+                if (table == null) {
+                    logger.debug(
+                            "JDBC::queryAggregated: unable to find table for item with name: '{}', no data in database.",
+                            itemName);
+                    return List.of();
+                }
+                items = getAggregatedHistItems(filter, table, item, function, intervalSeconds);
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug("JDBC: Aggregated query for item '{}' returned {} rows in {} ms", itemName, items.size(),
+                        System.currentTimeMillis() - timerStart);
+            }
+            return items;
+        } catch (JdbcSQLException e) {
+            logger.warn("JDBC::queryAggregated: Unable to query item", e);
+            return List.of();
+        }
+    }
+
+    /**
+     * Get the item with the given name, or the base item for group items.
+     *
+     * @return the item, or null if it does not exist or is a group without a base item
+     */
+    private @Nullable Item getBaseItem(String itemName) {
+        Item item;
+        try {
+            item = itemRegistry.getItem(itemName);
+        } catch (ItemNotFoundException e) {
+            logger.debug("JDBC: unable to get item for itemName: '{}'", itemName);
+            return null;
+        }
+        if (item instanceof GroupItem groupItem) {
+            // For Group Item is BaseItem needed to get correct Type of Value.
+            item = groupItem.getBaseItem();
+            if (item == null || item instanceof GroupItem) {
+                logger.debug("JDBC: BaseItem of GroupItem '{}' is null or a GroupItem too", itemName);
+                return null;
+            }
+        }
+        return item;
+    }
+
     public void updateConfig(Map<Object, Object> configuration) {
         logger.debug("JDBC::updateConfig");
 
@@ -270,6 +530,7 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         } else {
             initialized = false;
         }
+        startFlushJob();
 
         logger.debug("JDBC::updateConfig: configuration complete for service={}.", getId());
     }
@@ -294,6 +555,22 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
             throw new IllegalArgumentException("Item name must not be null");
         }
 
+        if (conf.getNarrowTables()) {
+            Integer itemId = itemNameToItemIdMap.get(itemName);
+            if (itemId == null) {
+                logger.debug("JDBC::remove: unable to find id for item with name: '{}', no data in database.",
+                        itemName);
+                return false;
+            }
+            try {
+                deleteNarrowItemValues(filter, itemId);
+                return true;
+            } catch (JdbcSQLException e) {
+                logger.debug("JDBC::remove: Unable to remove values for item", e);
+                return false;
+            }
+        }
+
         String table = itemNameToTableNameMap.get(itemName);
         if (table == null) {
             logger.debug("JDBC::remove: unable to find table for item with name: '{}', no data in database.", itemName);
@@ -314,6 +591,48 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         }
     }
 
+    /**
+     * Get the number of values waiting in the write-behind queue.
+     */
+    public int getPendingValueCount() {
+        return pendingValues.size();
+    }
+
+    /**
+     * Get the number of values dropped because the write-behind queue was full.
+     */
+    public long getDroppedValueCount() {
+        return droppedValues.get();
+    }
+
+    /**
+     * Get the number of values written by the write-behind queue.
+     */
+    public long getStoredValueCount() {
+        return storedValues;
+    }
+
+    /**
+     * Get the number of values written by the last flush of the write-behind queue.
+     */
+    public int getLastFlushSize() {
+        return lastFlushSize;
+    }
+
+    /**
+     * Get the duration in milliseconds of the last flush of the write-behind queue.
+     */
+    public long getLastFlushTime() {
+        return lastFlushTime;
+    }
+
+    /**
+     * Get the average duration in milliseconds of the last 100 flushes of the write-behind queue.
+     */
+    public double getAverageFlushTime() {
+        return averageFlushTime;
+    }
+
     /**
      * Get a list of names of persisted items.
      */
@@ -328,6 +647,53 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         return itemNameToTableNameMap;
     }
 
+    /**
+     * Copy all values of an item from its own table into the narrow table for its type.
+     * Values are read and written in pages, the item table itself is left untouched.
+     *
+     * @param itemName the item to migrate
+     * @return the number of copied values, or -1 if the item or its table could not be found
+     * @throws JdbcException on SQL errors or when narrow tables are disabled
+     */
+    public long migrateToNarrowTable(String itemName) throws JdbcException {
+        if (!conf.getNarrowTables()) {
+            throw new JdbcException("Narrow tables are not enabled");
+        }
+        if (!checkDBAccessability()) {
+            throw new JdbcException("Database not connected");
+        }
+
+        String tableName = itemNameToTableNameMap.get(itemName);
+        if (tableName == null || !ifTableExists(tableName)) {
+            return -1;
+        }
+        Item item = getBaseItem(itemName);
+        if (item == null) {
+            return -1;
+        }
+
+        FilterCriteria filter = new FilterCriteria().setItemName(itemName).setOrdering(Ordering.ASCENDING);
+        long count = 0;
+        List<JdbcPendingValue> migratedValues = new ArrayList<>(MIGRATION_PAGE_SIZE);
+        try {
+            for (HistoricItem value : streamHistItemFilterQuery(filter, -1, tableName, item)) {
+                migratedValues.add(new JdbcPendingValue(item, value.getState(), value.getTimestamp()));
+                if (migratedValues.size() == MIGRATION_PAGE_SIZE) {
+                    storeItemValues(item, migratedValues);
+                    count += migratedValues.size();
+                    migratedValues.clear();
+                }
+            }
+        } catch (JdbcQueryException e) {
+            throw new JdbcException("Unable to read values of item " + itemName + " after " + count + " copied", e);
+        }
+        storeItemValues(item, migratedValues);
+        count += migratedValues.size();
+        logger.info("JDBC::migrateToNarrowTable: Copied {} values of item '{}' from table '{}'", count, itemName,
+                tableName);
+        return count;
+    }
+
     /**
      * Check schema of specific item table for integrity issues.
      *
@@ -459,6 +825,10 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
         for (Entry<String, String> entry : itemNameToTableNameMap.entrySet()) {
             String itemName = entry.getKey();
             String tableName = entry.getValue();
+            if (conf.getNarrowTables() && !orphanTables.contains(tableName)) {
+                // values are stored in the narrow tables, a missing item table is expected
+                continue;
+            }
             entries.add(getCheckedEntry(itemName, tableName, orphanTables.contains(tableName)));
             orphanTables.remove(tableName);
         }
@@ -551,6 +921,7 @@ public class JdbcPersistenceService extends JdbcMapper implements ModifiablePers
                     deleteItemsEntry(itemsVo);
                 }
                 itemNameToTableNameMap.remove(entry.getItemName());
+                itemNameToItemIdMap.remove(entry.getItemName());
                 return true;
             case ORPHAN_TABLE:
             case VALID:
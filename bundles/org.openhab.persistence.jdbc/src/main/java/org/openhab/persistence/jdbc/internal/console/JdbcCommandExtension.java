@@ -12,12 +12,17 @@
  */
 package org.openhab.persistence.jdbc.internal.console;
 
+import java.time.Duration;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,12 +33,17 @@ import org.openhab.core.io.console.ConsoleCommandCompleter;
 import org.openhab.core.io.console.StringsCompleter;
 import org.openhab.core.io.console.extensions.AbstractConsoleCommandExtension;
 import org.openhab.core.io.console.extensions.ConsoleCommandExtension;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.persistence.PersistenceService;
 import org.openhab.core.persistence.PersistenceServiceRegistry;
 import org.openhab.persistence.jdbc.internal.ItemTableCheckEntry;
 import org.openhab.persistence.jdbc.internal.ItemTableCheckEntryStatus;
 import org.openhab.persistence.jdbc.internal.JdbcPersistenceService;
 import org.openhab.persistence.jdbc.internal.JdbcPersistenceServiceConstants;
+import org.openhab.persistence.jdbc.internal.dto.AggregateFunction;
+import org.openhab.persistence.jdbc.internal.exceptions.JdbcException;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcSQLException;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
@@ -51,18 +61,28 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
     private static final String CMD_SCHEMA = "schema";
     private static final String CMD_TABLES = "tables";
     private static final String CMD_RELOAD = "reload";
+    private static final String CMD_QUEUE = "queue";
+    private static final String CMD_NARROW = "narrow";
+    private static final String CMD_AGGREGATE = "aggregate";
     private static final String SUBCMD_SCHEMA_CHECK = "check";
     private static final String SUBCMD_SCHEMA_FIX = "fix";
     private static final String SUBCMD_TABLES_LIST = "list";
     private static final String SUBCMD_TABLES_CLEAN = "clean";
+    private static final String SUBCMD_NARROW_MIGRATE = "migrate";
     private static final String PARAMETER_ALL = "all";
     private static final String PARAMETER_FORCE = "force";
     private static final StringsCompleter CMD_COMPLETER = new StringsCompleter(
-            List.of(CMD_SCHEMA, CMD_TABLES, CMD_RELOAD), false);
+            List.of(CMD_SCHEMA, CMD_TABLES, CMD_RELOAD, CMD_QUEUE, CMD_NARROW, CMD_AGGREGATE), false);
     private static final StringsCompleter SUBCMD_SCHEMA_COMPLETER = new StringsCompleter(
             List.of(SUBCMD_SCHEMA_CHECK, SUBCMD_SCHEMA_FIX), false);
     private static final StringsCompleter SUBCMD_TABLES_COMPLETER = new StringsCompleter(
             List.of(SUBCMD_TABLES_LIST, SUBCMD_TABLES_CLEAN), false);
+    private static final StringsCompleter SUBCMD_NARROW_COMPLETER = new StringsCompleter(
+            List.of(SUBCMD_NARROW_MIGRATE), false);
+    private static final StringsCompleter AGGREGATE_FUNCTION_COMPLETER = new StringsCompleter(
+            Stream.of(AggregateFunction.values()).map(f -> f.name().toLowerCase(Locale.ROOT)).toList(), false);
+    private static final Pattern DURATION_PATTERN = Pattern.compile("(\\d+)([smhd])");
+    private static final String DEFAULT_AGGREGATE_PERIOD = "1d";
 
     private final PersistenceServiceRegistry persistenceServiceRegistry;
 
@@ -74,7 +94,7 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
 
     @Override
     public void execute(String[] args, Console console) {
-        if (args.length < 1 || args.length > 4) {
+        if (args.length < 1 || args.length > 5) {
             printUsage(console);
             return;
         }
@@ -135,6 +155,21 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
         } else if (args.length == 1 && CMD_RELOAD.equalsIgnoreCase(args[0])) {
             reload(persistenceService, console);
             return true;
+        } else if (args.length == 1 && CMD_QUEUE.equalsIgnoreCase(args[0])) {
+            showQueue(persistenceService, console);
+            return true;
+        } else if (args.length > 1 && CMD_NARROW.equalsIgnoreCase(args[0])
+                && SUBCMD_NARROW_MIGRATE.equalsIgnoreCase(args[1])) {
+            if (args.length == 2) {
+                migrateToNarrowTables(persistenceService, console);
+                return true;
+            } else if (args.length == 3) {
+                migrateToNarrowTable(persistenceService, console, args[2]);
+                return true;
+            }
+        } else if ((args.length == 4 || args.length == 5) && CMD_AGGREGATE.equalsIgnoreCase(args[0])) {
+            return aggregate(persistenceService, console, args[1], args[2], args[3],
+                    args.length == 5 ? args[4] : DEFAULT_AGGREGATE_PERIOD);
         }
         return false;
     }
@@ -252,6 +287,76 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
         console.println("Item index reloaded.");
     }
 
+    private void showQueue(JdbcPersistenceService persistenceService, Console console) {
+        console.println("Pending values:     " + persistenceService.getPendingValueCount());
+        console.println("Stored values:      " + persistenceService.getStoredValueCount());
+        console.println("Dropped values:     " + persistenceService.getDroppedValueCount());
+        console.println("Last flush size:    " + persistenceService.getLastFlushSize());
+        console.println("Last flush time:    " + persistenceService.getLastFlushTime() + " ms");
+        console.println("Average flush time: " + persistenceService.getAverageFlushTime() + " ms");
+    }
+
+    private void migrateToNarrowTables(JdbcPersistenceService persistenceService, Console console) {
+        console.println("Copying values of all items into the narrow tables...");
+        List<String> itemNames = persistenceService.getItemNames().stream().sorted().collect(Collectors.toList());
+        for (String itemName : itemNames) {
+            if (!migrateToNarrowTable(persistenceService, console, itemName)) {
+                break;
+            }
+        }
+    }
+
+    private boolean migrateToNarrowTable(JdbcPersistenceService persistenceService, Console console,
+            String itemName) {
+        console.print(itemName + " -> ");
+        try {
+            long count = persistenceService.migrateToNarrowTable(itemName);
+            console.println(count < 0 ? "skipped." : count + " values copied.");
+            return true;
+        } catch (JdbcException e) {
+            console.println("failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private boolean aggregate(JdbcPersistenceService persistenceService, Console console, String itemName,
+            String functionName, String intervalString, String periodString) {
+        AggregateFunction function;
+        try {
+            function = AggregateFunction.valueOf(functionName.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        Duration interval = parseDuration(intervalString);
+        Duration period = parseDuration(periodString);
+        if (interval == null || period == null) {
+            return false;
+        }
+        ZonedDateTime endDate = ZonedDateTime.now();
+        FilterCriteria filter = new FilterCriteria().setItemName(itemName).setBeginDate(endDate.minus(period))
+                .setEndDate(endDate).setOrdering(Ordering.ASCENDING);
+        List<HistoricItem> items = persistenceService.queryAggregated(filter, function, interval);
+        for (HistoricItem item : items) {
+            console.println(item.getTimestamp() + "  " + item.getState());
+        }
+        console.println(items.size() + " buckets.");
+        return true;
+    }
+
+    private static @Nullable Duration parseDuration(String value) {
+        Matcher matcher = DURATION_PATTERN.matcher(value.toLowerCase(Locale.ROOT));
+        if (!matcher.matches()) {
+            return null;
+        }
+        long amount = Long.parseLong(matcher.group(1));
+        return switch (matcher.group(2)) {
+            case "s" -> Duration.ofSeconds(amount);
+            case "m" -> Duration.ofMinutes(amount);
+            case "h" -> Duration.ofHours(amount);
+            default -> Duration.ofDays(amount);
+        };
+    }
+
     @Override
     public List<String> getUsages() {
         return Arrays.asList(buildCommandUsage(CMD_SCHEMA + " " + SUBCMD_SCHEMA_CHECK, "check schema integrity"),
@@ -261,7 +366,12 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
                 buildCommandUsage(
                         CMD_TABLES + " " + SUBCMD_TABLES_CLEAN + " [<itemName>]" + " [" + PARAMETER_FORCE + "]",
                         "clean inconsistent items (remove from index and drop tables)"),
-                buildCommandUsage(CMD_RELOAD, "reload item index/schema"));
+                buildCommandUsage(CMD_RELOAD, "reload item index/schema"),
+                buildCommandUsage(CMD_QUEUE, "show write-behind queue statistics"),
+                buildCommandUsage(CMD_NARROW + " " + SUBCMD_NARROW_MIGRATE + " [<itemName>]",
+                        "copy values from item tables into the narrow tables"),
+                buildCommandUsage(CMD_AGGREGATE + " <itemName> avg|min|max|count <interval> [<period>]",
+                        "show values aggregated per interval over the last period (e.g. 1h 7d, default period 1d)"));
     }
 
     @Override
@@ -278,9 +388,19 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
                 return SUBCMD_TABLES_COMPLETER.complete(args, cursorArgumentIndex, cursorPosition, candidates);
             } else if (CMD_SCHEMA.equalsIgnoreCase(args[0])) {
                 return SUBCMD_SCHEMA_COMPLETER.complete(args, cursorArgumentIndex, cursorPosition, candidates);
+            } else if (CMD_NARROW.equalsIgnoreCase(args[0])) {
+                return SUBCMD_NARROW_COMPLETER.complete(args, cursorArgumentIndex, cursorPosition, candidates);
+            } else if (CMD_AGGREGATE.equalsIgnoreCase(args[0])) {
+                JdbcPersistenceService persistenceService = getPersistenceService();
+                if (persistenceService != null) {
+                    return new StringsCompleter(persistenceService.getItemNames(), true).complete(args,
+                            cursorArgumentIndex, cursorPosition, candidates);
+                }
             }
         } else if (cursorArgumentIndex == 2) {
-            if (CMD_TABLES.equalsIgnoreCase(args[0])) {
+            if (CMD_AGGREGATE.equalsIgnoreCase(args[0])) {
+                return AGGREGATE_FUNCTION_COMPLETER.complete(args, cursorArgumentIndex, cursorPosition, candidates);
+            } else if (CMD_TABLES.equalsIgnoreCase(args[0])) {
                 if (SUBCMD_TABLES_CLEAN.equalsIgnoreCase(args[1])) {
                     JdbcPersistenceService persistenceService = getPersistenceService();
                     if (persistenceService != null) {
@@ -299,6 +419,14 @@ public class JdbcCommandExtension extends AbstractConsoleCommandExtension implem
                                 cursorArgumentIndex, cursorPosition, candidates);
                     }
                 }
+            } else if (CMD_NARROW.equalsIgnoreCase(args[0])) {
+                if (SUBCMD_NARROW_MIGRATE.equalsIgnoreCase(args[1])) {
+                    JdbcPersistenceService persistenceService = getPersistenceService();
+                    if (persistenceService != null) {
+                        return new StringsCompleter(persistenceService.getItemNames(), true).complete(args,
+                                cursorArgumentIndex, cursorPosition, candidates);
+                    }
+                }
             }
         }
         return false;
@@ -56,10 +56,12 @@ import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
 import org.openhab.core.types.State;
 import org.openhab.core.types.TypeParser;
+import org.openhab.persistence.jdbc.internal.dto.AggregateFunction;
 import org.openhab.persistence.jdbc.internal.dto.Column;
 import org.openhab.persistence.jdbc.internal.dto.ItemVO;
 import org.openhab.persistence.jdbc.internal.dto.ItemsVO;
 import org.openhab.persistence.jdbc.internal.dto.JdbcHistoricItem;
+import org.openhab.persistence.jdbc.internal.dto.JdbcPendingValue;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcSQLException;
 import org.openhab.persistence.jdbc.internal.utils.DbMetaData;
 import org.openhab.persistence.jdbc.internal.utils.StringUtilsExt;
@@ -97,6 +99,8 @@ public class JdbcBaseDAO {
     protected String sqlAlterTableColumn = "ALTER TABLE #tableName# MODIFY COLUMN #columnName# #columnType#";
     protected String sqlInsertItemValue = "INSERT INTO #tableName# (time, value) VALUES( #tablePrimaryValue#, ? ) ON DUPLICATE KEY UPDATE VALUE= ?";
     protected String sqlGetRowCount = "SELECT COUNT(*) FROM #tableName#";
+    protected String sqlCreateNarrowTable = "CREATE TABLE IF NOT EXISTS #tableName# (item_id INT NOT NULL, time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(item_id, time))";
+    protected String sqlInsertNarrowValue = "INSERT INTO #tableName# (item_id, time, value) VALUES( ?, ?, ? ) ON DUPLICATE KEY UPDATE value=VALUES(value)";
 
     /********
      * INIT *
@@ -444,10 +448,9 @@ public class JdbcBaseDAO {
 
     public void doStoreItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) throws JdbcSQLException {
         ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
-                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { storedVO.getTableName(), "?" });
+        String sql = storeItemValueWithDateProvider(storedVO);
         java.sql.Timestamp timestamp = new java.sql.Timestamp(date.toInstant().toEpochMilli());
-        Object[] params = { timestamp, storedVO.getValue(), storedVO.getValue() };
+        Object[] params = storeItemValueWithDateParams(storedVO, timestamp);
         logger.debug("JDBC::doStoreItemValue sql={} timestamp={} value='{}'", sql, timestamp, storedVO.getValue());
         try {
             Yank.execute(sql, params);
@@ -456,6 +459,38 @@ public class JdbcBaseDAO {
         }
     }
 
+    /**
+     * Stores several values of one item with a single JDBC batch. All values are written with their explicit
+     * timestamp, since the time of the flush is not the time the value was recorded.
+     *
+     * @param item the item the values belong to
+     * @param tableName the table of the item
+     * @param values the values to store
+     * @throws JdbcSQLException on SQL errors
+     */
+    public void doStoreItemValues(Item item, String tableName, List<JdbcPendingValue> values) throws JdbcSQLException {
+        if (values.isEmpty()) {
+            return;
+        }
+        String sql = "";
+        Object[][] params = new Object[values.size()][];
+        for (int i = 0; i < values.size(); i++) {
+            JdbcPendingValue value = values.get(i);
+            ItemVO storedVO = storeItemValueProvider(item, value.getState(), new ItemVO(tableName, null));
+            if (i == 0) {
+                sql = storeItemValueWithDateProvider(storedVO);
+            }
+            params[i] = storeItemValueWithDateParams(storedVO,
+                    new java.sql.Timestamp(value.getDate().toInstant().toEpochMilli()));
+        }
+        logger.debug("JDBC::doStoreItemValues sql={} rows={}", sql, params.length);
+        try {
+            Yank.executeBatch(sql, params);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+    }
+
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) throws JdbcSQLException {
         String sql = histItemFilterQueryProvider(filter, numberDecimalcount, table, name, timeZone);
@@ -478,6 +513,84 @@ public class JdbcBaseDAO {
                 .collect(Collectors.<HistoricItem> toList());
     }
 
+    /**
+     * Queries the values of an item lazily. Rows are read in chunks using keyset pagination on the time column
+     * and converted when iterated, see {@link JdbcHistoricItemIterable}. The page number of the filter must be 0,
+     * the page size limits the number of returned values.
+     */
+    public JdbcHistoricItemIterable doStreamHistItemFilterQuery(Item item, FilterCriteria filter,
+            int numberDecimalcount, String table, String name, ZoneId timeZone,
+            JdbcHistoricItemIterable.QueryListener listener) {
+        // we already retrieve the unit here once as it is a very costly operation
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem numberItem ? numberItem.getUnit() : null;
+        return streamHistItems(filter, numberDecimalcount, table, name, timeZone,
+                (time, value) -> new JdbcHistoricItem(itemName, objectAsState(item, unit, value),
+                        objectAsZonedDateTime(time)),
+                listener);
+    }
+
+    public JdbcHistoricItemIterable doStreamNarrowHistItemFilterQuery(Item item, FilterCriteria filter,
+            int numberDecimalcount, String table, int itemId, ZoneId timeZone,
+            JdbcHistoricItemIterable.QueryListener listener) {
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem numberItem ? numberItem.getUnit() : null;
+        return streamHistItems(filter, numberDecimalcount, narrowTableProvider(table, itemId), itemName, timeZone,
+                (time, value) -> new JdbcHistoricItem(itemName, narrowObjectAsState(item, unit, value),
+                        objectAsZonedDateTime(time)),
+                listener);
+    }
+
+    private JdbcHistoricItemIterable streamHistItems(FilterCriteria filter, int numberDecimalcount, String table,
+            String name, ZoneId timeZone, JdbcHistoricItemIterable.RowMapper rowMapper,
+            JdbcHistoricItemIterable.QueryListener listener) {
+        String firstSql = histItemStreamQueryProvider(filter, numberDecimalcount, table, name, timeZone, false);
+        String nextSql = histItemStreamQueryProvider(filter, numberDecimalcount, table, name, timeZone, true);
+        int limit = filter.getPageSize() == Integer.MAX_VALUE ? 0 : filter.getPageSize();
+        return new JdbcHistoricItemIterable(firstSql, nextSql, limit, JdbcHistoricItemIterable.DEFAULT_CHUNK_SIZE,
+                rowMapper, listener);
+    }
+
+    /**
+     * Queries values of an item aggregated into time buckets by the database.
+     *
+     * @param item the item to query, must be a number, dimmer or rollershutter item unless function is COUNT
+     * @param filter the filter to apply, page size and page number are ignored
+     * @param table the table to query, may be a derived table
+     * @param function the aggregate function to apply per bucket
+     * @param intervalSeconds the length of a bucket in seconds
+     * @param timeZone the time zone used for the time filter
+     * @return one value per non-empty bucket
+     * @throws JdbcSQLException on SQL errors
+     */
+    public List<HistoricItem> doGetAggregatedHistItems(Item item, FilterCriteria filter, String table,
+            AggregateFunction function, long intervalSeconds, ZoneId timeZone) throws JdbcSQLException {
+        String sql = histItemAggregateQueryProvider(filter, table, function, intervalSeconds, timeZone);
+        logger.debug("JDBC::doGetAggregatedHistItems sql={}", sql);
+        List<Object[]> m;
+        try {
+            m = Yank.queryObjectArrays(sql, null);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+        if (m == null) {
+            logger.debug("JDBC::doGetAggregatedHistItems Query failed. Returning an empty list.");
+            return List.of();
+        }
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem numberItem ? numberItem.getUnit() : null;
+        return m.stream().map(o -> new JdbcHistoricItem(itemName,
+                function == AggregateFunction.COUNT ? new DecimalType(objectAsNumber(o[1]).longValue())
+                        : narrowObjectAsState(item, unit, o[1]),
+                objectAsZonedDateTime(o[0]))).collect(Collectors.<HistoricItem> toList());
+    }
+
+    public List<HistoricItem> doGetNarrowAggregatedHistItems(Item item, FilterCriteria filter, String table,
+            int itemId, AggregateFunction function, long intervalSeconds, ZoneId timeZone) throws JdbcSQLException {
+        return doGetAggregatedHistItems(item, filter, narrowTableProvider(table, itemId), function, intervalSeconds,
+                timeZone);
+    }
+
     public void doDeleteItemValues(FilterCriteria filter, String table, ZoneId timeZone) throws JdbcSQLException {
         String sql = histItemFilterDeleteProvider(filter, table, timeZone);
         logger.debug("JDBC::doDeleteItemValues sql={}", sql);
@@ -500,6 +613,75 @@ public class JdbcBaseDAO {
         }
     }
 
+    /********************
+     * NARROW ITEM DAOs *
+     ********************/
+    public void doCreateNarrowTable(String tableName, String dataType) throws JdbcSQLException {
+        String sql = StringUtilsExt.replaceArrayMerge(sqlCreateNarrowTable,
+                new String[] { "#tableName#", "#tablePrimaryKey#", "#dbType#" },
+                new String[] { tableName, sqlTypes.get("tablePrimaryKey"), dataType });
+        logger.debug("JDBC::doCreateNarrowTable sql={}", sql);
+        try {
+            Yank.execute(sql, null);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+    }
+
+    public void doStoreNarrowItemValues(Item item, String tableName, int itemId, List<JdbcPendingValue> values)
+            throws JdbcSQLException {
+        if (values.isEmpty()) {
+            return;
+        }
+        boolean number = isNarrowNumberItem(item);
+        String sql = storeNarrowItemValueProvider(tableName, getNarrowDataType(number));
+        Object[][] params = new Object[values.size()][];
+        for (int i = 0; i < values.size(); i++) {
+            JdbcPendingValue value = values.get(i);
+            ItemVO storedVO = storeItemValueProvider(item, value.getState(), new ItemVO(tableName, null));
+            params[i] = new Object[] { itemId, new java.sql.Timestamp(value.getDate().toInstant().toEpochMilli()),
+                    narrowValue(storedVO, number) };
+        }
+        logger.debug("JDBC::doStoreNarrowItemValues sql={} itemId={} rows={}", sql, itemId, params.length);
+        try {
+            Yank.executeBatch(sql, params);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+    }
+
+    public List<HistoricItem> doGetNarrowHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
+            String table, int itemId, ZoneId timeZone) throws JdbcSQLException {
+        String sql = histItemFilterQueryProvider(filter, numberDecimalcount, narrowTableProvider(table, itemId),
+                item.getName(), timeZone);
+        logger.debug("JDBC::doGetNarrowHistItemFilterQuery sql={}", sql);
+        List<Object[]> m;
+        try {
+            m = Yank.queryObjectArrays(sql, null);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+        if (m == null) {
+            logger.debug("JDBC::doGetNarrowHistItemFilterQuery Query failed. Returning an empty list.");
+            return List.of();
+        }
+        String itemName = item.getName();
+        Unit<? extends Quantity<?>> unit = item instanceof NumberItem numberItem ? numberItem.getUnit() : null;
+        return m.stream().map(o -> new JdbcHistoricItem(itemName, narrowObjectAsState(item, unit, o[1]),
+                objectAsZonedDateTime(o[0]))).collect(Collectors.<HistoricItem> toList());
+    }
+
+    public void doDeleteNarrowItemValues(FilterCriteria filter, String table, int itemId, ZoneId timeZone)
+            throws JdbcSQLException {
+        String sql = narrowDeleteProvider(filter, table, itemId, timeZone);
+        logger.debug("JDBC::doDeleteNarrowItemValues sql={}", sql);
+        try {
+            Yank.execute(sql, null);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+    }
+
     /*************
      * Providers *
      *************/
@@ -528,6 +710,54 @@ public class JdbcBaseDAO {
         return queryString;
     }
 
+    /**
+     * Provides the query for {@link JdbcHistoricItemIterable}. Instead of LIMIT/OFFSET, following chunks continue
+     * after the time of the last row read, given as parameter when {@code afterKey} is set.
+     */
+    protected String histItemStreamQueryProvider(FilterCriteria filter, int numberDecimalcount, String table,
+            String simpleName, ZoneId timeZone, boolean afterKey) {
+        boolean ascending = filter.getOrdering() == Ordering.ASCENDING;
+        String filterString = resolveTimeFilter(filter, timeZone);
+        if (afterKey) {
+            filterString += filterString.isEmpty() ? " WHERE" : " AND";
+            filterString += ascending ? " TIME>?" : " TIME<?";
+        }
+        filterString += ascending ? " ORDER BY time ASC" : " ORDER BY time DESC";
+        String queryString = "SELECT time, " + histItemValueProvider(numberDecimalcount, simpleName) + " FROM "
+                + table + filterString;
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    /**
+     * Provides the value column of a query, rounded for number items when numberDecimalcount is not -1.
+     */
+    protected String histItemValueProvider(int numberDecimalcount, String simpleName) {
+        // rounding HALF UP
+        return "NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1
+                ? "ROUND(value," + numberDecimalcount + ")"
+                : "value";
+    }
+
+    /**
+     * Provides the query for aggregated values. The time of a bucket is the time of its first value.
+     */
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, AggregateFunction function,
+            long intervalSeconds, ZoneId timeZone) {
+        String queryString = "SELECT MIN(time), " + function.name() + "(value) FROM " + table
+                + resolveTimeFilter(filter, timeZone) + " GROUP BY " + timeBucketProvider(intervalSeconds);
+        queryString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY 1 ASC" : " ORDER BY 1 DESC";
+        logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
+
+    /**
+     * Provides the expression assigning each row to a time bucket of the given length.
+     */
+    protected String timeBucketProvider(long intervalSeconds) {
+        return "FLOOR(UNIX_TIMESTAMP(time) / " + intervalSeconds + ")";
+    }
+
     protected String histItemFilterDeleteProvider(FilterCriteria filter, String table, ZoneId timeZone) {
         logger.debug("JDBC::histItemFilterDeleteProvider filter = {}, table = {}", filter, table);
 
@@ -553,6 +783,40 @@ public class JdbcBaseDAO {
         return filterString;
     }
 
+    /**
+     * Provides the insert statement for a value with an explicit timestamp as first parameter.
+     * Database specific DAOs override this together with {@link #storeItemValueWithDateParams} when their
+     * {@code sqlInsertItemValue} template uses other placeholders or parameters.
+     */
+    protected String storeItemValueWithDateProvider(ItemVO storedVO) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+                new String[] { "#tableName#", "#tablePrimaryValue#" }, new String[] { storedVO.getTableName(), "?" });
+    }
+
+    protected Object[] storeItemValueWithDateParams(ItemVO storedVO, java.sql.Timestamp timestamp) {
+        return new Object[] { timestamp, storedVO.getValue(), storedVO.getValue() };
+    }
+
+    protected String storeNarrowItemValueProvider(String tableName, String dataType) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertNarrowValue, new String[] { "#tableName#", "#dbType#" },
+                new String[] { tableName, dataType });
+    }
+
+    /**
+     * Provides a derived table containing only the rows of one item, so the database specific
+     * {@link #histItemFilterQueryProvider} can be used for narrow tables as well.
+     */
+    protected String narrowTableProvider(String table, int itemId) {
+        return "(SELECT time, value FROM " + table + " WHERE item_id=" + itemId + ") narrow";
+    }
+
+    protected String narrowDeleteProvider(FilterCriteria filter, String table, int itemId, ZoneId timeZone) {
+        String deleteString = "DELETE FROM " + table + " WHERE item_id=" + itemId
+                + resolveTimeFilter(filter, timeZone).replaceFirst(" WHERE", " AND");
+        logger.debug("JDBC::delete deleteString = {}", deleteString);
+        return deleteString;
+    }
+
     private String updateItemTableNamesProvider(ItemVO itemTable) {
         String queryString = "ALTER TABLE " + itemTable.getTableName() + " RENAME TO " + itemTable.getNewTableName();
         logger.debug("JDBC::query queryString = {}", queryString);
@@ -704,6 +968,27 @@ public class JdbcBaseDAO {
         }
     }
 
+    /**
+     * Values of dimmer and rollershutter items are stored as numbers in narrow tables, all other item types
+     * are converted like their per-item table counterparts.
+     */
+    protected State narrowObjectAsState(Item item, @Nullable Unit<? extends Quantity<?>> unit, Object v) {
+        String itemType = getItemType(item);
+        if ("DIMMERITEM".equals(itemType) || "ROLLERSHUTTERITEM".equals(itemType)) {
+            return new PercentType(BigDecimal.valueOf(objectAsNumber(v).doubleValue()));
+        }
+        return objectAsState(item, unit, v);
+    }
+
+    protected Object narrowValue(ItemVO storedVO, boolean number) {
+        Object value = storedVO.getValue();
+        if (number) {
+            return value instanceof Number ? value : Double.valueOf(value.toString());
+        }
+        // Timestamps of DateTime items are kept in a format that objectAsZonedDateTime can parse again
+        return value.toString();
+    }
+
     protected ZonedDateTime objectAsZonedDateTime(Object v) {
         if (v instanceof Long) {
             return ZonedDateTime.ofInstant(Instant.ofEpochMilli(((Number) v).longValue()), ZoneId.systemDefault());
@@ -792,6 +1077,26 @@ public class JdbcBaseDAO {
         return sqlTypes;
     }
 
+    /**
+     * Checks if values of an item are stored in the number table when using narrow tables.
+     *
+     * @param item the item to check
+     * @return true for number, dimmer and rollershutter items
+     */
+    public boolean isNarrowNumberItem(Item item) {
+        String itemType = getItemType(item);
+        return "NUMBERITEM".equals(itemType) || "DIMMERITEM".equals(itemType) || "ROLLERSHUTTERITEM".equals(itemType);
+    }
+
+    public String getNarrowDataType(boolean number) {
+        String itemType = number ? "NUMBERITEM" : "STRINGITEM";
+        String dataType = sqlTypes.get(itemType);
+        if (dataType == null) {
+            throw new UnsupportedOperationException("No data type found for " + itemType);
+        }
+        return dataType;
+    }
+
     public String getDataType(Item item) {
         String dataType = sqlTypes.get(getItemType(item));
         if (dataType == null) {
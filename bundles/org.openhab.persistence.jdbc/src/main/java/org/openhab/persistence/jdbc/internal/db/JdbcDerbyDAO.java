@@ -74,6 +74,13 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         // http://www.codeproject.com/Questions/162627/how-to-insert-new-record-in-my-table-if-not-exists
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
         sqlAlterTableColumn = "ALTER TABLE #tableName# ALTER COLUMN #columnName# SET DATA TYPE #columnType#";
+        sqlCreateNarrowTable = "CREATE TABLE #tableName# (item_id INT NOT NULL, time #tablePrimaryKey# NOT NULL, value #dbType#, PRIMARY KEY(item_id, time))";
+        // Derby has no upsert, values already stored for the same time are kept
+        sqlInsertNarrowValue = """
+                INSERT INTO #tableName# (item_id, time, value) SELECT n.item_id, n.time, n.value \
+                FROM (VALUES (CAST( ? as INT), CAST( ? as #tablePrimaryKey#), CAST( ? as #dbType#))) n (item_id, time, value) \
+                WHERE NOT EXISTS (SELECT 1 FROM #tableName# t WHERE t.item_id=n.item_id AND t.time=n.time)\
+                """;
     }
 
     private void initSqlTypes() {
@@ -195,21 +202,38 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
     }
 
     @Override
-    public void doStoreItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) throws JdbcSQLException {
-        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+    protected String storeItemValueWithDateProvider(ItemVO storedVO) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
                 new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
                 new String[] { storedVO.getTableName().toUpperCase(), storedVO.getDbType(), "?" });
-        java.sql.Timestamp timestamp = new java.sql.Timestamp(date.toInstant().toEpochMilli());
-        Object[] params = { timestamp, storedVO.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} timestamp={} value='{}'", sql, timestamp, storedVO.getValue());
-        try {
-            Yank.execute(sql, params);
-        } catch (YankSQLException e) {
-            throw new JdbcSQLException(e);
+    }
+
+    @Override
+    protected Object[] storeItemValueWithDateParams(ItemVO storedVO, java.sql.Timestamp timestamp) {
+        return new Object[] { timestamp, storedVO.getValue() };
+    }
+
+    /********************
+     * NARROW ITEM DAOs *
+     ********************/
+    @Override
+    public void doCreateNarrowTable(String tableName, String dataType) throws JdbcSQLException {
+        boolean tableExists = doIfTableExists(tableName.toUpperCase());
+        if (!tableExists) {
+            super.doCreateNarrowTable(tableName.toUpperCase(), dataType);
+        } else {
+            logger.debug("JDBC::doCreateNarrowTable tableExists={}, did not CREATE TABLE", tableExists);
         }
     }
 
+    @Override
+    protected String storeNarrowItemValueProvider(String tableName, String dataType) {
+        String table = tableName.toUpperCase();
+        return StringUtilsExt.replaceArrayMerge(sqlInsertNarrowValue,
+                new String[] { "#tableName#", "#tablePrimaryKey#", "#dbType#", "#tableName#" },
+                new String[] { table, sqlTypes.get("tablePrimaryKey"), dataType, table });
+    }
+
     @Override
     public List<HistoricItem> doGetHistItemFilterQuery(Item item, FilterCriteria filter, int numberDecimalcount,
             String table, String name, ZoneId timeZone) throws JdbcSQLException {
@@ -266,22 +290,8 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
                     + (filter.getPageNumber() * filter.getPageSize() + 1) + " ROWS ONLY";
         }
 
-        // http://www.seemoredata.com/en/showthread.php?132-Round-function-in-Apache-Derby
-        // simulated round function in Derby: CAST(value 0.0005 AS DECIMAL(15,3))
-        // simulated round function in Derby: "CAST(value 0.0005 AS DECIMAL(15,"+numberDecimalcount+"))"
-
-        String queryString = "SELECT time,";
-        if ("NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1) {
-            // rounding HALF UP
-            queryString += "CAST(value 0.";
-            for (int i = 0; i < numberDecimalcount; i++) {
-                queryString += "0";
-            }
-            queryString += "5 AS DECIMAL(31," + numberDecimalcount + "))"; // 31 is DECIMAL max precision
-                                                                           // https://db.apache.org/derby/docs/10.0/manuals/develop/develop151.html
-        } else {
-            queryString += " value FROM " + table.toUpperCase();
-        }
+        String queryString = "SELECT time, " + histItemValueProvider(numberDecimalcount, simpleName) + " FROM "
+                + table.toUpperCase();
 
         if (!filterString.isEmpty()) {
             queryString += filterString;
@@ -290,6 +300,23 @@ public class JdbcDerbyDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String histItemValueProvider(int numberDecimalcount, String simpleName) {
+        if (!"NUMBERITEM".equalsIgnoreCase(simpleName) || numberDecimalcount < 0) {
+            return "value";
+        }
+        // http://www.seemoredata.com/en/showthread.php?132-Round-function-in-Apache-Derby
+        // Derby has no ROUND function, simulated by adding 0.5 of the last digit before truncating: HALF UP
+        // 31 is DECIMAL max precision https://db.apache.org/derby/docs/10.0/manuals/develop/develop151.html
+        return "CAST(value + 0." + "0".repeat(numberDecimalcount) + "5 AS DECIMAL(31," + numberDecimalcount + "))";
+    }
+
+    @Override
+    protected String timeBucketProvider(long intervalSeconds) {
+        // integer division, as FLOOR is only defined for DOUBLE
+        return "{fn TIMESTAMPDIFF(SQL_TSI_SECOND, TIMESTAMP('1970-01-01 00:00:00'), time)} / " + intervalSeconds;
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
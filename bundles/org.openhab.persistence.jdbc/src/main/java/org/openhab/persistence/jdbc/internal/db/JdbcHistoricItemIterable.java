@@ -0,0 +1,207 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.knowm.yank.Yank;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jdbc.internal.exceptions.JdbcQueryException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Lazy result of a query for historic item values.
+ *
+ * Rows are read in chunks using keyset pagination on the time column: the first chunk is read with
+ * {@code firstSql}, every following chunk with {@code nextSql}, which has a single parameter for the time
+ * of the last row read. Each chunk is read from a forward-only {@link ResultSet} and the connection is
+ * returned to the pool before the rows are handed out, so an iterator which is not consumed completely
+ * does not hold any database resources. Rows are converted to {@link HistoricItem}s only when requested.
+ *
+ * The first chunk can be read in advance with {@link #readFirstChunk()}, so that a failing query is reported
+ * to the caller. When reading a following chunk fails, the iterator throws a {@link JdbcQueryException}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcHistoricItemIterable implements Iterable<HistoricItem> {
+
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * Converts the raw time and value columns of a row.
+     */
+    @FunctionalInterface
+    public interface RowMapper {
+        HistoricItem map(Object time, Object value);
+    }
+
+    /**
+     * Is notified about the outcome of every chunk read.
+     */
+    public interface QueryListener {
+        void querySucceeded();
+
+        void queryFailed(SQLException e);
+    }
+
+    private final Logger logger = LoggerFactory.getLogger(JdbcHistoricItemIterable.class);
+
+    private final String firstSql;
+    private final String nextSql;
+    private final int limit;
+    private final int chunkSize;
+    private final RowMapper rowMapper;
+    private final QueryListener listener;
+    private @Nullable List<Object[]> firstChunk;
+
+    /**
+     * @param firstSql query for the first chunk
+     * @param nextSql query for the following chunks, with the time of the last row read as parameter
+     * @param limit maximum number of rows to return, 0 for no limit
+     * @param chunkSize number of rows read per query
+     * @param rowMapper converter for the rows
+     * @param listener listener for the outcome of the queries
+     */
+    public JdbcHistoricItemIterable(String firstSql, String nextSql, int limit, int chunkSize, RowMapper rowMapper,
+            QueryListener listener) {
+        this.firstSql = firstSql;
+        this.nextSql = nextSql;
+        this.limit = limit;
+        this.chunkSize = chunkSize;
+        this.rowMapper = rowMapper;
+        this.listener = listener;
+    }
+
+    /**
+     * Reads the first chunk now instead of on the first call to {@link Iterator#hasNext()}. The chunk is used by
+     * the next iterator created.
+     *
+     * @return this iterable
+     * @throws SQLException when the query fails
+     */
+    public synchronized JdbcHistoricItemIterable readFirstChunk() throws SQLException {
+        firstChunk = read(null, getMaxRows(0));
+        return this;
+    }
+
+    private synchronized @Nullable List<Object[]> takeFirstChunk() {
+        List<Object[]> chunk = firstChunk;
+        firstChunk = null;
+        return chunk;
+    }
+
+    private int getMaxRows(int returned) {
+        return limit > 0 ? Math.min(chunkSize, limit - returned) : chunkSize;
+    }
+
+    private List<Object[]> read(@Nullable Object lastTime, int maxRows) throws SQLException {
+        String sql = lastTime == null ? firstSql : nextSql;
+        logger.debug("JDBC::readChunk sql={} lastTime={} maxRows={}", sql, lastTime, maxRows);
+        HikariDataSource dataSource = Yank.getDefaultConnectionPool();
+        if (dataSource == null) {
+            SQLException e = new SQLException("Database not connected");
+            listener.queryFailed(e);
+            throw e;
+        }
+        List<Object[]> chunk = new ArrayList<>(maxRows);
+        try (Connection connection = dataSource.getConnection();
+                PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY,
+                        ResultSet.CONCUR_READ_ONLY)) {
+            statement.setFetchSize(maxRows);
+            statement.setMaxRows(maxRows);
+            if (lastTime != null) {
+                statement.setObject(1, lastTime);
+            }
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    chunk.add(new Object[] { resultSet.getObject(1), resultSet.getObject(2) });
+                }
+            }
+        } catch (SQLException e) {
+            listener.queryFailed(e);
+            throw e;
+        }
+        listener.querySucceeded();
+        return chunk;
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new Iterator<>() {
+            private @Nullable List<Object[]> firstChunk = takeFirstChunk();
+            private List<Object[]> rows = List.of();
+            private int index = 0;
+            private int returned = 0;
+            private boolean exhausted = false;
+            private @Nullable Object lastTime;
+
+            @Override
+            public boolean hasNext() {
+                if (limit > 0 && returned >= limit) {
+                    return false;
+                }
+                if (index < rows.size()) {
+                    return true;
+                }
+                if (exhausted) {
+                    return false;
+                }
+                readChunk();
+                return index < rows.size();
+            }
+
+            @Override
+            public HistoricItem next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Object[] row = rows.get(index++);
+                returned++;
+                return rowMapper.map(row[0], row[1]);
+            }
+
+            private void readChunk() {
+                int maxRows = getMaxRows(returned);
+                List<Object[]> chunk = firstChunk;
+                firstChunk = null;
+                if (chunk == null) {
+                    try {
+                        chunk = read(lastTime, maxRows);
+                    } catch (SQLException e) {
+                        exhausted = true;
+                        throw new JdbcQueryException("Unable to read values after " + returned + " rows", e);
+                    }
+                }
+                rows = chunk;
+                index = 0;
+                exhausted = chunk.size() < maxRows;
+                if (!chunk.isEmpty()) {
+                    lastTime = chunk.get(chunk.size() - 1)[0];
+                }
+            }
+        };
+    }
+}
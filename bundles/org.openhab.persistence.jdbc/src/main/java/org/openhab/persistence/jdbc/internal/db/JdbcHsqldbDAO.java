@@ -12,8 +12,6 @@
  */
 package org.openhab.persistence.jdbc.internal.db;
 
-import java.time.ZonedDateTime;
-
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
 import org.knowm.yank.Yank;
@@ -67,6 +65,13 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
                 USING (VALUES #tablePrimaryValue#, CAST( ? as #dbType#)) temp (TIME, VALUE) ON (#tableName#.TIME=temp.TIME) \
                 WHEN NOT MATCHED THEN INSERT (TIME, VALUE) VALUES (temp.TIME, temp.VALUE)\
                 """;
+        sqlInsertNarrowValue = """
+                MERGE INTO #tableName# \
+                USING (VALUES CAST( ? as INT), CAST( ? as #tablePrimaryKey#), CAST( ? as #dbType#)) temp (ITEM_ID, TIME, VALUE) \
+                ON (#tableName#.ITEM_ID=temp.ITEM_ID AND #tableName#.TIME=temp.TIME) \
+                WHEN MATCHED THEN UPDATE SET VALUE=temp.VALUE \
+                WHEN NOT MATCHED THEN INSERT (ITEM_ID, TIME, VALUE) VALUES (temp.ITEM_ID, temp.TIME, temp.VALUE)\
+                """;
     }
 
     /**
@@ -144,19 +149,22 @@ public class JdbcHsqldbDAO extends JdbcBaseDAO {
     }
 
     @Override
-    public void doStoreItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) throws JdbcSQLException {
-        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+    protected String storeItemValueWithDateProvider(ItemVO storedVO) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
                 new String[] { "#tableName#", "#dbType#", "#tableName#", "#tablePrimaryValue#" },
                 new String[] { storedVO.getTableName(), storedVO.getDbType(), storedVO.getTableName(), "?" });
-        java.sql.Timestamp timestamp = new java.sql.Timestamp(date.toInstant().toEpochMilli());
-        Object[] params = { timestamp, storedVO.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} timestamp={} value='{}'", sql, timestamp, storedVO.getValue());
-        try {
-            Yank.execute(sql, params);
-        } catch (YankSQLException e) {
-            throw new JdbcSQLException(e);
-        }
+    }
+
+    @Override
+    protected Object[] storeItemValueWithDateParams(ItemVO storedVO, java.sql.Timestamp timestamp) {
+        return new Object[] { timestamp, storedVO.getValue() };
+    }
+
+    @Override
+    protected String storeNarrowItemValueProvider(String tableName, String dataType) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertNarrowValue,
+                new String[] { "#tableName#", "#tablePrimaryKey#", "#dbType#", "#tableName#", "#tableName#" },
+                new String[] { tableName, sqlTypes.get("tablePrimaryKey"), dataType, tableName, tableName });
     }
 
     /****************************
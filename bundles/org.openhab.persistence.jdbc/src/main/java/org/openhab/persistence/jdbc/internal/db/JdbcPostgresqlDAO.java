@@ -78,6 +78,12 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         // NOTICE: on PostgreSql >= 9.5, sqlInsertItemValue query template is modified to do an "upsert" (overwrite
         // existing value). The version check and query change is performed at initAfterFirstDbConnection()
         sqlInsertItemValue = "INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )";
+        // Without upsert (PostgreSql < 9.5) values already stored for the same time are kept
+        sqlInsertNarrowValue = """
+                INSERT INTO #tableName# (item_id, time, value) SELECT n.item_id, n.time, n.value \
+                FROM (VALUES (CAST( ? as INT), CAST( ? as #tablePrimaryKey#), CAST( ? as #dbType#))) n (item_id, time, value) \
+                WHERE NOT EXISTS (SELECT 1 FROM #tableName# t WHERE t.item_id=n.item_id AND t.time=n.time)\
+                """;
         sqlAlterTableColumn = "ALTER TABLE #tableName# ALTER COLUMN #columnName# TYPE #columnType#";
     }
 
@@ -95,6 +101,10 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
                     INSERT INTO #tableName# (TIME, VALUE) VALUES( #tablePrimaryValue#, CAST( ? as #dbType#) )\
                      ON CONFLICT (TIME) DO UPDATE SET VALUE=EXCLUDED.VALUE\
                     """;
+            sqlInsertNarrowValue = """
+                    INSERT INTO #tableName# (item_id, time, value) VALUES( ?, ?, CAST( ? as #dbType#) )\
+                     ON CONFLICT (item_id, time) DO UPDATE SET value=EXCLUDED.value\
+                    """;
         }
     }
 
@@ -239,19 +249,22 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
     }
 
     @Override
-    public void doStoreItemValue(Item item, State itemState, ItemVO vo, ZonedDateTime date) throws JdbcSQLException {
-        ItemVO storedVO = storeItemValueProvider(item, itemState, vo);
-        String sql = StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
+    protected String storeItemValueWithDateProvider(ItemVO storedVO) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertItemValue,
                 new String[] { "#tableName#", "#dbType#", "#tablePrimaryValue#" },
                 new String[] { storedVO.getTableName(), storedVO.getDbType(), "?" });
-        java.sql.Timestamp timestamp = new java.sql.Timestamp(date.toInstant().toEpochMilli());
-        Object[] params = { timestamp, storedVO.getValue() };
-        logger.debug("JDBC::doStoreItemValue sql={} timestamp={} value='{}'", sql, timestamp, storedVO.getValue());
-        try {
-            Yank.execute(sql, params);
-        } catch (YankSQLException e) {
-            throw new JdbcSQLException(e);
-        }
+    }
+
+    @Override
+    protected Object[] storeItemValueWithDateParams(ItemVO storedVO, java.sql.Timestamp timestamp) {
+        return new Object[] { timestamp, storedVO.getValue() };
+    }
+
+    @Override
+    protected String storeNarrowItemValueProvider(String tableName, String dataType) {
+        return StringUtilsExt.replaceArrayMerge(sqlInsertNarrowValue,
+                new String[] { "#tableName#", "#tablePrimaryKey#", "#dbType#", "#tableName#" },
+                new String[] { tableName, sqlTypes.get("tablePrimaryKey"), dataType, tableName });
     }
 
     /****************************
@@ -293,6 +306,18 @@ public class JdbcPostgresqlDAO extends JdbcBaseDAO {
         return queryString;
     }
 
+    @Override
+    protected String histItemValueProvider(int numberDecimalcount, String simpleName) {
+        return "NUMBERITEM".equalsIgnoreCase(simpleName) && numberDecimalcount > -1
+                ? "ROUND(CAST (value AS numeric)," + numberDecimalcount + ")"
+                : "value";
+    }
+
+    @Override
+    protected String timeBucketProvider(long intervalSeconds) {
+        return "FLOOR(EXTRACT(EPOCH FROM time) / " + intervalSeconds + ")";
+    }
+
     /*****************
      * H E L P E R S *
      *****************/
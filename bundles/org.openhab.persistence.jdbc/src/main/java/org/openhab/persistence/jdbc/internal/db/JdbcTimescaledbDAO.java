@@ -12,11 +12,15 @@
  */
 package org.openhab.persistence.jdbc.internal.db;
 
+import java.time.ZoneId;
 import java.util.Properties;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.knowm.yank.Yank;
 import org.knowm.yank.exceptions.YankSQLException;
+import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.core.persistence.FilterCriteria.Ordering;
+import org.openhab.persistence.jdbc.internal.dto.AggregateFunction;
 import org.openhab.persistence.jdbc.internal.dto.ItemVO;
 import org.openhab.persistence.jdbc.internal.exceptions.JdbcSQLException;
 import org.openhab.persistence.jdbc.internal.utils.StringUtilsExt;
@@ -35,6 +39,7 @@ public class JdbcTimescaledbDAO extends JdbcPostgresqlDAO {
     private final Logger logger = LoggerFactory.getLogger(JdbcTimescaledbDAO.class);
 
     private final String sqlCreateHypertable = "SELECT created from create_hypertable('#tableName#', 'time')";
+    private final String sqlCreateNarrowHypertable = "SELECT created from create_hypertable('#tableName#', 'time', if_not_exists => TRUE)";
 
     @Override
     public Properties getConnectionProperties() {
@@ -58,4 +63,31 @@ public class JdbcTimescaledbDAO extends JdbcPostgresqlDAO {
             throw new JdbcSQLException(e);
         }
     }
+
+    @Override
+    public void doCreateNarrowTable(String tableName, String dataType) throws JdbcSQLException {
+        super.doCreateNarrowTable(tableName, dataType);
+        String sql = StringUtilsExt.replaceArrayMerge(this.sqlCreateNarrowHypertable, new String[] { "#tableName#" },
+                new String[] { tableName });
+        this.logger.debug("JDBC::doCreateNarrowTable sql={}", sql);
+        try {
+            Yank.queryScalar(sql, Boolean.class, null);
+        } catch (YankSQLException e) {
+            throw new JdbcSQLException(e);
+        }
+    }
+
+    /**
+     * Uses the TimescaleDB function time_bucket, the time of a bucket is its start.
+     */
+    @Override
+    protected String histItemAggregateQueryProvider(FilterCriteria filter, String table, AggregateFunction function,
+            long intervalSeconds, ZoneId timeZone) {
+        String queryString = "SELECT time_bucket('" + intervalSeconds + " seconds', time) AS bucket, "
+                + function.name() + "(value) FROM " + table + resolveTimeFilter(filter, timeZone)
+                + " GROUP BY bucket";
+        queryString += (filter.getOrdering() == Ordering.ASCENDING) ? " ORDER BY bucket ASC" : " ORDER BY bucket DESC";
+        this.logger.debug("JDBC::query queryString = {}", queryString);
+        return queryString;
+    }
 }
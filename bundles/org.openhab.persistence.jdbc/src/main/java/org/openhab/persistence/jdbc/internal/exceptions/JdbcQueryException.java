@@ -0,0 +1,30 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal.exceptions;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * Unchecked exception thrown while iterating a lazy query result, where {@link JdbcException} cannot be thrown.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcQueryException extends RuntimeException {
+
+    private static final long serialVersionUID = 6027305817935412837L;
+
+    public JdbcQueryException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -12,15 +12,28 @@
  */
 package org.openhab.persistence.jdbc.internal;
 
-import static org.junit.jupiter.api.Assertions.assertThrows;
-import static org.mockito.Mockito.mock;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+import java.sql.SQLException;
+import java.time.ZonedDateTime;
+import java.util.List;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.knowm.yank.exceptions.YankSQLException;
+import org.mockito.ArgumentCaptor;
 import org.openhab.core.i18n.TimeZoneProvider;
+import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.persistence.FilterCriteria;
+import org.openhab.persistence.jdbc.internal.db.JdbcBaseDAO;
+import org.openhab.persistence.jdbc.internal.dto.JdbcPendingValue;
+import org.openhab.persistence.jdbc.internal.exceptions.JdbcException;
+import org.openhab.persistence.jdbc.internal.exceptions.JdbcSQLException;
 
 /**
  * Tests the {@link JdbcPersistenceService}.
@@ -48,4 +61,54 @@ public class JdbcPersistenceServiceTest {
     void removeThrowsIllegalArgumentExceptionIfItemNameOfFilterIsNull() {
         assertThrows(IllegalArgumentException.class, () -> jdbcPersistenceService.remove(filter));
     }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void valuesOfFailedBatchAreQueuedAgain() throws JdbcException {
+        JdbcBaseDAO dao = mock(JdbcBaseDAO.class);
+        doThrow(new JdbcSQLException(new YankSQLException(new SQLException("Connection lost"), "", ""))).doNothing()
+                .when(dao).doStoreItemValues(any(), any(), any());
+        JdbcConfiguration conf = mock(JdbcConfiguration.class);
+        when(conf.isBatchEnabled()).thenReturn(true);
+        when(conf.getBatchSize()).thenReturn(100);
+        when(conf.getBatchInterval()).thenReturn(60000);
+        when(conf.getBatchQueueSize()).thenReturn(3);
+        when(conf.getDBDAO()).thenReturn(dao);
+        jdbcPersistenceService.conf = conf;
+        jdbcPersistenceService.initialized = true;
+        jdbcPersistenceService.itemNameToTableNameMap.put("Temperature", "item0001");
+        jdbcPersistenceService.startFlushJob();
+
+        Item item = mock(Item.class);
+        when(item.getName()).thenReturn("Temperature");
+        ZonedDateTime date = ZonedDateTime.now();
+        try {
+            jdbcPersistenceService.store(item, date, new DecimalType(1));
+            jdbcPersistenceService.store(item, date.plusSeconds(1), new DecimalType(2));
+            jdbcPersistenceService.flushPendingValues();
+
+            assertEquals(2, jdbcPersistenceService.getPendingValueCount());
+            assertEquals(0, jdbcPersistenceService.getStoredValueCount());
+            assertEquals(1, jdbcPersistenceService.errCnt);
+
+            // the queue is limited to three values
+            jdbcPersistenceService.store(item, date.plusSeconds(2), new DecimalType(3));
+            jdbcPersistenceService.store(item, date.plusSeconds(3), new DecimalType(4));
+            assertEquals(1, jdbcPersistenceService.getDroppedValueCount());
+            jdbcPersistenceService.flushPendingValues();
+
+            ArgumentCaptor<List<JdbcPendingValue>> captor = ArgumentCaptor.forClass(List.class);
+            verify(dao, times(2)).doStoreItemValues(eq(item), eq("item0001"), captor.capture());
+            List<JdbcPendingValue> storedValues = captor.getAllValues().get(1);
+            assertEquals(3, storedValues.size());
+            assertEquals(new DecimalType(1), storedValues.get(0).getState());
+            assertEquals(new DecimalType(2), storedValues.get(1).getState());
+            assertEquals(new DecimalType(3), storedValues.get(2).getState());
+            assertEquals(0, jdbcPersistenceService.getPendingValueCount());
+            assertEquals(3, jdbcPersistenceService.getStoredValueCount());
+            assertEquals(0, jdbcPersistenceService.errCnt);
+        } finally {
+            jdbcPersistenceService.stopFlushJob();
+        }
+    }
 }
@@ -14,6 +14,7 @@ package org.openhab.persistence.jdbc.internal.db;
 
 import static org.hamcrest.CoreMatchers.is;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -66,6 +67,8 @@ import org.openhab.core.library.unit.SIUnits;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.types.State;
+import org.openhab.persistence.jdbc.internal.dto.AggregateFunction;
+import org.openhab.persistence.jdbc.internal.dto.ItemVO;
 
 /**
  * Tests the {@link JdbcBaseDAO}.
@@ -194,6 +197,60 @@ public class JdbcBaseDAOTest {
         assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " ORDER BY time DESC LIMIT 0,1"));
     }
 
+    @Test
+    void testHistItemStreamQueryProviderReturnsSelectQueryWithoutLimit() {
+        filter.setPageSize(10);
+
+        String sql = jdbcBaseDAO.histItemStreamQueryProvider(filter, 0, DB_TABLE_NAME, "TEST", UTC_ZONE_ID, false);
+        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " ORDER BY time DESC"));
+    }
+
+    @Test
+    void testHistItemStreamQueryProviderWithKeyReturnsSelectQueryAfterKeyDescendingOrder() {
+        String sql = jdbcBaseDAO.histItemStreamQueryProvider(filter, 0, DB_TABLE_NAME, "TEST", UTC_ZONE_ID, true);
+        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " WHERE TIME<? ORDER BY time DESC"));
+    }
+
+    @Test
+    void testHistItemStreamQueryProviderWithStartDateAndKeyReturnsSelectQueryAfterKeyAscendingOrder() {
+        filter.setBeginDate(parseDateTimeString("2022-01-10T15:01:44"));
+        filter.setOrdering(Ordering.ASCENDING);
+
+        String sql = jdbcBaseDAO.histItemStreamQueryProvider(filter, 0, DB_TABLE_NAME, "TEST", UTC_ZONE_ID, true);
+        assertThat(sql, is("SELECT time, value FROM " + DB_TABLE_NAME + " WHERE TIME>='"
+                + JdbcBaseDAO.JDBC_DATE_FORMAT.format(Objects.requireNonNull(filter.getBeginDate()))
+                + "' AND TIME>? ORDER BY time ASC"));
+    }
+
+    @Test
+    void testHistItemStreamQueryProviderForNumberItemReturnsRoundedValue() {
+        String sql = jdbcBaseDAO.histItemStreamQueryProvider(filter, 3, DB_TABLE_NAME, "NUMBERITEM", UTC_ZONE_ID,
+                false);
+        assertThat(sql, is("SELECT time, ROUND(value,3) FROM " + DB_TABLE_NAME + " ORDER BY time DESC"));
+    }
+
+    @Test
+    void testHistItemAggregateQueryProviderReturnsGroupedSelectQuery() {
+        String sql = jdbcBaseDAO.histItemAggregateQueryProvider(filter, DB_TABLE_NAME, AggregateFunction.AVG, 3600,
+                UTC_ZONE_ID);
+        assertThat(sql, is("SELECT MIN(time), AVG(value) FROM " + DB_TABLE_NAME
+                + " GROUP BY FLOOR(UNIX_TIMESTAMP(time) / 3600) ORDER BY 1 DESC"));
+    }
+
+    @Test
+    void testHistItemAggregateQueryProviderWithStartAndEndDateReturnsGroupedSelectQueryWithWhereClause() {
+        filter.setBeginDate(parseDateTimeString("2022-01-10T15:01:44"));
+        filter.setEndDate(parseDateTimeString("2022-01-15T15:01:44"));
+        filter.setOrdering(Ordering.ASCENDING);
+
+        String sql = jdbcBaseDAO.histItemAggregateQueryProvider(filter, DB_TABLE_NAME, AggregateFunction.MAX, 60,
+                UTC_ZONE_ID);
+        assertThat(sql, is("SELECT MIN(time), MAX(value) FROM " + DB_TABLE_NAME + " WHERE TIME>='" //
+                + JdbcBaseDAO.JDBC_DATE_FORMAT.format(Objects.requireNonNull(filter.getBeginDate())) + "'" //
+                + " AND TIME<='" + JdbcBaseDAO.JDBC_DATE_FORMAT.format(Objects.requireNonNull(filter.getEndDate()))
+                + "' GROUP BY FLOOR(UNIX_TIMESTAMP(time) / 60) ORDER BY 1 ASC"));
+    }
+
     @Test
     void testHistItemFilterDeleteProviderReturnsDeleteQueryWithoutWhereClause() {
         String sql = jdbcBaseDAO.histItemFilterDeleteProvider(filter, DB_TABLE_NAME, UTC_ZONE_ID);
@@ -212,6 +269,59 @@ public class JdbcBaseDAOTest {
                 + "'"));
     }
 
+    @Test
+    void testStoreItemValueWithDateProviderReturnsInsertQueryWithTimeParameter() {
+        String sql = jdbcBaseDAO.storeItemValueWithDateProvider(new ItemVO(DB_TABLE_NAME, null));
+        assertThat(sql, is("INSERT INTO " + DB_TABLE_NAME
+                + " (time, value) VALUES( ?, ? ) ON DUPLICATE KEY UPDATE VALUE= ?"));
+    }
+
+    @Test
+    void testStoreItemValueWithDateParamsReturnsTimestampFirst() {
+        ItemVO vo = new ItemVO(DB_TABLE_NAME, null);
+        vo.setValue(7.3);
+        java.sql.Timestamp timestamp = java.sql.Timestamp.valueOf("2022-01-10 15:01:44");
+
+        Object[] params = jdbcBaseDAO.storeItemValueWithDateParams(vo, timestamp);
+        assertArrayEquals(new Object[] { timestamp, 7.3, 7.3 }, params);
+    }
+
+    @Test
+    void testStoreNarrowItemValueProviderReturnsUpsertQuery() {
+        String sql = jdbcBaseDAO.storeNarrowItemValueProvider("item_number", "DOUBLE");
+        assertThat(sql, is(
+                "INSERT INTO item_number (item_id, time, value) VALUES( ?, ?, ? ) ON DUPLICATE KEY UPDATE value=VALUES(value)"));
+    }
+
+    @Test
+    void testHistItemFilterQueryProviderWithNarrowTableReturnsSelectQueryForSingleItem() {
+        String sql = jdbcBaseDAO.histItemFilterQueryProvider(filter, 0,
+                jdbcBaseDAO.narrowTableProvider("item_number", 5), "TEST", UTC_ZONE_ID);
+        assertThat(sql, is(
+                "SELECT time, value FROM (SELECT time, value FROM item_number WHERE item_id=5) narrow ORDER BY time DESC"));
+    }
+
+    @Test
+    void testNarrowDeleteProviderReturnsDeleteQueryForSingleItem() {
+        String sql = jdbcBaseDAO.narrowDeleteProvider(filter, "item_string", 5, UTC_ZONE_ID);
+        assertThat(sql, is("DELETE FROM item_string WHERE item_id=5"));
+    }
+
+    @Test
+    void testIsNarrowNumberItem() {
+        assertThat(jdbcBaseDAO.isNarrowNumberItem(new NumberItem("Number")), is(true));
+        assertThat(jdbcBaseDAO.isNarrowNumberItem(new DimmerItem("Dimmer")), is(true));
+        assertThat(jdbcBaseDAO.isNarrowNumberItem(new RollershutterItem("Rollershutter")), is(true));
+        assertThat(jdbcBaseDAO.isNarrowNumberItem(new ColorItem("Color")), is(false));
+        assertThat(jdbcBaseDAO.isNarrowNumberItem(new StringItem("String")), is(false));
+    }
+
+    @Test
+    void testNarrowObjectAsStateReturnsPercentTypeForDimmerItem() {
+        State state = jdbcBaseDAO.narrowObjectAsState(new DimmerItem("Dimmer"), null, 42.0);
+        assertThat(state, is(new PercentType(42)));
+    }
+
     @Test
     void testResolveTimeFilterWithNoDatesReturnsEmptyString() {
         String sql = jdbcBaseDAO.resolveTimeFilter(filter, UTC_ZONE_ID);
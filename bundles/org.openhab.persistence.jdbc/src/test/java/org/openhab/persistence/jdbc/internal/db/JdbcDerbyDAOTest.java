@@ -0,0 +1,110 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jdbc.internal.db;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests the {@link JdbcDerbyDAO} against an in-memory Derby database.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JdbcDerbyDAOTest {
+
+    private static final String TABLE_NAME = "item_number";
+
+    private final JdbcDerbyDAO jdbcDerbyDAO = new JdbcDerbyDAO();
+    private @NonNullByDefault({}) Connection connection;
+
+    @BeforeEach
+    void setup() throws SQLException {
+        connection = DriverManager.getConnection("jdbc:derby:memory:JdbcDerbyDAOTest;create=true");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE " + TABLE_NAME.toUpperCase()
+                    + " (item_id INT NOT NULL, time TIMESTAMP NOT NULL, value DOUBLE, PRIMARY KEY(item_id, time))");
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP TABLE " + TABLE_NAME.toUpperCase());
+        }
+        connection.close();
+    }
+
+    @Test
+    void testStoreNarrowItemValuesCanBeRepeated() throws SQLException {
+        String sql = jdbcDerbyDAO.storeNarrowItemValueProvider(TABLE_NAME, jdbcDerbyDAO.getNarrowDataType(true));
+
+        insertBatch(sql, 3);
+        assertEquals(3, getRowCount());
+
+        // like a repeated migration: rows already stored must not fail the batch
+        insertBatch(sql, 5);
+        assertEquals(5, getRowCount());
+    }
+
+    @Test
+    void testNumberValuesAreRounded() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("INSERT INTO " + TABLE_NAME.toUpperCase() + " VALUES (1, CURRENT_TIMESTAMP, 1.23456)");
+        }
+
+        assertEquals(1.235, getValue(jdbcDerbyDAO.histItemValueProvider(3, "NUMBERITEM")));
+        assertEquals(1.0, getValue(jdbcDerbyDAO.histItemValueProvider(0, "NUMBERITEM")));
+        assertEquals(1.23456, getValue(jdbcDerbyDAO.histItemValueProvider(-1, "NUMBERITEM")));
+    }
+
+    private double getValue(String valueExpression) throws SQLException {
+        try (Statement statement = connection.createStatement(); ResultSet resultSet = statement
+                .executeQuery("SELECT " + valueExpression + " FROM " + TABLE_NAME.toUpperCase())) {
+            resultSet.next();
+            return resultSet.getDouble(1);
+        }
+    }
+
+    private void insertBatch(String sql, int rows) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            for (int i = 0; i < rows; i++) {
+                statement.setObject(1, 1);
+                statement.setObject(2, new Timestamp(1000L * i));
+                statement.setObject(3, 1.5 * i);
+                statement.addBatch();
+            }
+            statement.executeBatch();
+        }
+    }
+
+    private int getRowCount() throws SQLException {
+        try (Statement statement = connection.createStatement();
+                ResultSet resultSet = statement.executeQuery("SELECT COUNT(*) FROM " + TABLE_NAME.toUpperCase())) {
+            resultSet.next();
+            return resultSet.getInt(1);
+        }
+    }
+}
@@ -12,6 +12,7 @@
  */
 package org.openhab.persistence.jpa.internal;
 
+import java.math.BigDecimal;
 import java.util.Map;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -35,12 +36,19 @@ public class JpaConfiguration {
     private static final String CFG_USERNAME = "user";
     private static final String CFG_PASSWORD = "password";
     private static final String CFG_SYNCMAPPING = "syncmappings";
+    private static final String CFG_WRITE_BATCH_SIZE = "writeBatchSize";
+    private static final String CFG_WRITE_INTERVAL = "writeInterval";
+
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 0;
+    private static final int DEFAULT_WRITE_INTERVAL = 1000;
 
     public final String dbConnectionUrl;
     public final String dbDriverClass;
     public final String dbUserName;
     public final String dbPassword;
     public final String dbSyncMapping;
+    public final int writeBatchSize;
+    public final int writeInterval;
 
     public JpaConfiguration(final Map<String, @Nullable Object> properties) throws IllegalArgumentException {
         logger.debug("Creating JPA config...");
@@ -81,6 +89,28 @@ public class JpaConfiguration {
         }
         dbSyncMapping = param == null ? "" : param;
 
+        writeBatchSize = parseInt(properties, CFG_WRITE_BATCH_SIZE, DEFAULT_WRITE_BATCH_SIZE);
+        if (writeBatchSize < 0) {
+            throw new IllegalArgumentException("Negative write batch size in JPA configuration!");
+        }
+        writeInterval = parseInt(properties, CFG_WRITE_INTERVAL, DEFAULT_WRITE_INTERVAL);
+        if (writeInterval <= 0) {
+            throw new IllegalArgumentException("Write interval must be positive in JPA configuration!");
+        }
+
         logger.debug("Creating JPA config... done");
     }
+
+    private static int parseInt(final Map<String, @Nullable Object> properties, String key, int defaultValue)
+            throws IllegalArgumentException {
+        Object param = properties.get(key);
+        if (param == null || param.toString().isBlank()) {
+            return defaultValue;
+        }
+        try {
+            return new BigDecimal(param.toString()).intValueExact();
+        } catch (ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid value '" + param + "' for " + key + " in JPA configuration!");
+        }
+    }
 }
@@ -16,8 +16,6 @@ import java.text.DateFormat;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
-import java.util.List;
-import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.openhab.core.items.Item;
@@ -80,17 +78,6 @@ public class JpaHistoricItem implements HistoricItem {
         return DateFormat.getDateTimeInstance().format(timestamp) + ": " + name + " -> " + state.toString();
     }
 
-    /**
-     * This method maps {@link JpaPersistentItem}s to {@link HistoricItem}s.
-     *
-     * @param jpaQueryResult the result with jpa items
-     * @param item used for query information, like the state (State)
-     * @return list of historic items
-     */
-    public static List<HistoricItem> fromResultList(List<JpaPersistentItem> jpaQueryResult, Item item) {
-        return jpaQueryResult.stream().map(pItem -> fromPersistedItem(pItem, item)).collect(Collectors.toList());
-    }
-
     /**
      * Converts the string value of the persisted item to the state of a {@link HistoricItem}.
      *
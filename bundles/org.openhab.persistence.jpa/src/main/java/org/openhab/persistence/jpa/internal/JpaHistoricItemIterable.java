@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.Function;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Iterable over the result of a query, which is read in pages with one query per page, so only one page is held in
+ * memory while iterating. Each page after the first one continues after the timestamp and id of the last row read
+ * (keyset pagination), so rows stored while iterating do not shift the pages. The first page is read when the
+ * iterable is created, so a failing query is noticed by the caller.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaHistoricItemIterable implements Iterable<HistoricItem> {
+
+    /**
+     * Reads one page of the result
+     */
+    @FunctionalInterface
+    public interface PageReader {
+        /**
+         * @param after the last row of the previous page, or <code>null</code> for the first page
+         * @param maxResults maximum number of rows of the page
+         * @return the rows of the page, ordered by timestamp and id
+         */
+        List<JpaPersistentItem> read(@Nullable JpaPersistentItem after, int maxResults);
+    }
+
+    private final PageReader reader;
+    private final Function<JpaPersistentItem, HistoricItem> mapper;
+    private final int maxResults;
+    private final int pageSize;
+    private final List<JpaPersistentItem> firstPage;
+
+    /**
+     * @param reader reader of the pages
+     * @param mapper converts the rows to {@link HistoricItem}s
+     * @param maxResults maximum number of rows of the result
+     * @param pageSize number of rows read with one query
+     */
+    public JpaHistoricItemIterable(PageReader reader, Function<JpaPersistentItem, HistoricItem> mapper,
+            int maxResults, int pageSize) {
+        this.reader = reader;
+        this.mapper = mapper;
+        this.maxResults = maxResults;
+        this.pageSize = pageSize;
+        this.firstPage = reader.read(null, Math.min(maxResults, pageSize));
+    }
+
+    @Override
+    public Iterator<HistoricItem> iterator() {
+        return new Iterator<>() {
+            private List<JpaPersistentItem> page = firstPage;
+            private int index = 0;
+            private int rowCount = firstPage.size();
+
+            @Override
+            public boolean hasNext() {
+                if (index < page.size()) {
+                    return true;
+                }
+                // a page that is not full is the last one
+                if (page.size() < pageSize || rowCount >= maxResults) {
+                    return false;
+                }
+                page = reader.read(page.get(page.size() - 1), Math.min(maxResults - rowCount, pageSize));
+                index = 0;
+                rowCount += page.size();
+                return !page.isEmpty();
+            }
+
+            @Override
+            public HistoricItem next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return mapper.apply(page.get(index++));
+            }
+        };
+    }
+}
@@ -12,21 +12,28 @@
  */
 package org.openhab.persistence.jpa.internal;
 
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.persistence.EntityExistsException;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
 import javax.persistence.Persistence;
-import javax.persistence.Query;
+import javax.persistence.TypedQuery;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
 import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
@@ -65,16 +72,32 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     private static final String SERVICE_LABEL = "JPA";
     protected static final String CONFIG_URI = "persistence:jpa";
 
+    // maximum number of items kept in the write buffer, further items are dropped
+    private static final int MAX_PENDING_ITEMS = 100000;
+    // number of rows read from the database with one query
+    private static final int QUERY_PAGE_SIZE = 500;
+
     private final Logger logger = LoggerFactory.getLogger(JpaPersistenceService.class);
 
     private final ItemRegistry itemRegistry;
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("org.openhab.jpa");
+
     private @Nullable EntityManagerFactory emf;
 
     private @NonNullByDefault({}) JpaConfiguration config;
 
     private boolean initialized;
 
+    // write buffer, guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private List<JpaPersistentItem> pendingItems = new ArrayList<>();
+    // EntityManager reused for writing the buffer, guarded by flushLock
+    private final Object flushLock = new Object();
+    private @Nullable EntityManager flushEntityManager;
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private @Nullable ScheduledFuture<?> flushJob;
+
     @Activate
     public JpaPersistenceService(BundleContext context, Map<String, @Nullable Object> properties,
             final @Reference ItemRegistry itemRegistry) {
@@ -83,6 +106,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         try {
             config = new JpaConfiguration(properties);
             initialized = true;
+            if (config.writeBatchSize > 0) {
+                flushJob = scheduler.scheduleWithFixedDelay(this::flush, config.writeInterval, config.writeInterval,
+                        TimeUnit.MILLISECONDS);
+            }
         } catch (IllegalArgumentException e) {
             logger.warn("{}", e.getMessage());
         }
@@ -103,11 +130,24 @@ public class JpaPersistenceService implements QueryablePersistenceService {
     }
 
     /**
-     * Closes the EntityPersistenceFactory
+     * Writes the buffered items and closes the EntityPersistenceFactory
      */
     @Deactivate
     public void deactivate() {
         logger.debug("Deactivating JPA persistence service");
+        ScheduledFuture<?> localFlushJob = flushJob;
+        if (localFlushJob != null) {
+            localFlushJob.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        synchronized (flushLock) {
+            EntityManager em = flushEntityManager;
+            if (em != null) {
+                em.close();
+                flushEntityManager = null;
+            }
+        }
         closeEntityManagerFactory();
     }
 
@@ -156,7 +196,40 @@ public class JpaPersistenceService implements QueryablePersistenceService {
         pItem.setRealName(item.getName());
         pItem.setTimestamp(new Date());
 
+        if (config.writeBatchSize > 0) {
+            boolean batchComplete;
+            synchronized (pendingLock) {
+                if (pendingItems.size() >= MAX_PENDING_ITEMS) {
+                    logger.warn("Write buffer is full, dropping item {}", name);
+                    return;
+                }
+                pendingItems.add(pItem);
+                batchComplete = pendingItems.size() >= config.writeBatchSize;
+            }
+            if (batchComplete && flushScheduled.compareAndSet(false, true)) {
+                scheduler.execute(this::flush);
+            }
+            logger.debug("Storing item...buffered");
+            return;
+        }
+
         EntityManager em = getEntityManagerFactory().createEntityManager();
+        try {
+            persist(em, pItem);
+        } finally {
+            em.close();
+        }
+
+        logger.debug("Storing item...done");
+    }
+
+    /**
+     * Persists a single item in its own transaction. Failures are logged.
+     *
+     * @param em the EntityManager to use
+     * @param pItem the item to persist
+     */
+    private void persist(EntityManager em, JpaPersistentItem pItem) {
         try {
             logger.debug("Persisting item...");
             // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
@@ -168,16 +241,76 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             if (e.getCause() instanceof EntityExistsException) {
                 // there's a UNIQUE constraint in the database, and we tried to write
                 // a duplicate timestamp. Just ignore
-                logger.debug("Failed to persist item {} because of duplicate timestamp", name);
+                logger.debug("Failed to persist item {} because of duplicate timestamp", pItem.getName());
             } else {
                 logger.error("Error while persisting item! Rolling back!", e);
             }
-            em.getTransaction().rollback();
-        } finally {
-            em.close();
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
         }
+    }
 
-        logger.debug("Storing item...done");
+    /**
+     * Writes the buffered items in a single transaction, using JDBC batching.
+     *
+     * If the transaction fails, e.g. because of a duplicate timestamp, the items are written one by one, so only the
+     * failing items are lost.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        synchronized (flushLock) {
+            List<JpaPersistentItem> items;
+            synchronized (pendingLock) {
+                if (pendingItems.isEmpty()) {
+                    return;
+                }
+                items = pendingItems;
+                pendingItems = new ArrayList<>();
+            }
+            EntityManager em = flushEntityManager;
+            try {
+                if (em == null || !em.isOpen()) {
+                    em = getEntityManagerFactory().createEntityManager();
+                    flushEntityManager = em;
+                }
+            } catch (RuntimeException e) {
+                logger.error("Error while creating EntityManager! Discarding {} items.", items.size(), e);
+                return;
+            }
+            logger.debug("Persisting {} items...", items.size());
+            try {
+                em.getTransaction().begin();
+                for (JpaPersistentItem pItem : items) {
+                    em.persist(pItem);
+                }
+                em.getTransaction().commit();
+                logger.debug("Persisting {} items...done", items.size());
+            } catch (Exception e) {
+                logger.debug("Failed to persist {} items at once, persisting them one by one: {}", items.size(),
+                        e.getMessage());
+                if (em.getTransaction().isActive()) {
+                    em.getTransaction().rollback();
+                }
+                em.clear();
+                // the rolled back instances might have been assigned an id, persist fresh copies
+                for (JpaPersistentItem pItem : items) {
+                    persist(em, copyOf(pItem));
+                }
+            } finally {
+                // detach the written items, the EntityManager is reused for the next batch
+                em.clear();
+            }
+        }
+    }
+
+    private static JpaPersistentItem copyOf(JpaPersistentItem pItem) {
+        JpaPersistentItem copy = new JpaPersistentItem();
+        copy.setName(pItem.getName());
+        copy.setRealName(pItem.getRealName());
+        copy.setTimestamp(Date.from(pItem.getTimestamp().toInstant()));
+        copy.setValue(pItem.getValue());
+        return copy;
     }
 
     @Override
@@ -194,6 +327,9 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             return List.of();
         }
 
+        // make buffered items visible to the query
+        flush();
+
         String itemName = filter.getItemName();
         if (itemName == null) {
             logger.warn("Item name is missing in filter {}", filter);
@@ -212,60 +348,76 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             sortOrder = "DESC";
         }
 
-        boolean hasBeginDate = false;
-        boolean hasEndDate = false;
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("itemName", item.getName());
         String queryString = "SELECT n FROM " + JpaPersistentItem.class.getSimpleName()
                 + " n WHERE n.realName = :itemName";
-        if (filter.getBeginDate() != null) {
+        ZonedDateTime beginDate = filter.getBeginDate();
+        if (beginDate != null) {
             queryString += " AND n.timestamp >= :beginDate";
-            hasBeginDate = true;
+            parameters.put("beginDate", Date.from(beginDate.toInstant()));
         }
-        if (filter.getEndDate() != null) {
+        ZonedDateTime endDate = filter.getEndDate();
+        if (endDate != null) {
             queryString += " AND n.timestamp <= :endDate";
-            hasEndDate = true;
+            parameters.put("endDate", Date.from(endDate.toInstant()));
         }
-        queryString += " ORDER BY n.timestamp " + sortOrder;
+        // order by id as well, so the rows with the same timestamp have a stable order to continue pages from
+        String orderBy = " ORDER BY n.timestamp " + sortOrder + ", n.id " + sortOrder;
+        String comparison = filter.getOrdering() == Ordering.ASCENDING ? ">" : "<";
+        String firstPageQueryString = queryString + orderBy;
+        String nextPageQueryString = queryString + " AND (n.timestamp " + comparison
+                + " :afterTimestamp OR (n.timestamp = :afterTimestamp AND n.id " + comparison + " :afterId))"
+                + orderBy;
 
-        logger.debug("The query: {}", queryString);
+        logger.debug("The query: {}", firstPageQueryString);
 
+        int firstResult = filter.getPageNumber() * filter.getPageSize();
+        try {
+            return new JpaHistoricItemIterable((after, maxResults) -> {
+                if (after == null) {
+                    return queryPage(firstPageQueryString, parameters, firstResult, maxResults);
+                }
+                Map<String, Object> nextPageParameters = new HashMap<>(parameters);
+                nextPageParameters.put("afterTimestamp", Date.from(after.getTimestamp().toInstant()));
+                nextPageParameters.put("afterId", after.getId());
+                return queryPage(nextPageQueryString, nextPageParameters, 0, maxResults);
+            }, pItem -> JpaHistoricItem.fromPersistedItem(pItem, item), filter.getPageSize(), QUERY_PAGE_SIZE);
+        } catch (RuntimeException e) {
+            // logging is done in queryPage()
+            return List.of();
+        }
+    }
+
+    /**
+     * Reads one page of the result of a query
+     */
+    private List<JpaPersistentItem> queryPage(String queryString, Map<String, Object> parameters, int firstResult,
+            int maxResults) {
         EntityManager em = getEntityManagerFactory().createEntityManager();
         try {
             // In RESOURCE_LOCAL calls to EntityManager require a begin/commit
             em.getTransaction().begin();
 
-            logger.debug("Creating query...");
-            Query query = em.createQuery(queryString);
-            query.setParameter("itemName", item.getName());
-            if (hasBeginDate) {
-                query.setParameter("beginDate", Date.from(filter.getBeginDate().toInstant()));
-            }
-            if (hasEndDate) {
-                query.setParameter("endDate", Date.from(filter.getEndDate().toInstant()));
-            }
-
-            query.setFirstResult(filter.getPageNumber() * filter.getPageSize());
-            query.setMaxResults(filter.getPageSize());
-            logger.debug("Creating query...done");
-
-            logger.debug("Retrieving result list...");
-            @SuppressWarnings("unchecked")
+            TypedQuery<JpaPersistentItem> query = em.createQuery(queryString, JpaPersistentItem.class);
+            parameters.forEach(query::setParameter);
+            query.setFirstResult(firstResult);
+            query.setMaxResults(maxResults);
             List<JpaPersistentItem> result = query.getResultList();
-            logger.debug("Retrieving result list...done");
-
-            List<HistoricItem> historicList = JpaHistoricItem.fromResultList(result, item);
-            logger.debug("Convert to HistoricItem: {}", historicList.size());
+            logger.debug("Read page of {} rows", result.size());
 
             em.getTransaction().commit();
 
-            return historicList;
-        } catch (Exception e) {
+            return result;
+        } catch (RuntimeException e) {
             logger.error("Error while querying database!", e);
-            em.getTransaction().rollback();
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
         } finally {
             em.close();
         }
-
-        return List.of();
     }
 
     /**
@@ -292,6 +444,10 @@ public class JpaPersistenceService implements QueryablePersistenceService {
             logger.info("You are setting openjpa.jdbc.SynchronizeMappings, I hope you know what you're doing!");
             properties.put("openjpa.jdbc.SynchronizeMappings", config.dbSyncMapping);
         }
+        if (config.writeBatchSize > 0) {
+            // send the inserts of a buffered batch to the database in JDBC batches
+            properties.put("openjpa.jdbc.DBDictionary", "batchLimit=" + config.writeBatchSize);
+        }
 
         EntityManagerFactory factory = Persistence.createEntityManagerFactory(getPersistenceUnitName(), properties);
         logger.debug("Creating EntityManagerFactory...done");
@@ -0,0 +1,118 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.jpa.internal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.junit.jupiter.api.Test;
+import org.openhab.core.persistence.HistoricItem;
+import org.openhab.persistence.jpa.internal.model.JpaPersistentItem;
+
+/**
+ * Tests the {@link JpaHistoricItemIterable}.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class JpaHistoricItemIterableTest {
+
+    private static final int PAGE_SIZE = 3;
+
+    private final List<JpaPersistentItem> rows = new ArrayList<>();
+    private final List<Long> readAfterIds = new ArrayList<>();
+
+    @Test
+    void testAllRowsAreReadInPages() {
+        addRows(1, 8);
+
+        List<String> values = readValues(new JpaHistoricItemIterable(this::read, pItem -> pItem, 100, PAGE_SIZE));
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6", "7", "8"), values);
+        assertEquals(List.of(-1L, 3L, 6L), readAfterIds);
+    }
+
+    @Test
+    void testMaxResultsLimitsRows() {
+        addRows(1, 8);
+
+        List<String> values = readValues(new JpaHistoricItemIterable(this::read, pItem -> pItem, 4, PAGE_SIZE));
+
+        assertEquals(List.of("1", "2", "3", "4"), values);
+        assertEquals(List.of(-1L, 3L), readAfterIds);
+    }
+
+    @Test
+    void testRowsStoredWhileIteratingDoNotShiftPages() {
+        addRows(1, 6);
+        JpaHistoricItemIterable iterable = new JpaHistoricItemIterable(this::read, pItem -> pItem, 100, PAGE_SIZE);
+
+        List<String> values = new ArrayList<>();
+        for (HistoricItem item : iterable) {
+            values.add(((JpaPersistentItem) item).getValue());
+            if (values.size() == 1) {
+                // a row stored before the current position, as with a descending query
+                rows.add(0, row(0));
+            }
+        }
+
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), values);
+    }
+
+    @Test
+    void testEmptyResult() {
+        JpaHistoricItemIterable iterable = new JpaHistoricItemIterable(this::read, pItem -> pItem, 100, PAGE_SIZE);
+
+        assertFalse(iterable.iterator().hasNext());
+        assertEquals(1, readAfterIds.size());
+    }
+
+    /**
+     * Reads the rows after the given row, like the keyset query of the service. The ids of the given rows are
+     * recorded, -1 for the first page.
+     */
+    private List<JpaPersistentItem> read(@Nullable JpaPersistentItem after, int maxResults) {
+        readAfterIds.add(after == null ? -1L : after.getId());
+        int start = after == null ? 0 : rows.indexOf(after) + 1;
+        return List.copyOf(rows.subList(start, Math.min(rows.size(), start + maxResults)));
+    }
+
+    private void addRows(int first, int last) {
+        for (int i = first; i <= last; i++) {
+            rows.add(row(i));
+        }
+    }
+
+    private static JpaPersistentItem row(int i) {
+        JpaPersistentItem row = new JpaPersistentItem();
+        row.setId((long) i);
+        row.setName("test");
+        row.setRealName("test");
+        row.setTimestamp(new Date(1000L * i));
+        row.setValue(String.valueOf(i));
+        return row;
+    }
+
+    private static List<String> readValues(Iterable<HistoricItem> iterable) {
+        List<String> values = new ArrayList<>();
+        for (HistoricItem item : iterable) {
+            values.add(((JpaPersistentItem) item).getValue());
+        }
+        return values;
+    }
+}
@@ -0,0 +1,186 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.types.State;
+import org.openhab.core.types.TypeParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Binary serialization of {@link MapDbItem}s.
+ *
+ * An item is stored as format version, timestamp, type tag and a payload depending on the type. The most common
+ * state types have a compact payload, all other states are stored as class name and full string representation,
+ * like the {@link StateTypeAdapter} does.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodec {
+    private static final byte VERSION = 1;
+
+    private static final byte TAG_ON = 1;
+    private static final byte TAG_OFF = 2;
+    private static final byte TAG_OPEN = 3;
+    private static final byte TAG_CLOSED = 4;
+    private static final byte TAG_DECIMAL = 5;
+    private static final byte TAG_PERCENT = 6;
+    private static final byte TAG_STRING = 7;
+    private static final byte TAG_OTHER = 127;
+
+    private final Logger logger = LoggerFactory.getLogger(MapDbItemCodec.class);
+
+    public byte[] encode(MapDbItem item) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(VERSION);
+        out.writeLong(item.getTimestamp().toInstant().toEpochMilli());
+
+        State state = item.getState();
+        if (state == OnOffType.ON) {
+            out.writeByte(TAG_ON);
+        } else if (state == OnOffType.OFF) {
+            out.writeByte(TAG_OFF);
+        } else if (state == OpenClosedType.OPEN) {
+            out.writeByte(TAG_OPEN);
+        } else if (state == OpenClosedType.CLOSED) {
+            out.writeByte(TAG_CLOSED);
+        } else if (state.getClass() == DecimalType.class) {
+            out.writeByte(TAG_DECIMAL);
+            writeBigDecimal(out, ((DecimalType) state).toBigDecimal());
+        } else if (state.getClass() == PercentType.class) {
+            out.writeByte(TAG_PERCENT);
+            writeBigDecimal(out, ((PercentType) state).toBigDecimal());
+        } else if (state.getClass() == StringType.class) {
+            out.writeByte(TAG_STRING);
+            writeString(out, state.toFullString());
+        } else {
+            out.writeByte(TAG_OTHER);
+            writeString(out, state.getClass().getName());
+            writeString(out, state.toFullString());
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    public @Nullable MapDbItem decode(String name, byte[] value) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(value));
+            byte version = in.readByte();
+            if (version != VERSION) {
+                logger.warn("Couldn't deserialize item '{}': unknown format version {}", name, version);
+                return null;
+            }
+            Date timestamp = new Date(in.readLong());
+            State state = readState(in);
+            if (state == null) {
+                return null;
+            }
+
+            MapDbItem item = new MapDbItem();
+            item.setName(name);
+            item.setTimestamp(timestamp);
+            item.setState(state);
+            return item;
+        } catch (IOException e) {
+            logger.warn("Couldn't deserialize item '{}': {}", name, e.getMessage());
+            return null;
+        }
+    }
+
+    private @Nullable State readState(DataInputStream in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case TAG_ON:
+                return OnOffType.ON;
+            case TAG_OFF:
+                return OnOffType.OFF;
+            case TAG_OPEN:
+                return OpenClosedType.OPEN;
+            case TAG_CLOSED:
+                return OpenClosedType.CLOSED;
+            case TAG_DECIMAL:
+                return new DecimalType(readBigDecimal(in));
+            case TAG_PERCENT:
+                return new PercentType(readBigDecimal(in));
+            case TAG_STRING:
+                return new StringType(readString(in));
+            case TAG_OTHER:
+                String typeName = readString(in);
+                String value = readString(in);
+                try {
+                    @SuppressWarnings("unchecked")
+                    Class<? extends State> valueType = (Class<? extends State>) Class.forName(typeName);
+                    return TypeParser.parseState(List.of(valueType), value);
+                } catch (ClassNotFoundException e) {
+                    logger.warn("Couldn't deserialize state '{}': unknown type '{}'", value, typeName);
+                    return null;
+                }
+            default:
+                throw new IOException("unknown type tag " + tag);
+        }
+    }
+
+    /**
+     * Writes a string with an int length prefix. Unlike {@link DataOutputStream#writeUTF(String)}, this is not
+     * limited to 64 KB.
+     */
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0 || length > in.available()) {
+            throw new IOException("invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeBigDecimal(DataOutputStream out, BigDecimal value) throws IOException {
+        byte[] unscaledValue = value.unscaledValue().toByteArray();
+        out.writeInt(value.scale());
+        out.writeShort(unscaledValue.length);
+        out.write(unscaledValue);
+    }
+
+    private static BigDecimal readBigDecimal(DataInputStream in) throws IOException {
+        int scale = in.readInt();
+        byte[] unscaledValue = new byte[in.readUnsignedShort()];
+        in.readFully(unscaledValue);
+        return new BigDecimal(new BigInteger(unscaledValue), scale);
+    }
+}
@@ -22,18 +22,26 @@ import java.util.Date;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.mapdb.BTreeKeySerializer;
 import org.mapdb.DB;
 import org.mapdb.DBMaker;
+import org.mapdb.Serializer;
 import org.openhab.core.OpenHAB;
 import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigParser;
+import org.openhab.core.config.core.ConfigurableService;
 import org.openhab.core.items.Item;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.HistoricItem;
@@ -43,9 +51,11 @@ import org.openhab.core.persistence.QueryablePersistenceService;
 import org.openhab.core.persistence.strategy.PersistenceStrategy;
 import org.openhab.core.types.State;
 import org.openhab.core.types.UnDefType;
+import org.osgi.framework.Constants;
 import org.osgi.service.component.annotations.Activate;
 import org.osgi.service.component.annotations.Component;
 import org.osgi.service.component.annotations.Deactivate;
+import org.osgi.service.component.annotations.Modified;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -60,31 +70,53 @@ import com.google.gson.GsonBuilder;
  * @author Martin Kühl - Port to 3.x
  */
 @NonNullByDefault
-@Component(service = { PersistenceService.class, QueryablePersistenceService.class })
+@Component(service = { PersistenceService.class,
+        QueryablePersistenceService.class }, configurationPid = "org.openhab.mapdb", //
+        property = Constants.SERVICE_PID + "=org.openhab.mapdb")
+@ConfigurableService(category = "persistence", label = "MapDB Persistence Service", description_uri = MapDbPersistenceService.CONFIG_URI)
 public class MapDbPersistenceService implements QueryablePersistenceService {
 
+    protected static final String CONFIG_URI = "persistence:mapdb";
+    private static final String COMMIT_INTERVAL_CONFIG = "commitInterval";
+    private static final long COMMIT_INTERVAL_DEFAULT = 5;
+    private static final String COMMIT_THRESHOLD_CONFIG = "commitThreshold";
+    private static final int COMMIT_THRESHOLD_DEFAULT = 100;
+
     private static final String SERVICE_ID = "mapdb";
     private static final String SERVICE_LABEL = "MapDB";
     private static final Path DB_DIR = new File(OpenHAB.getUserDataFolder(), "persistence").toPath().resolve("mapdb");
     private static final Path BACKUP_DIR = DB_DIR.resolve("backup");
     private static final String DB_FILE_NAME = "storage.mapdb";
+    private static final String MAP_NAME = "itemStoreBinary";
+    private static final String JSON_MAP_NAME = "itemStore";
 
     private final Logger logger = LoggerFactory.getLogger(MapDbPersistenceService.class);
 
     private final ExecutorService threadPool = ThreadPoolManager.getPool(getClass().getSimpleName());
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("org.openhab.mapdb");
 
     /**
      * holds the local instance of the MapDB database
      */
 
     private @NonNullByDefault({}) DB db;
-    private @NonNullByDefault({}) Map<String, String> map;
+    private @NonNullByDefault({}) Map<String, byte[]> map;
+
+    private final MapDbItemCodec codec = new MapDbItemCodec();
+
+    /**
+     * number of stored values which have not been committed yet
+     */
+    private final AtomicInteger uncommitted = new AtomicInteger();
+    private volatile long commitInterval = COMMIT_INTERVAL_DEFAULT;
+    private volatile int commitThreshold = COMMIT_THRESHOLD_DEFAULT;
+    private @Nullable ScheduledFuture<?> commitJob;
 
     private transient Gson mapper = new GsonBuilder().registerTypeHierarchyAdapter(State.class, new StateTypeAdapter())
             .create();
 
     @Activate
-    public void activate() {
+    public void activate(Map<String, Object> config) {
         logger.debug("MapDB persistence service is being activated");
 
         try {
@@ -97,8 +129,7 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
         File dbFile = DB_DIR.resolve(DB_FILE_NAME).toFile();
         try {
-            db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-            map = db.createTreeMap("itemStore").makeOrGet();
+            openDatabase(dbFile);
         } catch (RuntimeException re) {
             Throwable cause = re.getCause();
             if (cause instanceof ClassNotFoundException cnf) {
@@ -129,24 +160,81 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
                     return;
                 }
 
-                db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
-                map = db.createTreeMap("itemStore").makeOrGet();
+                openDatabase(dbFile);
             } else {
                 logger.warn("Failed to create or open the MapDB: {}", re.getMessage());
                 logger.warn("MapDB persistence service activation has failed.");
+                return;
             }
         }
+        modified(config);
         logger.debug("MapDB persistence service is now activated");
     }
 
+    @Modified
+    public synchronized void modified(Map<String, Object> config) {
+        commitInterval = Math.max(0, ConfigParser.valueAsOrElse(config.get(COMMIT_INTERVAL_CONFIG), Long.class,
+                COMMIT_INTERVAL_DEFAULT));
+        commitThreshold = Math.max(1, ConfigParser.valueAsOrElse(config.get(COMMIT_THRESHOLD_CONFIG), Integer.class,
+                COMMIT_THRESHOLD_DEFAULT));
+
+        ScheduledFuture<?> commitJob = this.commitJob;
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            this.commitJob = null;
+        }
+        if (commitInterval > 0) {
+            this.commitJob = scheduler.scheduleWithFixedDelay(this::commit, commitInterval, commitInterval,
+                    TimeUnit.SECONDS);
+        }
+        // values stored with the previous configuration are not delayed any longer than necessary
+        threadPool.submit(this::commit);
+    }
+
     @Deactivate
-    public void deactivate() {
+    public synchronized void deactivate() {
         logger.debug("MapDB persistence service deactivated");
+        ScheduledFuture<?> commitJob = this.commitJob;
+        if (commitJob != null) {
+            commitJob.cancel(false);
+            this.commitJob = null;
+        }
         if (db != null) {
+            commit();
             db.close();
         }
     }
 
+    private void openDatabase(File dbFile) {
+        db = DBMaker.newFileDB(dbFile).closeOnJvmShutdown().make();
+        map = db.createTreeMap(MAP_NAME).keySerializer(BTreeKeySerializer.STRING)
+                .valueSerializer(Serializer.BYTE_ARRAY).makeOrGet();
+
+        if (db.exists(JSON_MAP_NAME)) {
+            Map<String, String> jsonMap = db.getTreeMap(JSON_MAP_NAME);
+            logger.info("Converting {} MapDB entries from JSON to binary format", jsonMap.size());
+            jsonMap.forEach((name, json) -> deserialize(json).ifPresent(item -> {
+                try {
+                    map.putIfAbsent(name, codec.encode(item));
+                } catch (IOException e) {
+                    logger.warn("Failed to convert '{}' with state '{}': {}", name, item.getState(), e.getMessage());
+                }
+            }));
+            db.delete(JSON_MAP_NAME);
+            db.commit();
+        }
+    }
+
+    /**
+     * Commits all stored values which have not been committed yet.
+     */
+    private synchronized void commit() {
+        if (uncommitted.getAndSet(0) > 0 && db != null && !db.isClosed()) {
+            db.commit();
+            logger.trace("Committed MapDB database");
+        }
+    }
+
     @Override
     public String getId() {
         return SERVICE_ID;
@@ -159,8 +247,8 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
 
     @Override
     public Set<PersistenceItemInfo> getItemInfo() {
-        return map.values().stream().map(this::deserialize).flatMap(MapDbPersistenceService::streamOptional)
-                .collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
+        return map.entrySet().stream().map(entry -> codec.decode(entry.getKey(), entry.getValue()))
+                .filter(Objects::nonNull).collect(Collectors.<PersistenceItemInfo> toUnmodifiableSet());
     }
 
     @Override
@@ -184,25 +272,28 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         mItem.setState(state);
         mItem.setTimestamp(new Date());
         threadPool.submit(() -> {
-            String json = serialize(mItem);
-            map.put(localAlias, json);
-            db.commit();
-            logger.debug("Stored '{}' with state '{}' as '{}' in MapDB database", localAlias, state, json);
+            try {
+                map.put(localAlias, codec.encode(mItem));
+            } catch (IOException e) {
+                logger.warn("Failed to store '{}' with state '{}': {}", localAlias, state, e.getMessage());
+                return;
+            }
+            logger.debug("Stored '{}' with state '{}' in MapDB database", localAlias, state);
+            if (uncommitted.incrementAndGet() >= commitThreshold || commitInterval == 0) {
+                commit();
+            }
         });
     }
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
-        String json = map.get(filter.getItemName());
-        if (json == null) {
+        String name = filter.getItemName();
+        byte[] value = name == null ? null : map.get(name);
+        if (value == null) {
             return List.of();
         }
-        Optional<MapDbItem> item = deserialize(json);
-        return item.isPresent() ? List.of(item.get()) : List.of();
-    }
-
-    private String serialize(MapDbItem item) {
-        return mapper.toJson(item);
+        MapDbItem item = codec.decode(name, value);
+        return item != null ? List.of(item) : List.of();
     }
 
     @SuppressWarnings("null")
@@ -218,10 +309,6 @@ public class MapDbPersistenceService implements QueryablePersistenceService {
         return Optional.of(item);
     }
 
-    private static <T> Stream<T> streamOptional(Optional<T> opt) {
-        return opt.isPresent() ? Stream.of(opt.get()) : Stream.empty();
-    }
-
     @Override
     public List<PersistenceStrategy> getDefaultStrategies() {
         return List.of(PersistenceStrategy.Globals.RESTORE, PersistenceStrategy.Globals.CHANGE);
@@ -0,0 +1,95 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mapdb;
+
+import static org.hamcrest.CoreMatchers.*;
+import static org.hamcrest.MatcherAssert.assertThat;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Date;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.openhab.core.library.types.DateTimeType;
+import org.openhab.core.library.types.DecimalType;
+import org.openhab.core.library.types.HSBType;
+import org.openhab.core.library.types.OnOffType;
+import org.openhab.core.library.types.OpenClosedType;
+import org.openhab.core.library.types.PercentType;
+import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.StringType;
+import org.openhab.core.library.unit.SIUnits;
+import org.openhab.core.library.unit.Units;
+import org.openhab.core.types.State;
+import org.openhab.persistence.mapdb.internal.MapDbItem;
+import org.openhab.persistence.mapdb.internal.MapDbItemCodec;
+
+/**
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public class MapDbItemCodecTest {
+    private MapDbItemCodec codec = new MapDbItemCodec();
+
+    private static final List<State> VALUES = List.of(OnOffType.ON, OnOffType.OFF, OpenClosedType.OPEN,
+            OpenClosedType.CLOSED, DecimalType.ZERO, new DecimalType(1.123), new DecimalType(-10000000),
+            new DecimalType(new BigDecimal("123456789012345678901234567890.0987654321")), PercentType.ZERO,
+            PercentType.HUNDRED, PercentType.valueOf("0.0000001"), PercentType.valueOf("99.999"),
+            StringType.valueOf(""), StringType.valueOf("a b c 1 2 3"), StringType.valueOf("@@@###   @@@"),
+            HSBType.fromRGB(11, 22, 33), QuantityType.valueOf("1 kW"),
+            new QuantityType<>(new BigDecimal("21.23"), SIUnits.CELSIUS), QuantityType.valueOf(20, Units.AMPERE),
+            new DateTimeType("2024-01-02T03:04:05.678Z"));
+
+    @ParameterizedTest
+    @MethodSource
+    public void encodeDecodeRoundtripShouldRecreateTheStoredItem(State state) throws IOException {
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date(1700000000123L));
+
+        MapDbItem actual = Objects.requireNonNull(codec.decode("item", codec.encode(item)));
+        assertThat(actual.getName(), is("item"));
+        assertThat(actual.getState(), is(equalTo(state)));
+        assertThat(actual.getTimestamp(), is(item.getTimestamp()));
+    }
+
+    public static Stream<State> encodeDecodeRoundtripShouldRecreateTheStoredItem() {
+        return VALUES.stream();
+    }
+
+    @Test
+    public void encodeDecodeRoundtripShouldKeepStringsLongerThan64KB() throws IOException {
+        StringType state = StringType.valueOf("\u00e4bc".repeat(40000));
+        MapDbItem item = new MapDbItem();
+        item.setName("item");
+        item.setState(state);
+        item.setTimestamp(new Date(1700000000123L));
+
+        MapDbItem actual = Objects.requireNonNull(codec.decode("item", codec.encode(item)));
+        assertThat(actual.getState(), is(equalTo(state)));
+    }
+
+    @Test
+    public void decodeShouldRejectUnknownFormat() {
+        assertThat(codec.decode("item", new byte[] { 42, 0, 0 }), is(nullValue()));
+        assertThat(codec.decode("item", new byte[0]), is(nullValue()));
+    }
+}
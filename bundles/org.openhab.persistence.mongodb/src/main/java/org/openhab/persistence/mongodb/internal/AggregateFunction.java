@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.persistence.mongodb.internal;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+
+/**
+ * This class represents the aggregate functions supported for aggregated queries.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+public enum AggregateFunction {
+    /**
+     * Average of all values within a time bucket.
+     */
+    AVG,
+    /**
+     * Lowest value within a time bucket.
+     */
+    MIN,
+    /**
+     * Highest value within a time bucket.
+     */
+    MAX,
+    /**
+     * Number of values within a time bucket, supported for all item types.
+     */
+    COUNT
+}
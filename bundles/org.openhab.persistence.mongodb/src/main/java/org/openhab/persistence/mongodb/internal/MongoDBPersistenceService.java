@@ -12,25 +12,43 @@
  */
 package org.openhab.persistence.mongodb.internal;
 
+import java.time.Duration;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.bson.BsonMaximumSizeExceededException;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
+import org.openhab.core.common.ThreadPoolManager;
+import org.openhab.core.config.core.ConfigParser;
 import org.openhab.core.items.Item;
 import org.openhab.core.items.ItemNotFoundException;
 import org.openhab.core.items.ItemRegistry;
+import org.openhab.core.library.items.DimmerItem;
 import org.openhab.core.library.items.NumberItem;
+import org.openhab.core.library.items.RollershutterItem;
+import org.openhab.core.library.types.DecimalType;
 import org.openhab.core.library.types.QuantityType;
+import org.openhab.core.library.types.RawType;
+import org.openhab.core.library.types.StringType;
 import org.openhab.core.persistence.FilterCriteria;
 import org.openhab.core.persistence.FilterCriteria.Ordering;
 import org.openhab.core.persistence.HistoricItem;
@@ -50,10 +68,26 @@ import org.osgi.service.component.annotations.Reference;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.MongoSecurityException;
+import com.mongodb.MongoSocketOpenException;
+import com.mongodb.MongoTimeoutException;
+import com.mongodb.WriteConcern;
+import com.mongodb.bulk.BulkWriteError;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoCollection;
 import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BsonField;
+import com.mongodb.client.model.CreateCollectionOptions;
+import com.mongodb.client.model.InsertManyOptions;
+import com.mongodb.client.model.Sorts;
+import com.mongodb.client.model.TimeSeriesOptions;
 import com.mongodb.client.result.DeleteResult;
 
 /**
@@ -68,12 +102,25 @@ import com.mongodb.client.result.DeleteResult;
         ModifiablePersistenceService.class }, configurationPid = "org.openhab.mongodb", configurationPolicy = ConfigurationPolicy.REQUIRE)
 public class MongoDBPersistenceService implements ModifiablePersistenceService {
 
+    private static final int DEFAULT_WRITE_BATCH_SIZE = 100;
+    private static final int DEFAULT_WRITE_INTERVAL = 1000;
+    private static final int MAX_PENDING_DOCUMENTS = 100000;
+    private static final int MAX_DOCUMENT_SIZE = 16 * 1024 * 1024;
+    private static final int LARGE_VALUE_SIZE = 1024 * 1024;
+    private static final int DUPLICATE_KEY_ERROR = 11000;
+    private static final int NAMESPACE_EXISTS_ERROR = 48;
+
     private final Logger logger = LoggerFactory.getLogger(MongoDBPersistenceService.class);
 
+    private final ScheduledExecutorService scheduler = ThreadPoolManager.getScheduledPool("org.openhab.mongodb");
+
     private String url = "";
     private String db = "";
     private String collection = "";
     private boolean collectionPerItem;
+    private boolean timeSeries;
+    private int writeBatchSize = DEFAULT_WRITE_BATCH_SIZE;
+    private WriteConcern writeConcern = WriteConcern.ACKNOWLEDGED;
 
     private boolean initialized = false;
 
@@ -81,6 +128,17 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
 
     private @Nullable MongoClient cl;
 
+    // collection handles are bound to the client and have their index ensured, so they are cached per connection
+    private final Map<String, MongoCollection<Document>> collections = new ConcurrentHashMap<>();
+
+    // write-behind queue of documents per collection name, guarded by pendingLock
+    private final Object pendingLock = new Object();
+    private Map<String, List<Document>> pendingDocuments = new LinkedHashMap<>();
+    private int pendingCount;
+    private final Object flushLock = new Object();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean(false);
+    private @Nullable ScheduledFuture<?> flushJob;
+
     @Activate
     public MongoDBPersistenceService(final @Reference ItemRegistry itemRegistry) {
         this.itemRegistry = itemRegistry;
@@ -112,16 +170,49 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
         collection = dbCollection == null ? "" : dbCollection;
         collectionPerItem = dbCollection == null || dbCollection.isBlank();
 
+        timeSeries = ConfigParser.valueAsOrElse(config.get("timeSeries"), Boolean.class, false);
+        logger.debug("MongoDB time series collections {}", timeSeries);
+
+        writeBatchSize = Math.max(1,
+                ConfigParser.valueAsOrElse(config.get("writeBatchSize"), Integer.class, DEFAULT_WRITE_BATCH_SIZE));
+        int writeInterval = Math.max(1,
+                ConfigParser.valueAsOrElse(config.get("writeInterval"), Integer.class, DEFAULT_WRITE_INTERVAL));
+        String configWriteConcern = ConfigParser.valueAsOrElse(config.get("writeConcern"), String.class,
+                "acknowledged");
+        WriteConcern parsedWriteConcern = WriteConcern.valueOf(configWriteConcern);
+        if (parsedWriteConcern == null) {
+            logger.warn("Unknown write concern '{}', using 'acknowledged'.", configWriteConcern);
+            parsedWriteConcern = WriteConcern.ACKNOWLEDGED;
+        }
+        writeConcern = parsedWriteConcern;
+        logger.debug("MongoDB write batch size {}, interval {} ms, write concern {}", writeBatchSize, writeInterval,
+                configWriteConcern);
+
         if (!tryConnectToDatabase()) {
             logger.warn("Failed to connect to MongoDB server. Trying to reconnect later.");
         }
 
+        flushJob = scheduler.scheduleWithFixedDelay(this::flush, writeInterval, writeInterval, TimeUnit.MILLISECONDS);
         initialized = true;
     }
 
     @Deactivate
     public void deactivate(final int reason) {
         logger.debug("MongoDB persistence bundle stopping. Disconnecting from database.");
+        initialized = false;
+        ScheduledFuture<?> localFlushJob = flushJob;
+        if (localFlushJob != null) {
+            localFlushJob.cancel(false);
+            flushJob = null;
+        }
+        flush();
+        synchronized (pendingLock) {
+            if (pendingCount > 0) {
+                logger.warn("Discarding {} documents which could not be written to the database.", pendingCount);
+            }
+            pendingDocuments = new LinkedHashMap<>();
+            pendingCount = 0;
+        }
         disconnectFromDatabase();
     }
 
@@ -205,11 +296,16 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
     }
 
     /**
-     * Connects to the Collection
+     * Connects to the Collection. The collection is cached until the database is disconnected, so the index is only
+     * created once.
      *
      * @return The collection object when collection creation was successful. Null otherwise.
      */
     private @Nullable MongoCollection<Document> connectToCollection(String collectionName) {
+        MongoCollection<Document> mongoCollection = collections.get(collectionName);
+        if (mongoCollection != null) {
+            return mongoCollection;
+        }
         try {
             @Nullable
             MongoClient db = getDatabase();
@@ -219,12 +315,17 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
                 return null;
             }
 
-            MongoCollection<Document> mongoCollection = db.getDatabase(this.db).getCollection(collectionName);
+            MongoDatabase database = db.getDatabase(this.db);
+            if (timeSeries) {
+                createTimeSeriesCollection(database, collectionName);
+            }
+            mongoCollection = database.getCollection(collectionName).withWriteConcern(writeConcern);
 
             Document idx = new Document();
             idx.append(MongoDBFields.FIELD_ITEM, 1).append(MongoDBFields.FIELD_TIMESTAMP, 1);
             mongoCollection.createIndex(idx);
 
+            collections.put(collectionName, mongoCollection);
             return mongoCollection;
         } catch (Exception e) {
             logger.error("Failed to connect to collection {}: {}", collectionName, e.getMessage(), e);
@@ -232,10 +333,40 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
         }
     }
 
+    /**
+     * Creates a time series collection with the item name as meta field, unless the collection exists. Existing
+     * collections are used as they are, they cannot be converted.
+     */
+    private void createTimeSeriesCollection(MongoDatabase database, String collectionName) {
+        List<Document> existing = database.listCollections().filter(new Document("name", collectionName))
+                .into(new ArrayList<>());
+        for (Document info : existing) {
+            if (collectionName.equals(info.getString("name"))) {
+                if (!"timeseries".equals(info.getString("type"))) {
+                    logger.info("Collection {} is not a time series collection, it will be used as it is.",
+                            collectionName);
+                }
+                return;
+            }
+        }
+
+        try {
+            database.createCollection(collectionName, new CreateCollectionOptions().timeSeriesOptions(
+                    new TimeSeriesOptions(MongoDBFields.FIELD_TIMESTAMP).metaField(MongoDBFields.FIELD_ITEM)));
+            logger.debug("Created time series collection {}", collectionName);
+        } catch (MongoCommandException e) {
+            // the collection may have been created concurrently
+            if (e.getErrorCode() != NAMESPACE_EXISTS_ERROR) {
+                throw e;
+            }
+        }
+    }
+
     /**
      * Disconnects from the database
      */
     private synchronized void disconnectFromDatabase() {
+        collections.clear();
         MongoClient localCl = cl;
         if (localCl != null) {
             localCl.close();
@@ -246,6 +377,8 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
 
     @Override
     public Iterable<HistoricItem> query(FilterCriteria filter) {
+        // make sure queued values are included in the result
+        flush();
         MongoCollection<Document> collection = prepareCollection(filter);
         // If collection creation failed, return nothing.
         if (collection == null) {
@@ -297,6 +430,100 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
         return items;
     }
 
+    /**
+     * Queries the values of an item aggregated into time buckets by the database, so only one document per bucket is
+     * transferred instead of every stored value. Buckets start at multiples of the interval since epoch, the
+     * timestamp of an aggregated value is the start of its bucket.
+     *
+     * @param filter the filter criteria, the item name is mandatory
+     * @param function the function to aggregate the values of a bucket with
+     * @param interval the length of the time buckets
+     * @return the aggregated values
+     */
+    public List<HistoricItem> queryAggregated(FilterCriteria filter, AggregateFunction function, Duration interval) {
+        String realItemName = filter.getItemName();
+        if (realItemName == null) {
+            logger.warn("Item name is missing in filter {}", filter);
+            return List.of();
+        }
+        long intervalMillis = interval.toMillis();
+        if (intervalMillis <= 0) {
+            logger.warn("Invalid interval {} for aggregated query of item {}", interval, realItemName);
+            return List.of();
+        }
+        Item item = getItem(realItemName);
+        if (item == null) {
+            logger.warn("Item {} not found", realItemName);
+            return List.of();
+        }
+        if (function != AggregateFunction.COUNT
+                && !(item instanceof NumberItem || item instanceof DimmerItem || item instanceof RollershutterItem)) {
+            logger.warn("{} is not supported for item {} of type {}", function, realItemName, item.getType());
+            return List.of();
+        }
+
+        // make sure queued values are included in the result
+        flush();
+        MongoCollection<Document> collection = prepareCollection(filter);
+        if (collection == null) {
+            // Logging is done in connectToCollection()
+            return List.of();
+        }
+        Document query = createQuery(filter);
+        if (query == null) {
+            return List.of();
+        }
+
+        List<Bson> pipeline = new ArrayList<>();
+        pipeline.add(Aggregates.match(query));
+        pipeline.add(Aggregates.group(createBucketExpression(intervalMillis), createAccumulators(function)));
+        pipeline.add(Aggregates.sort(filter.getOrdering() == Ordering.ASCENDING
+                ? Sorts.ascending(MongoDBFields.FIELD_ID)
+                : Sorts.descending(MongoDBFields.FIELD_ID)));
+        if (filter.getPageSize() != Integer.MAX_VALUE) {
+            pipeline.add(Aggregates.skip(filter.getPageNumber() * filter.getPageSize()));
+            pipeline.add(Aggregates.limit(filter.getPageSize()));
+        }
+        logger.debug("Aggregation: {}", pipeline);
+
+        List<HistoricItem> items = new ArrayList<>();
+        for (Document bucket : collection.aggregate(pipeline)) {
+            State state;
+            if (function == AggregateFunction.COUNT) {
+                state = new DecimalType(((Number) bucket.get(MongoDBFields.FIELD_VALUE)).longValue());
+            } else {
+                if (bucket.get(MongoDBFields.FIELD_UNIT) == null) {
+                    bucket.remove(MongoDBFields.FIELD_UNIT);
+                }
+                state = MongoDBTypeConversions.getStateFromDocument(item, bucket);
+            }
+            items.add(new MongoDBItem(realItemName, state, ZonedDateTime
+                    .ofInstant(bucket.getDate(MongoDBFields.FIELD_ID).toInstant(), ZoneId.systemDefault())));
+        }
+        return items;
+    }
+
+    /**
+     * Creates the start of the bucket of a document: timestamp - (timestamp - epoch) % interval
+     */
+    private static Document createBucketExpression(long intervalMillis) {
+        String timestamp = "$" + MongoDBFields.FIELD_TIMESTAMP;
+        Document millisSinceEpoch = new Document("$subtract", List.of(timestamp, new Date(0)));
+        return new Document("$subtract",
+                List.of(timestamp, new Document("$mod", List.of(millisSinceEpoch, intervalMillis))));
+    }
+
+    private static List<BsonField> createAccumulators(AggregateFunction function) {
+        String value = "$" + MongoDBFields.FIELD_VALUE;
+        BsonField aggregate = switch (function) {
+            case AVG -> Accumulators.avg(MongoDBFields.FIELD_VALUE, value);
+            case MIN -> Accumulators.min(MongoDBFields.FIELD_VALUE, value);
+            case MAX -> Accumulators.max(MongoDBFields.FIELD_VALUE, value);
+            case COUNT -> Accumulators.sum(MongoDBFields.FIELD_VALUE, 1);
+        };
+        return List.of(aggregate, Accumulators.first(MongoDBFields.FIELD_UNIT, "$" + MongoDBFields.FIELD_UNIT));
+    }
+
     private @Nullable Item getItem(String itemName) {
         try {
             return itemRegistry.getItem(itemName);
@@ -344,26 +571,9 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
             return;
         }
 
-        // Connect to mongodb server if we're not already connected
-        // If we can't connect, log.
-        if (!tryConnectToDatabase()) {
-            logger.warn(
-                    "mongodb: No connection to database. Cannot persist item '{}'! Will retry connecting to database next time.",
-                    item);
-            return;
-        }
-
         String realItemName = item.getName();
         String collectionName = collectionPerItem ? realItemName : this.collection;
 
-        @Nullable
-        MongoCollection<Document> collection = connectToCollection(collectionName);
-
-        if (collection == null) {
-            // Logging is done in connectToCollection()
-            return;
-        }
-
         String name = (alias != null) ? alias : realItemName;
         Object value = MongoDBTypeConversions.convertValue(state);
 
@@ -376,15 +586,129 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
         if (item instanceof NumberItem && state instanceof QuantityType<?>) {
             obj.put(MongoDBFields.FIELD_UNIT, ((QuantityType<?>) state).getUnit().toString());
         }
-        try {
-            collection.insertOne(obj);
-        } catch (org.bson.BsonMaximumSizeExceededException e) {
+        if (exceedsMaximumSize(obj, state)) {
             logger.error("Document size exceeds maximum size of 16MB. Item {} not persisted.", name);
-            throw e;
+            throw new BsonMaximumSizeExceededException("Document of item " + name + " exceeds maximum size");
+        }
+
+        boolean batchComplete;
+        synchronized (pendingLock) {
+            if (pendingCount >= MAX_PENDING_DOCUMENTS) {
+                logger.warn("mongodb: Write queue is full. Cannot persist item '{}'!", item);
+                return;
+            }
+            pendingDocuments.computeIfAbsent(collectionName, k -> new ArrayList<>()).add(obj);
+            pendingCount++;
+            batchComplete = pendingCount >= writeBatchSize;
+        }
+        if (batchComplete && flushScheduled.compareAndSet(false, true)) {
+            scheduler.execute(this::flush);
         }
         logger.debug("MongoDB save {}={}", name, value);
     }
 
+    /**
+     * Checks if a document is too large to be written. Only large binary or text values can exceed the limit, so
+     * other documents are not encoded twice.
+     */
+    private boolean exceedsMaximumSize(Document obj, State state) {
+        int valueSize = 0;
+        if (state instanceof RawType rawType) {
+            valueSize = rawType.getBytes().length;
+        } else if (state instanceof StringType) {
+            valueSize = state.toString().length();
+        }
+        return valueSize > LARGE_VALUE_SIZE
+                && new RawBsonDocument(obj, new DocumentCodec()).getByteBuffer().remaining() > MAX_DOCUMENT_SIZE;
+    }
+
+    /**
+     * Writes the queued documents with one unordered bulk insert per collection. Documents that could not be written
+     * because of a connection problem are queued again. They keep their id, so documents that have been written
+     * before the connection failed are rejected as duplicates on the next attempt.
+     * <p />
+     * Time series collections have no unique index on the id, so documents written again would be stored twice. In
+     * time series mode, documents are only queued again if the insert was not sent to the database. Otherwise they
+     * are discarded.
+     * <p />
+     * The method is package-private for testing.
+     */
+    void flush() {
+        flushScheduled.set(false);
+        synchronized (flushLock) {
+            Map<String, List<Document>> documents;
+            synchronized (pendingLock) {
+                if (pendingCount == 0) {
+                    return;
+                }
+                documents = pendingDocuments;
+                pendingDocuments = new LinkedHashMap<>();
+                pendingCount = 0;
+            }
+
+            if (!tryConnectToDatabase()) {
+                logger.warn("mongodb: No connection to database. Will retry writing {} documents later.",
+                        documents.values().stream().mapToInt(List::size).sum());
+                documents.forEach(this::requeue);
+                return;
+            }
+
+            for (Map.Entry<String, List<Document>> entry : documents.entrySet()) {
+                String collectionName = entry.getKey();
+                List<Document> collectionDocuments = entry.getValue();
+                MongoCollection<Document> collection = connectToCollection(collectionName);
+                if (collection == null) {
+                    // Logging is done in connectToCollection()
+                    requeue(collectionName, collectionDocuments);
+                    continue;
+                }
+                try {
+                    collection.insertMany(collectionDocuments, new InsertManyOptions().ordered(false));
+                    logger.debug("MongoDB wrote {} documents to collection {}", collectionDocuments.size(),
+                            collectionName);
+                } catch (MongoBulkWriteException e) {
+                    // documents without errors have been written, as the insert is unordered
+                    long failed = e.getWriteErrors().stream().map(BulkWriteError::getCode)
+                            .filter(code -> code != DUPLICATE_KEY_ERROR).count();
+                    if (failed > 0) {
+                        logger.warn("Failed to write {} of {} documents to collection {}: {}", failed,
+                                collectionDocuments.size(), collectionName, e.getMessage());
+                    }
+                } catch (MongoException e) {
+                    if (timeSeries && !isNotSent(e)) {
+                        logger.warn("Failed to write {} documents to collection {}, discarding them: {}",
+                                collectionDocuments.size(), collectionName, e.getMessage());
+                    } else {
+                        logger.warn("Failed to write {} documents to collection {}, retrying later: {}",
+                                collectionDocuments.size(), collectionName, e.getMessage());
+                        requeue(collectionName, collectionDocuments);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Checks if a write failed before it was sent to the database: no server could be selected, or no connection
+     * could be opened.
+     */
+    private static boolean isNotSent(MongoException e) {
+        return e instanceof MongoTimeoutException || e instanceof MongoSocketOpenException
+                || e instanceof MongoSecurityException;
+    }
+
+    private void requeue(String collectionName, List<Document> documents) {
+        synchronized (pendingLock) {
+            int capacity = MAX_PENDING_DOCUMENTS - pendingCount;
+            if (capacity < documents.size()) {
+                logger.warn("mongodb: Write queue is full. Discarding {} documents.", documents.size() - capacity);
+            }
+            List<Document> retained = documents.subList(0, Math.max(0, Math.min(capacity, documents.size())));
+            pendingDocuments.computeIfAbsent(collectionName, k -> new ArrayList<>()).addAll(0, retained);
+            pendingCount += retained.size();
+        }
+    }
+
     @Nullable
     public MongoCollection<Document> prepareCollection(FilterCriteria filter) {
         if (!initialized || !tryConnectToDatabase()) {
@@ -465,6 +789,8 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
 
     @Override
     public boolean remove(FilterCriteria filter) {
+        // make sure queued values are removed as well
+        flush();
         MongoCollection<Document> collection = prepareCollection(filter);
         // If collection creation failed, return nothing.
         if (collection == null) {
@@ -479,7 +805,20 @@ public class MongoDBPersistenceService implements ModifiablePersistenceService {
 
         logger.debug("Query: {}", query);
 
-        DeleteResult result = collection.deleteMany(query);
+        DeleteResult result;
+        try {
+            result = collection.deleteMany(query);
+        } catch (MongoException e) {
+            if (timeSeries) {
+                // MongoDB before 7.0 only deletes from time series collections by the meta field
+                logger.warn(
+                        "Failed to remove values of item {}: {}. Removing values by time range or state from time series collections requires MongoDB 7.0 or newer.",
+                        filter.getItemName(), e.getMessage());
+            } else {
+                logger.warn("Failed to remove values of item {}: {}", filter.getItemName(), e.getMessage());
+            }
+            return false;
+        }
 
         logger.debug("Deleted {} documents", result.getDeletedCount());
         return true;
@@ -16,6 +16,7 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.text.DateFormat;
+import java.time.Duration;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.time.ZonedDateTime;
@@ -202,6 +203,7 @@ public class MongoDBPersistenceServiceTest {
 
             // Execution
             service.store(item, null);
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("testCollection");
@@ -240,6 +242,7 @@ public class MongoDBPersistenceServiceTest {
 
             // Execution
             service.store(item, null);
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("testCollection");
@@ -280,6 +283,7 @@ public class MongoDBPersistenceServiceTest {
             // Execution
             service.store(strItem1, null);
             service.store(strItem2, null);
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("testCollection");
@@ -322,6 +326,7 @@ public class MongoDBPersistenceServiceTest {
             // Execution
             service.store(strItem1, null);
             service.store(strItem2, null);
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("testCollection");
@@ -362,6 +367,7 @@ public class MongoDBPersistenceServiceTest {
 
             // Execution
             service.store(item, "AliasName");
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("testCollection");
@@ -603,6 +609,7 @@ public class MongoDBPersistenceServiceTest {
 
             // Execution
             service.store(item, null);
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("testCollection");
@@ -731,6 +738,7 @@ public class MongoDBPersistenceServiceTest {
 
             // Execution
             service.store(item, null);
+            service.flush();
 
             // Verification
             List<Document> documents = (ArrayList<Document>) collection.find().into(new ArrayList<>());
@@ -835,6 +843,7 @@ public class MongoDBPersistenceServiceTest {
             DecimalType historicState = new DecimalType(11110.1);
             ZonedDateTime now = ZonedDateTime.now();
             service.store(item, now, historicState);
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("TestItem");
@@ -876,6 +885,7 @@ public class MongoDBPersistenceServiceTest {
             DecimalType historicState = new DecimalType(11110.1);
             ZonedDateTime now = ZonedDateTime.now();
             service.store(item, now, historicState, "AliasName");
+            service.flush();
 
             // Verification
             MongoCollection<Document> collection = database.getCollection("TestItem");
@@ -989,4 +999,85 @@ public class MongoDBPersistenceServiceTest {
             dbContainer.stop();
         }
     }
+
+    /*
+     * Test that stored items are written in batches, and that queries include items which are not written yet
+     */
+    @Test
+    public void testStoreIsWrittenInBatches() {
+        // Preparation
+        DatabaseTestContainer dbContainer = new DatabaseTestContainer(new MemoryBackend());
+        try {
+            SetupResult setupResult = DataCreationHelper.setupMongoDB("testCollection", dbContainer);
+            MongoDBPersistenceService service = setupResult.service;
+            MongoDatabase database = setupResult.database;
+            setupResult.config.put("writeBatchSize", 100);
+            setupResult.config.put("writeInterval", 3600000);
+            try {
+                Mockito.when(setupResult.itemRegistry.getItem("TestItem"))
+                        .thenReturn(DataCreationHelper.createNumberItem("TestItem", 0));
+            } catch (ItemNotFoundException e) {
+            }
+
+            service.activate(setupResult.bundleContext, setupResult.config);
+
+            // Execution
+            for (int i = 0; i < 10; i++) {
+                service.store(DataCreationHelper.createNumberItem("TestItem", i), null);
+            }
+
+            // Verification
+            MongoCollection<Document> collection = database.getCollection("testCollection");
+            assertEquals(0, collection.countDocuments());
+
+            Iterable<HistoricItem> result = service.query(DataCreationHelper.createFilterCriteria("TestItem"));
+            VerificationHelper.verifyQueryResult(result, 0, 1, 10);
+            assertEquals(10, collection.countDocuments());
+        } finally {
+            dbContainer.stop();
+        }
+    }
+
+    /*
+     * Test that aggregated queries return one value per time bucket
+     */
+    @Test
+    public void testQueryAggregated() {
+        // Preparation
+        DatabaseTestContainer dbContainer = new DatabaseTestContainer(new MemoryBackend());
+        try {
+            SetupResult setupResult = DataCreationHelper.setupMongoDB("testCollection", dbContainer);
+            MongoDBPersistenceService service = setupResult.service;
+            try {
+                Mockito.when(setupResult.itemRegistry.getItem("TestItem"))
+                        .thenReturn(DataCreationHelper.createNumberItem("TestItem", 0));
+            } catch (ItemNotFoundException e) {
+            }
+
+            service.activate(setupResult.bundleContext, setupResult.config);
+
+            ZonedDateTime start = ZonedDateTime.of(2024, 1, 1, 0, 0, 0, 0, ZoneId.of("UTC"));
+            NumberItem item = DataCreationHelper.createNumberItem("TestItem", 0);
+            for (int i = 0; i < 9; i++) {
+                service.store(item, start.plusSeconds(i * 20L), new DecimalType(i));
+            }
+
+            // Execution
+            FilterCriteria filter = DataCreationHelper.createFilterCriteria("TestItem");
+            List<HistoricItem> averages = service.queryAggregated(filter, AggregateFunction.AVG,
+                    Duration.ofMinutes(1));
+            List<HistoricItem> counts = service.queryAggregated(filter, AggregateFunction.COUNT,
+                    Duration.ofMinutes(1));
+
+            // Verification
+            assertEquals(3, averages.size());
+            for (int i = 0; i < 3; i++) {
+                assertEquals(new DecimalType(i * 3 + 1), averages.get(i).getState());
+                assertEquals(start.plusMinutes(i).toInstant(), averages.get(i).getTimestamp().toInstant());
+                assertEquals(new DecimalType(3), counts.get(i).getState());
+            }
+        } finally {
+            dbContainer.stop();
+        }
+    }
 }
@@ -22,6 +22,7 @@ import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -29,11 +30,18 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.DoubleFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -81,11 +89,13 @@ import org.rrd4j.ConsolFun;
 import org.rrd4j.DsType;
 import org.rrd4j.core.FetchData;
 import org.rrd4j.core.FetchRequest;
+import org.rrd4j.core.RrdBackendFactory;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDb.Builder;
 import org.rrd4j.core.RrdDbPool;
 import org.rrd4j.core.RrdDef;
-import org.rrd4j.core.Sample;
+import org.rrd4j.core.RrdNioBackendFactory;
+import org.rrd4j.core.RrdRandomAccessFileBackendFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -112,6 +122,33 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private record Point(long timestamp, double value) {
+    }
+
+    /**
+     * A database handle which is kept open while the item is updated regularly.
+     */
+    private static class OpenDatabase {
+        private final RrdDb db;
+        private long lastWrite;
+
+        private OpenDatabase(RrdDb db, long lastWrite) {
+            this.db = db;
+            this.lastWrite = lastWrite;
+        }
+    }
+
+    /**
+     * Statistics of the writer.
+     *
+     * @param backlog the number of values waiting to be written
+     * @param openDatabases the number of database handles kept open
+     * @param writesPerSecond the number of values written per second
+     * @param writeTimePerSecond the time in milliseconds spent writing values per second, summed over all writers
+     */
+    public record Statistics(int backlog, int openDatabases, double writesPerSecond, double writeTimePerSecond) {
+    }
+
     public static final String SERVICE_ID = "rrd4j";
 
     private static final String DEFAULT_OTHER = "default_other";
@@ -121,8 +158,25 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
     private static final Set<String> SUPPORTED_TYPES = Set.of(CoreItemFactory.SWITCH, CoreItemFactory.CONTACT,
             CoreItemFactory.DIMMER, CoreItemFactory.NUMBER, CoreItemFactory.ROLLERSHUTTER, CoreItemFactory.COLOR);
 
+    private static final int WRITER_THREADS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final int LOCK_STRIPES = 64;
+    // keep handles of databases which have been written to within the last 5 minutes
+    private static final long OPEN_DATABASE_IDLE_TIME = 300;
+    // leave room in the pool for queries and charts, which block if the pool capacity is exhausted
+    private static final int MAX_OPEN_DATABASES = RrdDbPool.INITIAL_CAPACITY / 2;
+
     private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1,
             new NamedThreadFactory("RRD4j"));
+    private final ExecutorService writers = Executors.newFixedThreadPool(WRITER_THREADS,
+            new NamedThreadFactory("RRD4j-writer"));
+    private final Lock[] locks = new Lock[LOCK_STRIPES];
+    private final Map<String, OpenDatabase> openDatabases = new ConcurrentHashMap<>();
+
+    private final AtomicInteger pendingWrites = new AtomicInteger();
+    private final LongAdder writeCount = new LongAdder();
+    private final LongAdder writeNanos = new LongAdder();
+    private long statisticsNanos = System.nanoTime();
+    private volatile Statistics statistics = new Statistics(0, 0, 0, 0);
 
     private final Map<String, RrdDefConfig> rrdDefs = new ConcurrentHashMap<>();
 
@@ -134,6 +188,14 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private static final RrdDbPool DATABASE_POOL = new RrdDbPool();
 
+    private static final String BACKEND_CONFIG = "backend";
+    private static final String BACKEND_NIO = "nio";
+    private static final String BACKEND_FILE = "file";
+    private static final String SYNC_PERIOD_CONFIG = "syncPeriod";
+
+    private static volatile RrdBackendFactory backendFactory = RrdBackendFactory.getDefaultFactory();
+    private static volatile String backendConfig = "";
+
     private final Logger logger = LoggerFactory.getLogger(RRD4jPersistenceService.class);
     private final ItemRegistry itemRegistry;
     private boolean active = false;
@@ -146,11 +208,18 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return DATABASE_POOL;
     }
 
+    public static RrdBackendFactory getBackendFactory() {
+        return backendFactory;
+    }
+
     private final ScheduledFuture<?> storeJob;
 
     @Activate
     public RRD4jPersistenceService(final @Reference ItemRegistry itemRegistry, Map<String, Object> config) {
         this.itemRegistry = itemRegistry;
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
         storeJob = scheduler.scheduleWithFixedDelay(() -> doStore(false), 1, 1, TimeUnit.SECONDS);
         modified(config);
         active = true;
@@ -158,6 +227,8 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     @Modified
     protected void modified(final Map<String, Object> config) {
+        configureBackend(config);
+
         // clean existing definitions
         rrdDefs.clear();
 
@@ -209,8 +280,9 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         while (keys.hasNext()) {
             String key = keys.next();
 
-            if ("service.pid".equals(key) || "component.name".equals(key)) {
-                // ignore service.pid and name
+            if ("service.pid".equals(key) || "component.name".equals(key) || BACKEND_CONFIG.equals(key)
+                    || SYNC_PERIOD_CONFIG.equals(key)) {
+                // ignore service.pid and name and the backend configuration
                 continue;
             }
 
@@ -264,6 +336,57 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    /**
+     * Selects the backend used for reading and writing the database files. The memory mapped NIO backend keeps
+     * changes in memory and only writes them to disk every sync period, the file backend writes every change
+     * immediately.
+     */
+    private synchronized void configureBackend(Map<String, Object> config) {
+        Object backend = config.getOrDefault(BACKEND_CONFIG, BACKEND_NIO);
+        int syncPeriod = RrdNioBackendFactory.DEFAULT_SYNC_PERIOD;
+        Object syncPeriodConfig = config.get(SYNC_PERIOD_CONFIG);
+        if (syncPeriodConfig != null) {
+            try {
+                syncPeriod = Math.max(1, Integer.parseInt(syncPeriodConfig.toString().trim()));
+            } catch (NumberFormatException e) {
+                logger.warn("Ignoring illegal sync period '{}'", syncPeriodConfig);
+            }
+        }
+
+        String newBackendConfig;
+        RrdBackendFactory newBackendFactory;
+        if (BACKEND_FILE.equalsIgnoreCase(backend.toString().trim())) {
+            newBackendConfig = BACKEND_FILE;
+            if (backendConfig.equals(newBackendConfig)) {
+                return;
+            }
+            newBackendFactory = new RrdRandomAccessFileBackendFactory();
+        } else {
+            if (!BACKEND_NIO.equalsIgnoreCase(backend.toString().trim())) {
+                logger.warn("Unknown backend '{}', using '{}'", backend, BACKEND_NIO);
+            }
+            newBackendConfig = BACKEND_NIO + "," + syncPeriod;
+            if (backendConfig.equals(newBackendConfig)) {
+                return;
+            }
+            newBackendFactory = new RrdNioBackendFactory(syncPeriod, 1);
+        }
+
+        // databases opened with the previous backend must not be used any longer
+        closeOpenDatabases(Long.MAX_VALUE);
+        RrdBackendFactory oldBackendFactory = backendFactory;
+        backendFactory = newBackendFactory;
+        backendConfig = newBackendConfig;
+        if (oldBackendFactory != RrdBackendFactory.getDefaultFactory()) {
+            try {
+                oldBackendFactory.close();
+            } catch (IOException e) {
+                logger.debug("Error closing rrd4j backend: {}", e.getMessage());
+            }
+        }
+        logger.debug("Using rrd4j backend '{}'", newBackendConfig);
+    }
+
     @Deactivate
     protected void deactivate() {
         active = false;
@@ -271,6 +394,8 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
         // make sure we really store everything
         doStore(true);
+        writers.shutdown();
+        closeOpenDatabases(Long.MAX_VALUE);
     }
 
     @Override
@@ -338,66 +463,155 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
 
     private void doStore(boolean force) {
         long now = System.currentTimeMillis() / 1000;
+        // collect the values of each item in order of their timestamps, different items are written in parallel
+        Map<String, List<Point>> points = new LinkedHashMap<>();
         while (!storageMap.isEmpty()) {
             Key key = storageMap.firstKey();
             if (now > key.timestamp || force) {
                 // no new elements can be added for this timestamp because we are already past that time or the service
                 // requires forced storing
                 Double value = storageMap.pollFirstEntry().getValue();
-                writePointToDatabase(key.name, value, key.timestamp);
+                points.computeIfAbsent(key.name, k -> new ArrayList<>()).add(new Point(key.timestamp, value));
+                pendingWrites.incrementAndGet();
             } else {
+                break;
+            }
+        }
+
+        List<Future<?>> writes = new ArrayList<>(points.size());
+        points.forEach((name, itemPoints) -> {
+            try {
+                writes.add(writers.submit(() -> writePointsToDatabase(name, itemPoints)));
+            } catch (RejectedExecutionException e) {
+                // writers have already been shut down
+                writePointsToDatabase(name, itemPoints);
+            }
+        });
+        // wait for all writes, so values of the same item are never written out of order by subsequent runs
+        for (Future<?> write : writes) {
+            try {
+                write.get();
+            } catch (ExecutionException e) {
+                logger.warn("Failed to write to rrd4j database: {}", e.getMessage());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
                 return;
             }
         }
+
+        closeOpenDatabases(now - OPEN_DATABASE_IDLE_TIME);
+        updateStatistics();
     }
 
-    private synchronized void writePointToDatabase(String name, double value, long timestamp) {
-        RrdDb db = null;
+    private void writePointsToDatabase(String name, List<Point> points) {
+        long start = System.nanoTime();
+        Lock lock = getLock(name);
+        lock.lock();
         try {
-            db = getDB(name, true);
-        } catch (Exception e) {
-            logger.warn("Failed to open rrd4j database '{}' to store data ({})", name, e.toString());
+            RrdDb db = null;
+            OpenDatabase openDatabase = openDatabases.get(name);
+            if (openDatabase != null) {
+                db = openDatabase.db;
+            } else {
+                try {
+                    db = getDB(name, true);
+                } catch (Exception e) {
+                    logger.warn("Failed to open rrd4j database '{}' to store data ({})", name, e.toString());
+                }
+            }
+            if (db == null) {
+                return;
+            }
+
+            writePointsToDatabase(db, name, points);
+            long lastWrite = points.get(points.size() - 1).timestamp;
+
+            if (openDatabase != null) {
+                openDatabase.lastWrite = lastWrite;
+            } else if (openDatabases.size() < MAX_OPEN_DATABASES) {
+                openDatabases.put(name, new OpenDatabase(db, lastWrite));
+            } else {
+                closeDatabase(db);
+            }
+        } finally {
+            lock.unlock();
+            pendingWrites.addAndGet(-points.size());
+            writeCount.add(points.size());
+            writeNanos.add(System.nanoTime() - start);
         }
-        if (db == null) {
+    }
+
+    /**
+     * Writes the values of an item in one batch. The database definition and the last update are only read once,
+     * all other information is tracked while writing.
+     */
+    private void writePointsToDatabase(RrdDb db, String name, List<Point> points) {
+        ConsolFun function;
+        double factor;
+        long lastUpdateTime;
+        double lastValue;
+        try {
+            RrdDef rrdDef = db.getRrdDef();
+            function = rrdDef.getArcDefs()[0].getConsolFun();
+            // counter values must be adjusted by stepsize
+            factor = rrdDef.getDsDefs()[0].getDsType() == DsType.COUNTER ? rrdDef.getStep() : 1;
+            lastUpdateTime = db.getLastUpdateTime();
+            lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
+        } catch (IOException e) {
+            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             return;
         }
 
-        ConsolFun function = getConsolidationFunction(db);
-        if (function != ConsolFun.AVERAGE) {
-            try {
+        for (Point point : points) {
+            long timestamp = point.timestamp;
+            if (function != ConsolFun.AVERAGE && timestamp - 1 > lastUpdateTime && !Double.isNaN(lastValue)) {
                 // we store the last value again, so that the value change
                 // in the database is not interpolated, but
                 // happens right at this spot
-                if (timestamp - 1 > db.getLastUpdateTime()) {
-                    // only do it if there is not already a value
-                    double lastValue = db.getLastDatasourceValue(DATASOURCE_STATE);
-                    if (!Double.isNaN(lastValue)) {
-                        Sample sample = db.createSample();
-                        sample.setTime(timestamp - 1);
-                        sample.setValue(DATASOURCE_STATE, lastValue);
-                        sample.update();
-                        logger.debug("Stored '{}' as value '{}' with timestamp {} in rrd4j database (again)", name,
-                                lastValue, timestamp - 1);
-                    }
+                try {
+                    db.createSample(timestamp - 1).setValue(DATASOURCE_STATE, lastValue).update();
+                    lastUpdateTime = timestamp - 1;
+                    logger.debug("Stored '{}' as value '{}' with timestamp {} in rrd4j database (again)", name,
+                            lastValue, timestamp - 1);
+                } catch (IOException e) {
+                    logger.debug("Error storing last value (again) for {}: {}", e.getMessage(), name);
                 }
-            } catch (IOException e) {
-                logger.debug("Error storing last value (again) for {}: {}", e.getMessage(), name);
+            }
+            try {
+                double storeValue = point.value * factor;
+                db.createSample(timestamp).setValue(DATASOURCE_STATE, storeValue).update();
+                lastUpdateTime = timestamp;
+                lastValue = storeValue;
+                logger.debug("Stored '{}' as value '{}' with timestamp {} in rrd4j database", name, storeValue,
+                        timestamp);
+            } catch (Exception e) {
+                logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
             }
         }
-        try {
-            Sample sample = db.createSample();
-            sample.setTime(timestamp);
-            double storeValue = value;
-            if (db.getDatasource(DATASOURCE_STATE).getType() == DsType.COUNTER) {
-                // counter values must be adjusted by stepsize
-                storeValue = value * db.getRrdDef().getStep();
-            }
-            sample.setValue(DATASOURCE_STATE, storeValue);
-            sample.update();
-            logger.debug("Stored '{}' as value '{}' with timestamp {} in rrd4j database", name, storeValue, timestamp);
-        } catch (Exception e) {
-            logger.warn("Could not persist '{}' to rrd4j database: {}", name, e.getMessage());
+    }
+
+    /**
+     * Closes the database handles which have not been written to since the given time.
+     *
+     * @param lastWrite the time in epoch seconds
+     */
+    private void closeOpenDatabases(long lastWrite) {
+        for (String name : openDatabases.keySet()) {
+            Lock lock = getLock(name);
+            lock.lock();
+            try {
+                OpenDatabase openDatabase = openDatabases.get(name);
+                if (openDatabase != null && openDatabase.lastWrite < lastWrite) {
+                    openDatabases.remove(name);
+                    closeDatabase(openDatabase.db);
+                }
+            } finally {
+                lock.unlock();
+            }
         }
+    }
+
+    private void closeDatabase(RrdDb db) {
         try {
             db.close();
         } catch (IOException e) {
@@ -405,6 +619,38 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         }
     }
 
+    private Lock getLock(String name) {
+        return locks[Math.floorMod(name.hashCode(), LOCK_STRIPES)];
+    }
+
+    private void updateStatistics() {
+        long now = System.nanoTime();
+        long elapsed = now - statisticsNanos;
+        if (elapsed < TimeUnit.SECONDS.toNanos(1)) {
+            return;
+        }
+        double seconds = elapsed / 1e9;
+        statistics = new Statistics(getBacklog(), openDatabases.size(), writeCount.sumThenReset() / seconds,
+                writeNanos.sumThenReset() / 1e6 / seconds);
+        statisticsNanos = now;
+    }
+
+    /**
+     * Returns the number of values which have been stored but not yet written to a database.
+     */
+    public int getBacklog() {
+        return storageMap.size() + pendingWrites.get();
+    }
+
+    /**
+     * Returns the statistics of the writer, which are updated about once per second.
+     */
+    public Statistics getStatistics() {
+        Statistics statistics = this.statistics;
+        return new Statistics(getBacklog(), openDatabases.size(), statistics.writesPerSecond(),
+                statistics.writeTimePerSecond());
+    }
+
     @Override
     public void store(Item item) {
         store(item, null);
@@ -539,12 +785,13 @@ public class RRD4jPersistenceService implements QueryablePersistenceService {
         return Set.of();
     }
 
-    protected synchronized @Nullable RrdDb getDB(String alias, boolean createFileIfAbsent) {
+    protected @Nullable RrdDb getDB(String alias, boolean createFileIfAbsent) {
         RrdDb db = null;
         Path path = getDatabasePath(alias);
         try {
             Builder builder = RrdDb.getBuilder();
             builder.setPool(DATABASE_POOL);
+            builder.setBackendFactory(backendFactory);
 
             if (Files.exists(path)) {
                 // recreate the RrdDb instance from the file
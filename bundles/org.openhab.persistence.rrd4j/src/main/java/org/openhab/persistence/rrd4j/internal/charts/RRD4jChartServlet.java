@@ -17,12 +17,16 @@ import static java.util.Map.entry;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.time.Duration;
+import java.time.Instant;
 import java.time.ZonedDateTime;
 import java.util.Hashtable;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.zip.CRC32;
 
 import javax.imageio.ImageIO;
 import javax.servlet.Servlet;
@@ -30,6 +34,8 @@ import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
 import org.eclipse.jdt.annotation.Nullable;
@@ -48,8 +54,10 @@ import org.osgi.service.component.annotations.Reference;
 import org.osgi.service.http.HttpService;
 import org.osgi.service.http.NamespaceException;
 import org.rrd4j.ConsolFun;
+import org.rrd4j.core.ArcDef;
 import org.rrd4j.core.RrdDb;
 import org.rrd4j.core.RrdDb.Builder;
+import org.rrd4j.core.RrdDef;
 import org.rrd4j.graph.RrdGraph;
 import org.rrd4j.graph.RrdGraphConstants.FontTag;
 import org.rrd4j.graph.RrdGraphDef;
@@ -67,6 +75,9 @@ import org.slf4j.LoggerFactory;
  * <li>groups: A comma separated list of group names, whose members should be displayed
  * </ul>
  *
+ * Rendered charts are cached until the displayed data can change, i.e. until the end of the current step of the
+ * archive used for the chart. The servlet supports conditional requests using ETag and If-None-Match.
+ *
  * @author Kai Kreuzer - Initial contribution
  * @author Chris Jackson - a few improvements
  * @author Jan N. Klug - a few improvements
@@ -93,6 +104,13 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
 
     private static final Duration DEFAULT_PERIOD = Duration.ofDays(1);
 
+    // maximum number of rendered charts kept in the cache
+    private static final int MAX_CACHED_CHARTS = 50;
+    // charts ending less than this before or after now are considered current and are cached
+    private static final long CURRENT_TOLERANCE_SECONDS = 5;
+    // cache duration if the step of the databases cannot be determined
+    private static final long DEFAULT_CACHE_STEP_SECONDS = 60;
+
     private static final Map<String, Duration> PERIODS = Map.ofEntries( //
             entry("h", Duration.ofHours(1)), entry("4h", Duration.ofHours(4)), //
             entry("8h", Duration.ofHours(8)), entry("12h", Duration.ofHours(12)), //
@@ -107,6 +125,16 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     private final ItemUIRegistry itemUIRegistry;
     private final TimeZoneProvider timeZoneProvider;
 
+    // rendered charts in access order, guarded by itself
+    private final Map<ChartKey, CachedChart> chartCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<ChartKey, CachedChart> eldest) {
+            return size() > MAX_CACHED_CHARTS;
+        }
+    };
+
     @Activate
     public RRD4jChartServlet(final @Reference HttpService httpService, final @Reference ItemUIRegistry itemUIRegistry,
             final @Reference TimeZoneProvider timeZoneProvider) {
@@ -128,6 +156,9 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     @Deactivate
     protected void deactivate() {
         httpService.unregister(SERVLET_NAME);
+        synchronized (chartCache) {
+            chartCache.clear();
+        }
     }
 
     @Override
@@ -144,11 +175,23 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         ZonedDateTime timeBegin = timeEnd.minus(period);
 
         try {
-            BufferedImage chart = createChart(null, null, timeBegin, timeEnd, height, width, req.getParameter("items"),
+            CachedChart chart = getChart(null, timeBegin, timeEnd, height, width, req.getParameter("items"),
                     req.getParameter("groups"), null, null);
+            if (res instanceof HttpServletResponse httpResponse) {
+                long maxAge = Math.max(0, chart.expires - Instant.now().getEpochSecond());
+                httpResponse.setHeader("ETag", chart.etag);
+                httpResponse.setHeader("Cache-Control", "max-age=" + maxAge);
+                if (req instanceof HttpServletRequest httpRequest
+                        && matchesETag(httpRequest.getHeader("If-None-Match"), chart.etag)) {
+                    httpResponse.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+            }
             // Set the content type to that provided by the chart provider
             res.setContentType("image/" + getChartType());
-            ImageIO.write(chart, getChartType().toString(), res.getOutputStream());
+            res.setContentLength(chart.png.length);
+            // the chart is already encoded as PNG by rrd4j
+            res.getOutputStream().write(chart.png);
         } catch (ItemNotFoundException e) {
             logger.debug("Item not found error while generating chart", e);
             throw new ServletException("Item not found error while generating chart: " + e.getMessage());
@@ -158,6 +201,22 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         }
     }
 
+    private static boolean matchesETag(@Nullable String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            String trimmed = tag.trim();
+            if (trimmed.startsWith("W/")) {
+                trimmed = trimmed.substring(2);
+            }
+            if ("*".equals(trimmed) || etag.equals(trimmed)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private int parseInt(@Nullable String s, int defaultValue) {
         if (s == null) {
             return defaultValue;
@@ -178,38 +237,68 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
      * @param graphDef the graph definition to fill
      * @param item the item to add a line for
      * @param counter defines the number of the datasource and is used to determine the line color
+     * @param period the time span of the chart
+     * @return the interval in seconds at which the data shown for the item changes, or 0 if unknown
      */
-    protected void addLine(RrdGraphDef graphDef, Item item, int counter) {
+    protected long addLine(RrdGraphDef graphDef, Item item, int counter, Duration period) {
         Color color = LINECOLORS[counter % LINECOLORS.length];
         String label = itemUIRegistry.getLabel(item.getName());
         String rrdName = RRD4jPersistenceService.getDatabasePath(item.getName()).toString();
         ConsolFun consolFun;
+        long step;
         if (label != null && label.contains("[") && label.contains("]")) {
             label = label.substring(0, label.indexOf('['));
         }
         try {
             Builder builder = RrdDb.getBuilder();
             builder.setPool(RRD4jPersistenceService.getDatabasePool());
+            builder.setBackendFactory(RRD4jPersistenceService.getBackendFactory());
             builder.setPath(rrdName);
 
             RrdDb db = builder.build();
-            consolFun = db.getRrdDef().getArcDefs()[0].getConsolFun();
+            RrdDef rrdDef = db.getRrdDef();
+            consolFun = rrdDef.getArcDefs()[0].getConsolFun();
+            step = getArchiveStep(rrdDef, period);
             db.close();
         } catch (IOException e) {
             consolFun = ConsolFun.MAX;
+            step = 0;
         }
         if (item instanceof NumberItem) {
             // we only draw a line
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun,
+                    RRD4jPersistenceService.getBackendFactory());
             graphDef.line(Integer.toString(counter), color, label, 2);
         } else {
             // we draw a line and fill the area beneath it with a transparent color
-            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun); // RRD4jService.getConsolidationFunction(item));
+            graphDef.datasource(Integer.toString(counter), rrdName, "state", consolFun,
+                    RRD4jPersistenceService.getBackendFactory());
             Color areaColor = AREACOLORS[counter % LINECOLORS.length];
 
             graphDef.area(Integer.toString(counter), areaColor);
             graphDef.line(Integer.toString(counter), color, label, 2);
         }
+        return step;
+    }
+
+    /**
+     * Determines the step of the finest archive covering the given period, which is the archive used for the chart.
+     *
+     * @param rrdDef the definition of the database
+     * @param period the time span of the chart
+     * @return the step of the archive in seconds
+     */
+    private static long getArchiveStep(RrdDef rrdDef, Duration period) {
+        long finestCovering = Long.MAX_VALUE;
+        long coarsest = 0;
+        for (ArcDef arcDef : rrdDef.getArcDefs()) {
+            long arcStep = rrdDef.getStep() * arcDef.getSteps();
+            if (arcStep * arcDef.getRows() >= period.getSeconds()) {
+                finestCovering = Math.min(finestCovering, arcStep);
+            }
+            coarsest = Math.max(coarsest, arcStep);
+        }
+        return finestCovering == Long.MAX_VALUE ? coarsest : finestCovering;
     }
 
     @Override
@@ -242,6 +331,41 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
     public BufferedImage createChart(@Nullable String service, @Nullable String theme, ZonedDateTime startTime,
             ZonedDateTime endTime, int height, int width, @Nullable String items, @Nullable String groups,
             @Nullable Integer dpi, @Nullable Boolean legend) throws ItemNotFoundException {
+        return getChart(theme, startTime, endTime, height, width, items, groups, dpi, legend).toImage();
+    }
+
+    /**
+     * Returns the chart from the cache, or renders it. Only charts ending now are cached.
+     */
+    private CachedChart getChart(@Nullable String theme, ZonedDateTime startTime, ZonedDateTime endTime, int height,
+            int width, @Nullable String items, @Nullable String groups, @Nullable Integer dpi,
+            @Nullable Boolean legend) throws ItemNotFoundException {
+        long now = Instant.now().getEpochSecond();
+        boolean current = Math.abs(endTime.toEpochSecond() - now) <= CURRENT_TOLERANCE_SECONDS;
+        ChartKey key = new ChartKey(theme, items, groups, Duration.between(startTime, endTime).getSeconds(), width,
+                height, dpi, legend);
+        if (current) {
+            synchronized (chartCache) {
+                CachedChart chart = chartCache.get(key);
+                if (chart != null && chart.expires > now) {
+                    logger.trace("Using cached chart for {}", key);
+                    return chart;
+                }
+            }
+        }
+        CachedChart chart = renderChart(startTime, endTime, height, width, items, groups);
+        if (current) {
+            synchronized (chartCache) {
+                chartCache.values().removeIf(cached -> cached.expires <= now);
+                chartCache.put(key, chart);
+            }
+        }
+        return chart;
+    }
+
+    private CachedChart renderChart(ZonedDateTime startTime, ZonedDateTime endTime, int height, int width,
+            @Nullable String items, @Nullable String groups) throws ItemNotFoundException {
+        Duration period = Duration.between(startTime, endTime);
         RrdGraphDef graphDef = new RrdGraphDef(startTime.toEpochSecond(), endTime.toEpochSecond());
         graphDef.setWidth(width);
         graphDef.setHeight(height);
@@ -252,13 +376,14 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
         graphDef.setFont(FontTag.DEFAULT, new Font("SansSerif", Font.PLAIN, 11));
 
         int seriesCounter = 0;
+        long step = Long.MAX_VALUE;
 
         // Loop through all the items
         if (items != null) {
             String[] itemNames = items.split(",");
             for (String itemName : itemNames) {
                 Item item = itemUIRegistry.getItem(itemName);
-                addLine(graphDef, item, seriesCounter++);
+                step = minStep(step, addLine(graphDef, item, seriesCounter++, period));
             }
         }
 
@@ -269,7 +394,7 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
                 Item item = itemUIRegistry.getItem(groupName);
                 if (item instanceof GroupItem groupItem) {
                     for (Item member : groupItem.getMembers()) {
-                        addLine(graphDef, member, seriesCounter++);
+                        step = minStep(step, addLine(graphDef, member, seriesCounter++, period));
                     }
                 } else {
                     throw new ItemNotFoundException("Item '" + item.getName() + "' defined in groups is not a group.");
@@ -277,20 +402,70 @@ public class RRD4jChartServlet implements Servlet, ChartProvider {
             }
         }
 
-        // Write the chart as a PNG image
+        // Render the chart as a PNG image
         try {
             RrdGraph graph = new RrdGraph(graphDef);
-            BufferedImage bi = new BufferedImage(graph.getRrdGraphInfo().getWidth(),
-                    graph.getRrdGraphInfo().getHeight(), BufferedImage.TYPE_INT_RGB);
-            graph.render(bi.getGraphics());
-            return bi;
+            if (step == Long.MAX_VALUE) {
+                step = DEFAULT_CACHE_STEP_SECONDS;
+            }
+            // the data changes at the end of the current step
+            long expires = (Instant.now().getEpochSecond() / step + 1) * step;
+            return new CachedChart(graph.getRrdGraphInfo().getBytes(), expires);
         } catch (IOException e) {
             throw new UncheckedIOException("Error generating RrdGraph", e);
         }
     }
 
+    private static long minStep(long step, long lineStep) {
+        return lineStep > 0 ? Math.min(step, lineStep) : step;
+    }
+
     @Override
     public ImageType getChartType() {
         return ImageType.png;
     }
+
+    private record ChartKey(@Nullable String theme, @Nullable String items, @Nullable String groups,
+            long periodSeconds, int width, int height, @Nullable Integer dpi, @Nullable Boolean legend) {
+    }
+
+    /**
+     * A rendered chart, encoded as PNG
+     */
+    private static class CachedChart {
+        private final byte[] png;
+        private final String etag;
+        private final long expires;
+        private @Nullable BufferedImage image;
+
+        private CachedChart(byte[] png, long expires) {
+            this.png = png;
+            this.expires = expires;
+            CRC32 crc = new CRC32();
+            crc.update(png);
+            this.etag = "\"" + Long.toHexString(crc.getValue()) + "-" + Integer.toHexString(png.length) + "\"";
+        }
+
+        /**
+         * Returns a copy of the decoded chart, as the image may be modified by the caller.
+         */
+        private synchronized BufferedImage toImage() {
+            BufferedImage localImage = image;
+            if (localImage == null) {
+                try {
+                    BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(png));
+                    localImage = new BufferedImage(decoded.getWidth(), decoded.getHeight(),
+                            BufferedImage.TYPE_INT_RGB);
+                    localImage.getGraphics().drawImage(decoded, 0, 0, null);
+                    image = localImage;
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Error decoding RrdGraph", e);
+                }
+            }
+            BufferedImage copy = new BufferedImage(localImage.getWidth(), localImage.getHeight(),
+                    BufferedImage.TYPE_INT_RGB);
+            copy.setData(localImage.getRaster());
+            return copy;
+        }
+    }
 }
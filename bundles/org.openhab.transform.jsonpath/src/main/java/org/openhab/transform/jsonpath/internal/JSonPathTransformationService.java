@@ -12,7 +12,9 @@
  */
 package org.openhab.transform.jsonpath.internal;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 import org.eclipse.jdt.annotation.NonNullByDefault;
@@ -28,10 +30,14 @@ import com.jayway.jsonpath.InvalidJsonException;
 import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.JsonPath;
 import com.jayway.jsonpath.PathNotFoundException;
+import com.jayway.jsonpath.ReadContext;
 
 /**
  * The implementation of a {@link TransformationService} which transforms the input by JSonPath Expressions.
  *
+ * Several channels often extract values from the same payload, so the most recently parsed documents are kept for a
+ * short time and each payload is only parsed once. Compiled expressions are cached by the JsonPath library.
+ *
  * @author Gaël L'hopital - Initial contribution
  * @author Sebastian Janzen - Initial contribution
  */
@@ -39,8 +45,25 @@ import com.jayway.jsonpath.PathNotFoundException;
 @Component(property = { "openhab.transform=JSONPATH" })
 public class JSonPathTransformationService implements TransformationService {
 
+    // maximum number of parsed documents kept
+    private static final int MAX_CACHED_DOCUMENTS = 16;
+    // time a parsed document is kept
+    private static final long DOCUMENT_CACHE_NANOS = 2_000_000_000L;
+    // larger documents are not cached
+    private static final int MAX_CACHED_DOCUMENT_LENGTH = 100_000;
+
     private final Logger logger = LoggerFactory.getLogger(JSonPathTransformationService.class);
 
+    // parsed documents by source in access order, guarded by itself
+    private final Map<String, CachedDocument> documentCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedDocument> eldest) {
+            return size() > MAX_CACHED_DOCUMENTS;
+        }
+    };
+
     /**
      * Transforms the input <code>source</code> by JSonPath expression.
      *
@@ -62,7 +85,7 @@ public class JSonPathTransformationService implements TransformationService {
             return null;
         }
         try {
-            Object transformationResult = JsonPath.read(source, jsonPathExpression);
+            Object transformationResult = parse(source).read(jsonPathExpression);
             logger.debug("transformation resulted in '{}'", transformationResult);
             if (transformationResult == null) {
                 return null;
@@ -78,6 +101,29 @@ public class JSonPathTransformationService implements TransformationService {
         }
     }
 
+    /**
+     * Returns the parsed document for the source, parsing it only if it has not been parsed recently.
+     */
+    private ReadContext parse(String source) {
+        if (source.length() > MAX_CACHED_DOCUMENT_LENGTH) {
+            return JsonPath.parse(source);
+        }
+        long now = System.nanoTime();
+        synchronized (documentCache) {
+            CachedDocument cached = documentCache.get(source);
+            if (cached != null && now - cached.parsed < DOCUMENT_CACHE_NANOS) {
+                return cached.document;
+            }
+        }
+        // parsing may fail, in which case nothing is cached
+        ReadContext document = JsonPath.parse(source);
+        synchronized (documentCache) {
+            documentCache.values().removeIf(cached -> now - cached.parsed >= DOCUMENT_CACHE_NANOS);
+            documentCache.put(source, new CachedDocument(document, now));
+        }
+        return document;
+    }
+
     private String flattenList(List<?> list) {
         if (list.size() == 1) {
             return list.get(0).toString();
@@ -102,4 +148,7 @@ public class JSonPathTransformationService implements TransformationService {
     private String createStringList(List<?> list) {
         return list.stream().map(n -> "\"" + n + "\"").collect(Collectors.joining(", ", "[", "]"));
     }
+
+    private record CachedDocument(ReadContext document, long parsed) {
+    }
 }
@@ -129,4 +129,18 @@ public class JSonPathTransformationServiceTest {
         String transformedResponse = processor.transform("$.data", json);
         assertEquals(list, transformedResponse);
     }
+
+    @Test
+    public void testSeveralPathsFromSameSource() throws TransformationException {
+        assertEquals("bob", processor.transform("$[0].name", JSON_ARRAY));
+        assertEquals("alice", processor.transform("$[1].name", new String(JSON_ARRAY)));
+        assertEquals("2", processor.transform("$[1].id", JSON_ARRAY));
+    }
+
+    @Test
+    public void testChangedSourceIsParsedAgain() throws TransformationException {
+        assertEquals("1", processor.transform("$.value", "{\"value\":1}"));
+        assertEquals("2", processor.transform("$.value", "{\"value\":2}"));
+        assertEquals("1", processor.transform("$.value", "{\"value\":1}"));
+    }
 }
@@ -12,6 +12,8 @@
  */
 package org.openhab.transform.regex.internal;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -30,6 +32,9 @@ import org.slf4j.LoggerFactory;
  * <p>
  * <b>Note:</b> the given Regular Expression must contain exactly one group!
  *
+ * <p>
+ * Compiled expressions are cached, as the same expressions are used for every value of a channel.
+ *
  * @author Thomas.Eichstaedt-Engelen - Initial contribution
  */
 @NonNullByDefault
@@ -40,6 +45,19 @@ public class RegExTransformationService implements TransformationService {
 
     private static final Pattern SUBSTR_PATTERN = Pattern.compile("^s/(.*?[^\\\\])/(.*?[^\\\\])/(.*)$");
 
+    // maximum number of compiled expressions kept
+    private static final int MAX_CACHED_EXPRESSIONS = 200;
+
+    // compiled expressions in access order, guarded by itself
+    private final Map<String, CompiledExpression> expressionCache = new LinkedHashMap<>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompiledExpression> eldest) {
+            return size() > MAX_CACHED_EXPRESSIONS;
+        }
+    };
+
     @Override
     public @Nullable String transform(String regExpression, String source) throws TransformationException {
         if (regExpression == null || source == null) {
@@ -50,23 +68,19 @@ public class RegExTransformationService implements TransformationService {
 
         String result = "";
 
-        Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
-        if (substMatcher.matches()) {
+        CompiledExpression expression = compile(regExpression);
+        String substitution = expression.substitution();
+        if (substitution != null) {
             logger.debug("Using substitution form of regex transformation");
-            String regex = substMatcher.group(1);
-            String substitution = substMatcher.group(2);
-            String options = substMatcher.group(3);
-            if ("g".equals(options)) {
-                result = source.trim().replaceAll(regex, substitution);
+            Matcher substMatcher = expression.pattern().matcher(source.trim());
+            if (expression.global()) {
+                return substMatcher.replaceAll(substitution);
             } else {
-                result = source.trim().replaceFirst(regex, substitution);
-            }
-            if (result != null) {
-                return result;
+                return substMatcher.replaceFirst(substitution);
             }
         }
 
-        Matcher matcher = Pattern.compile("^" + regExpression + "$", Pattern.DOTALL).matcher(source.trim());
+        Matcher matcher = expression.pattern().matcher(source.trim());
         if (!matcher.matches()) {
             logger.debug(
                     "the given regex '^{}$' doesn't match the given content '{}' -> couldn't compute transformation",
@@ -94,4 +108,28 @@ public class RegExTransformationService implements TransformationService {
 
         return result;
     }
+
+    private CompiledExpression compile(String regExpression) {
+        synchronized (expressionCache) {
+            CompiledExpression expression = expressionCache.get(regExpression);
+            if (expression == null) {
+                Matcher substMatcher = SUBSTR_PATTERN.matcher(regExpression);
+                if (substMatcher.matches()) {
+                    expression = new CompiledExpression(Pattern.compile(substMatcher.group(1)), substMatcher.group(2),
+                            "g".equals(substMatcher.group(3)));
+                } else {
+                    expression = new CompiledExpression(Pattern.compile("^" + regExpression + "$", Pattern.DOTALL),
+                            null, false);
+                }
+                expressionCache.put(regExpression, expression);
+            }
+            return expression;
+        }
+    }
+
+    /**
+     * A compiled expression, either matching with a group or substituting if a substitution is given
+     */
+    private record CompiledExpression(Pattern pattern, @Nullable String substitution, boolean global) {
+    }
 }
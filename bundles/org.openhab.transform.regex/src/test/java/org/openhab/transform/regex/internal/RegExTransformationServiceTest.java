@@ -75,4 +75,13 @@ public class RegExTransformationServiceTest extends AbstractTransformationServic
         // Asserts
         assertEquals("varX=12 varY=54 ", transformedResponse);
     }
+
+    @Test
+    public void testTransformByRegex_repeated() throws TransformationException {
+        assertEquals("42", processor.transform("ARG:(.*)", "ARG:42"));
+        assertEquals("43", processor.transform("ARG:(.*)", "ARG:43"));
+        assertNull(processor.transform("ARG:(.*)", "OP:43"));
+        assertEquals("SetMode(43)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:SetMode,ARG:43"));
+        assertEquals("SetMode(44)", processor.transform("s/^OP:(.*?),ARG:(.*)$/$1($2)/", "OP:SetMode,ARG:44"));
+    }
 }
@@ -74,6 +74,28 @@ public class Range {
         this.maxInclusive = maxInclusive;
     }
 
+    /**
+     * @return whether the value is not below the lower limit
+     */
+    boolean isAboveLowerLimit(final BigDecimal value) {
+        if (min == null) {
+            return true;
+        }
+        int cmp = value.compareTo(min);
+        return minInclusive ? cmp >= 0 : cmp > 0;
+    }
+
+    /**
+     * @return whether no value is contained in the range
+     */
+    boolean isEmpty() {
+        if (min == null || max == null) {
+            return false;
+        }
+        int cmp = min.compareTo(max);
+        return cmp > 0 || (cmp == 0 && !(minInclusive && maxInclusive));
+    }
+
     @SuppressWarnings("PMD.SimplifyBooleanReturns")
     public boolean contains(final BigDecimal value) {
         final boolean minMatch;
@@ -0,0 +1,130 @@
+/**
+ * Copyright (c) 2010-2024 Contributors to the openHAB project
+ *
+ * See the NOTICE file(s) distributed with this work for additional
+ * information.
+ *
+ * This program and the accompanying materials are made available under the
+ * terms of the Eclipse Public License 2.0 which is available at
+ * http://www.eclipse.org/legal/epl-2.0
+ *
+ * SPDX-License-Identifier: EPL-2.0
+ */
+package org.openhab.transform.scale.internal;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import org.eclipse.jdt.annotation.NonNullByDefault;
+import org.eclipse.jdt.annotation.Nullable;
+
+/**
+ * A parsed scale definition.
+ *
+ * If the ranges do not overlap, they are sorted by their lower limit and looked up by binary search. Otherwise the
+ * first range containing the value in the order of the definition is used.
+ *
+ * @author agent - Initial contribution
+ */
+@NonNullByDefault
+class Scale {
+    private static final String FORMAT_VALUE = "%value%";
+    private static final String FORMAT_LABEL = "%label%";
+
+    /** Orders ranges by their lower limit, an inclusive limit before an exclusive one */
+    private static final Comparator<Range> LOWER_LIMIT_ORDER = (a, b) -> {
+        if (a.min == null || b.min == null) {
+            return a.min == null ? (b.min == null ? 0 : -1) : 1;
+        }
+        int cmp = a.min.compareTo(b.min);
+        return cmp != 0 ? cmp : Boolean.compare(b.minInclusive, a.minInclusive);
+    };
+
+    private final Range[] ranges;
+    private final String[] labels;
+    private final boolean sorted;
+    private final String format;
+    private final @Nullable String nonNumeric;
+
+    /**
+     * @param definition the ranges and their labels in the order of the definition
+     * @param format the format of the result, or null to return the label
+     * @param nonNumeric the label for non numeric values, or null if there is none
+     */
+    Scale(List<Entry> definition, @Nullable String format, @Nullable String nonNumeric) {
+        // empty ranges never match and would prevent the binary search
+        List<Entry> entries = new ArrayList<>(definition.stream().filter(entry -> !entry.range().isEmpty()).toList());
+        List<Entry> sortedEntries = new ArrayList<>(entries);
+        sortedEntries.sort((a, b) -> LOWER_LIMIT_ORDER.compare(a.range(), b.range()));
+        sorted = isDisjoint(sortedEntries);
+        if (sorted) {
+            entries = sortedEntries;
+        }
+        ranges = entries.stream().map(Entry::range).toArray(Range[]::new);
+        labels = entries.stream().map(Entry::label).toArray(String[]::new);
+        this.format = format == null ? FORMAT_LABEL : format;
+        this.nonNumeric = nonNumeric;
+    }
+
+    private static boolean isDisjoint(List<Entry> sortedEntries) {
+        for (int i = 1; i < sortedEntries.size(); i++) {
+            Range previous = sortedEntries.get(i - 1).range();
+            Range next = sortedEntries.get(i).range();
+            if (previous.max == null || next.min == null) {
+                return false;
+            }
+            int cmp = previous.max.compareTo(next.min);
+            if (cmp > 0 || (cmp == 0 && previous.maxInclusive && next.minInclusive)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the label of the range containing the value, or null if there is none
+     */
+    @Nullable String getLabel(BigDecimal value) {
+        if (!sorted) {
+            for (int i = 0; i < ranges.length; i++) {
+                if (ranges[i].contains(value)) {
+                    return labels[i];
+                }
+            }
+            return null;
+        }
+        // find the last range whose lower limit is not above the value
+        int low = 0;
+        int high = ranges.length - 1;
+        int candidate = -1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (ranges[mid].isAboveLowerLimit(value)) {
+                candidate = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return candidate >= 0 && ranges[candidate].contains(value) ? labels[candidate] : null;
+    }
+
+    /**
+     * @return the result for the source and the label of its range according to the format
+     */
+    String format(String source, String label) {
+        if (FORMAT_LABEL.equals(format)) {
+            return label;
+        }
+        return format.replace(FORMAT_VALUE, source).replace(FORMAT_LABEL, label);
+    }
+
+    @Nullable String getNonNumeric() {
+        return nonNumeric;
+    }
+
+    record Entry(Range range, String label) {
+    }
+}
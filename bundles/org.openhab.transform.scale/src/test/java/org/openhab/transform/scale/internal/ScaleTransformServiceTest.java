@@ -143,6 +143,17 @@ public class ScaleTransformServiceTest {
         assertThrows(TransformationException.class, () -> processor.transform(existingscale, source));
     }
 
+    @Test
+    public void testTransformByScaleBoundaries() throws TransformationException {
+        String existingscale = "scale" + File.separator + "limits.scale";
+
+        assertEquals("low", processor.transform(existingscale, "9.999"));
+        assertEquals("middle", processor.transform(existingscale, "19.999"));
+        assertEquals("high", processor.transform(existingscale, "20"));
+        assertEquals("high", processor.transform(existingscale, "299.999"));
+        assertEquals("extreme", processor.transform(existingscale, "300"));
+    }
+
     @Test
     public void testEvaluationOrder() throws TransformationException {
         // Ensures that only first matching scale as presented in the file is taken in account
@@ -12,12 +12,17 @@
  */
 package org.openhab.transform.xslt.internal;
 
-import java.io.File;
 import java.io.StringReader;
 import java.io.StringWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Map;
 
-import javax.xml.transform.Source;
+import javax.xml.transform.Templates;
 import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
 import javax.xml.transform.TransformerFactory;
 import javax.xml.transform.stream.StreamResult;
 import javax.xml.transform.stream.StreamSource;
@@ -43,12 +48,17 @@ public class XsltTransformationService implements TransformationService {
 
     private final Logger logger = LoggerFactory.getLogger(XsltTransformationService.class);
 
+    // compiled stylesheets by file, guarded by itself, as the factory is not thread-safe
+    private final Map<Path, CachedTemplates> templatesCache = new HashMap<>();
+    private final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
     /**
      * Transforms the input <code>source</code> by XSLT.
      *
      * The method expects the transformation rule to be read from a file which
      * is stored under the 'configurations/transform' folder. To organize the
-     * various transformations one should use subfolders.
+     * various transformations one should use subfolders. The compiled transformation
+     * is kept until the file is modified.
      *
      * @param filename the name of the file which contains the XSLT transformation rule.
      *            The name may contain subfoldernames as well
@@ -60,12 +70,12 @@ public class XsltTransformationService implements TransformationService {
             throw new TransformationException("the given parameters 'filename' and 'source' must not be null");
         }
 
-        Source xsl = null;
+        Path path;
+        FileTime lastModified;
 
         try {
-            String path = OpenHAB.getConfigFolder() + File.separator + TransformationService.TRANSFORM_FOLDER_NAME
-                    + File.separator + filename;
-            xsl = new StreamSource(new File(path));
+            path = Path.of(OpenHAB.getConfigFolder(), TransformationService.TRANSFORM_FOLDER_NAME, filename);
+            lastModified = Files.getLastModifiedTime(path);
         } catch (Exception e) {
             String message = "opening file '" + filename + "' throws exception";
 
@@ -73,7 +83,7 @@ public class XsltTransformationService implements TransformationService {
             throw new TransformationException(message, e);
         }
 
-        logger.debug("about to transform '{}' by the function '{}'", source, xsl);
+        logger.debug("about to transform '{}' by the function '{}'", source, path);
 
         StringReader xml = new StringReader(source);
         StringWriter out = new StringWriter();
@@ -81,7 +91,8 @@ public class XsltTransformationService implements TransformationService {
         Transformer transformer;
 
         try {
-            transformer = TransformerFactory.newInstance().newTransformer(xsl);
+            // creating a transformer from compiled templates is cheap, transformers are not thread-safe
+            transformer = getTemplates(path, lastModified).newTransformer();
             transformer.transform(new StreamSource(xml), new StreamResult(out));
         } catch (Exception e) {
             logger.error("transformation throws exception", e);
@@ -92,4 +103,20 @@ public class XsltTransformationService implements TransformationService {
 
         return out.toString();
     }
+
+    private Templates getTemplates(Path path, FileTime lastModified) throws TransformerConfigurationException {
+        synchronized (templatesCache) {
+            CachedTemplates cached = templatesCache.get(path);
+            if (cached != null && cached.lastModified().equals(lastModified)) {
+                return cached.templates();
+            }
+            logger.debug("compiling XSLT transformation '{}'", path);
+            Templates templates = transformerFactory.newTemplates(new StreamSource(path.toFile()));
+            templatesCache.put(path, new CachedTemplates(templates, lastModified));
+            return templates;
+        }
+    }
+
+    private record CachedTemplates(Templates templates, FileTime lastModified) {
+    }
 }